@@ -0,0 +1,36 @@
+package blog.sammi.lab.notes.application.dto;
+
+import blog.sammi.lab.notes.presentation.dto.NoteDto;
+import blog.sammi.lab.notes.presentation.dto.NoteSummaryDto;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+
+// Cache-friendly page snapshots; Page itself does not round-trip through JSON
+public final class CachedPage {
+    
+    private CachedPage() {
+    }
+    
+    public record Notes(List<NoteDto> content, long totalElements) {
+        public static Notes of(Page<NoteDto> page) {
+            return new Notes(page.getContent(), page.getTotalElements());
+        }
+        
+        public Page<NoteDto> toPage(Pageable pageable) {
+            return new PageImpl<>(content, pageable, totalElements);
+        }
+    }
+    
+    public record NoteSummaries(List<NoteSummaryDto> content, long totalElements) {
+        public static NoteSummaries of(Page<NoteSummaryDto> page) {
+            return new NoteSummaries(page.getContent(), page.getTotalElements());
+        }
+        
+        public Page<NoteSummaryDto> toPage(Pageable pageable) {
+            return new PageImpl<>(content, pageable, totalElements);
+        }
+    }
+}
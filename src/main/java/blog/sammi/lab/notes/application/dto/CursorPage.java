@@ -0,0 +1,18 @@
+package blog.sammi.lab.notes.application.dto;
+
+import java.util.List;
+import java.util.function.Function;
+
+// One keyset page; nextCursor is null when there are no further results
+public record CursorPage<T>(
+    List<T> content,
+    String nextCursor
+) {
+    public <R> CursorPage<R> map(Function<? super T, ? extends R> mapper) {
+        return new CursorPage<>(content.stream().<R>map(mapper).toList(), nextCursor);
+    }
+    
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+}
@@ -0,0 +1,18 @@
+package blog.sammi.lab.notes.application.dto;
+
+import lombok.Builder;
+
+import java.time.LocalDateTime;
+import java.util.Set;
+
+@Builder
+public record DeadLetterQuery(
+    Set<String> jobIds,
+    String jobType,
+    String queueName,
+    String error,
+    LocalDateTime failedBefore,
+    LocalDateTime failedAfter,
+    String cursor,
+    int size
+) {}
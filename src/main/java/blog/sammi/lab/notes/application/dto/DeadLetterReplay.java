@@ -0,0 +1,20 @@
+package blog.sammi.lab.notes.application.dto;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// Progress of a replay started on this node; finishedAt is null while it runs
+public record DeadLetterReplay(
+    UUID id,
+    Status status,
+    long replayed,
+    String error,
+    LocalDateTime startedAt,
+    LocalDateTime finishedAt
+) {
+    public enum Status {
+        RUNNING,
+        COMPLETED,
+        FAILED
+    }
+}
@@ -10,5 +10,6 @@ public record GetNotesByRequest(
     UUID userId,
     UUID categoryId,
     UUID tagId,
+    String cursor,
     Pageable pageable
 ) {}
@@ -15,5 +15,6 @@ public record GetNotesRequest(
     List<UUID> tagIds,
     LocalDateTime startDate,
     LocalDateTime endDate,
+    String cursor,
     Pageable pageable
 ) {}
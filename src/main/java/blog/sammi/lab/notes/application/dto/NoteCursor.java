@@ -0,0 +1,44 @@
+package blog.sammi.lab.notes.application.dto;
+
+import blog.sammi.lab.notes.domain.entity.Note;
+import blog.sammi.lab.notes.presentation.dto.ErrorCode;
+import blog.sammi.lab.notes.presentation.exception.BusinessException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.UUID;
+
+// Position in the (updated_at DESC, id DESC) note ordering, exchanged with clients as an opaque token
+public record NoteCursor(LocalDateTime updatedAt, UUID id) {
+    
+    // Sorts before every stored note, so the first page uses the same keyset predicate as later ones
+    public static final NoteCursor START = new NoteCursor(LocalDateTime.of(9999, 12, 31, 23, 59, 59), new UUID(-1L, -1L));
+    
+    private static final String SEPARATOR = "|";
+    
+    public static NoteCursor of(Note note) {
+        return new NoteCursor(note.getUpdatedAt(), note.getId());
+    }
+    
+    public static NoteCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return START;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(SEPARATOR);
+            return new NoteCursor(
+                    LocalDateTime.parse(raw.substring(0, separator)),
+                    UUID.fromString(raw.substring(separator + 1))
+            );
+        } catch (RuntimeException e) {
+            throw new BusinessException(ErrorCode.VALIDATION_ERROR, "Cursor tidak valid");
+        }
+    }
+    
+    public String encode() {
+        String raw = updatedAt + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,8 @@
+package blog.sammi.lab.notes.application.dto;
+
+public enum SearchMode {
+    // Relevance-ranked match against notes.search_vector (websearch syntax, "term*" prefixes)
+    RANKED,
+    // Legacy substring match on title/content
+    CONTAINS
+}
@@ -9,5 +9,7 @@ import java.util.UUID;
 public record SearchNotesRequest(
     UUID userId,
     String query,
+    SearchMode mode,
+    String cursor,
     Pageable pageable
 ) {}
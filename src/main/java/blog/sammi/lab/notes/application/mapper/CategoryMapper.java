@@ -17,6 +17,19 @@ public interface CategoryMapper {
     @Mapping(target = "noteCount", expression = "java(category.getNotes() != null ? (long) category.getNotes().size() : 0L)")
     CategoryDto toDto(Category category);
     
+    // List reads supply a pre-aggregated count instead of initializing the lazy notes collection
+    default CategoryDto toDto(Category category, long noteCount) {
+        return new CategoryDto(
+                category.getId(),
+                category.getName(),
+                category.getDescription(),
+                category.getUser().getId(),
+                noteCount,
+                category.getCreatedAt(),
+                category.getUpdatedAt()
+        );
+    }
+    
     List<CategoryDto> toDtoList(List<Category> categories);
     
     @Mapping(target = "id", ignore = true)
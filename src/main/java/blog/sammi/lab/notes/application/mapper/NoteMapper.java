@@ -1,10 +1,15 @@
 package blog.sammi.lab.notes.application.mapper;
 
 import blog.sammi.lab.notes.domain.entity.Note;
+import blog.sammi.lab.notes.domain.repository.NoteSummaryView;
+import blog.sammi.lab.notes.presentation.dto.CategoryDto;
 import blog.sammi.lab.notes.presentation.dto.NoteDto;
+import blog.sammi.lab.notes.presentation.dto.NoteSummaryDto;
+import blog.sammi.lab.notes.presentation.dto.TagDto;
 import org.mapstruct.*;
 
 import java.util.List;
+import java.util.UUID;
 
 @Mapper(
     componentModel = "spring",
@@ -21,6 +26,34 @@ public interface NoteMapper {
     
     List<NoteDto> toDtoList(List<Note> notes);
     
+    // List reads pass in batch-loaded associations so no lazy collection is touched
+    default NoteDto toDto(Note note, CategoryDto category, List<TagDto> tags) {
+        return new NoteDto(
+                note.getId(),
+                note.getTitle(),
+                note.getContent(),
+                note.getUser().getId(),
+                category,
+                tags,
+                note.getCreatedAt(),
+                note.getUpdatedAt()
+        );
+    }
+    
+    default NoteSummaryDto toSummaryDto(NoteSummaryView view, List<UUID> tagIds) {
+        return new NoteSummaryDto(
+                view.getId(),
+                view.getTitle(),
+                view.getPreview(),
+                view.getWordCount() != null ? view.getWordCount() : 0,
+                view.getUserId(),
+                view.getCategoryId(),
+                tagIds,
+                view.getCreatedAt(),
+                view.getUpdatedAt()
+        );
+    }
+    
     @Mapping(target = "id", ignore = true)
     @Mapping(target = "user", ignore = true)
     @Mapping(target = "category", ignore = true)
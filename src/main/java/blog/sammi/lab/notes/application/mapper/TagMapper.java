@@ -17,6 +17,19 @@ public interface TagMapper {
     @Mapping(target = "noteCount", expression = "java(tag.getNotes() != null ? (long) tag.getNotes().size() : 0L)")
     TagDto toDto(Tag tag);
     
+    // List reads supply a pre-aggregated count instead of initializing the lazy notes collection
+    default TagDto toDto(Tag tag, long noteCount) {
+        return new TagDto(
+                tag.getId(),
+                tag.getName(),
+                tag.getColor(),
+                tag.getUser().getId(),
+                noteCount,
+                tag.getCreatedAt(),
+                tag.getUpdatedAt()
+        );
+    }
+    
     List<TagDto> toDtoList(List<Tag> tags);
     
     @Mapping(target = "id", ignore = true)
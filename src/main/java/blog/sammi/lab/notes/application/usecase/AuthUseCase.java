@@ -3,24 +3,27 @@ package blog.sammi.lab.notes.application.usecase;
 import blog.sammi.lab.notes.application.dto.*;
 import blog.sammi.lab.notes.domain.entity.RefreshToken;
 import blog.sammi.lab.notes.domain.entity.User;
+import blog.sammi.lab.notes.domain.job.EmailJob;
+import blog.sammi.lab.notes.domain.job.NotificationJob;
 import blog.sammi.lab.notes.domain.repository.RefreshTokenRepository;
 import blog.sammi.lab.notes.domain.repository.UserRepository;
-import blog.sammi.lab.notes.domain.service.EmailService;
+import blog.sammi.lab.notes.domain.service.AuthPrincipalCache;
+import blog.sammi.lab.notes.domain.service.CodeEmailLimiter;
+import blog.sammi.lab.notes.domain.service.JobOutbox;
 import blog.sammi.lab.notes.domain.service.JwtService;
 import blog.sammi.lab.notes.domain.service.PasswordEncoder;
-import blog.sammi.lab.notes.domain.service.QueueService;
 import blog.sammi.lab.notes.infrastructure.config.StructuredLogger;
 import blog.sammi.lab.notes.presentation.dto.ErrorCode;
 import blog.sammi.lab.notes.presentation.exception.BusinessException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
-import java.util.HashMap;
-import java.util.Map;
 import java.util.Random;
 import java.util.UUID;
 
@@ -33,9 +36,17 @@ public class AuthUseCase {
     private final RefreshTokenRepository refreshTokenRepository;
     private final PasswordEncoder passwordEncoder;
     private final JwtService jwtService;
-    private final EmailService emailService;
     private final StructuredLogger structuredLogger;
-    private final QueueService queueService;
+    private final JobOutbox jobOutbox;
+    private final AuthPrincipalCache authPrincipalCache;
+    private final CodeEmailLimiter codeEmailLimiter;
+
+    // OTP and reset emails requested again within this window reuse the one already queued
+    @Value("${app.email.resend-window-seconds:60}")
+    private long emailResendWindowSeconds;
+
+    @Value("${app.notifications.login-alerts:false}")
+    private boolean loginAlerts;
 
     @Transactional
     public void register(RegisterRequest request) {
@@ -65,30 +76,26 @@ public class AuthUseCase {
 
             userRepository.save(user);
 
-            // Queue email sending instead of synchronous call
-            Map<String, Object> emailPayload = new HashMap<>();
-            emailPayload.put("type", "OTP_VERIFICATION");
-            emailPayload.put("to", user.getEmail());
-            emailPayload.put("otpCode", user.getOtpCode());
-            queueService.enqueue("email", "EMAIL", emailPayload);
+            // Queued via the outbox: sent only if the registration commits
+            jobOutbox.enqueue("email", EmailJob.otpVerification(user.getEmail(), user.getOtpCode()));
 
-            Map<String, Object> eventData = new HashMap<>();
-            eventData.put("username", request.username());
-            eventData.put("email", request.email());
-            structuredLogger.logBusinessEvent("USER_REGISTRATION", "SUCCESS", eventData);
+            structuredLogger.business("USER_REGISTRATION", "SUCCESS")
+                    .with("username", request.username())
+                    .with("email", request.email())
+                    .log();
 
             long duration = System.currentTimeMillis() - startTime;
-            Map<String, Object> metrics = new HashMap<>();
-            metrics.put("email", request.email());
-            structuredLogger.logPerformanceMetric("USER_REGISTRATION", duration, metrics);
+            structuredLogger.performance("USER_REGISTRATION", duration)
+                    .with("email", request.email())
+                    .log();
 
             log.info("User registration completed successfully for email: {}", request.email());
 
         } catch (Exception e) {
-            Map<String, Object> context = new HashMap<>();
-            context.put("email", request.email());
-            context.put("username", request.username());
-            structuredLogger.logError("USER_REGISTRATION", e, context);
+            structuredLogger.error("USER_REGISTRATION", e)
+                    .with("email", request.email())
+                    .with("username", request.username())
+                    .log();
             throw e;
         }
     }
@@ -127,24 +134,30 @@ public class AuthUseCase {
             String accessToken = jwtService.generateToken(user.getUsername());
             RefreshToken refreshToken = createRefreshToken(user);
 
-            Map<String, Object> eventData = new HashMap<>();
-            eventData.put("username", user.getUsername());
-            eventData.put("email", user.getEmail());
-            structuredLogger.logBusinessEvent("USER_LOGIN", "SUCCESS", eventData);
+            // Bursts of sign-ins collapse into the user's next notification digest
+            if (loginAlerts) {
+                jobOutbox.enqueue("notifications", NotificationJob.securityAlert(user.getId(),
+                        "New sign-in", "Your account was signed in to."));
+            }
+
+            structuredLogger.business("USER_LOGIN", "SUCCESS")
+                    .with("username", user.getUsername())
+                    .with("email", user.getEmail())
+                    .log();
 
             long duration = System.currentTimeMillis() - startTime;
-            Map<String, Object> metrics = new HashMap<>();
-            metrics.put("username", user.getUsername());
-            structuredLogger.logPerformanceMetric("USER_LOGIN", duration, metrics);
+            structuredLogger.performance("USER_LOGIN", duration)
+                    .with("username", user.getUsername())
+                    .log();
 
             log.info("Login completed successfully for user: {}", user.getUsername());
 
             return AuthResponse.of(accessToken, refreshToken.getToken(), 3600000L);
 
         } catch (Exception e) {
-            Map<String, Object> context = new HashMap<>();
-            context.put("usernameOrEmail", request.usernameOrEmail());
-            structuredLogger.logError("USER_LOGIN", e, context);
+            structuredLogger.error("USER_LOGIN", e)
+                    .with("usernameOrEmail", request.usernameOrEmail())
+                    .log();
             throw e;
         }
     }
@@ -174,18 +187,19 @@ public class AuthUseCase {
             user.setOtpCode(null);
             user.setOtpExpiry(null);
             userRepository.save(user);
+            authPrincipalCache.evict(user);
 
-            Map<String, Object> eventData = new HashMap<>();
-            eventData.put("username", user.getUsername());
-            eventData.put("email", email);
-            structuredLogger.logBusinessEvent("OTP_VERIFICATION", "SUCCESS", eventData);
+            structuredLogger.business("OTP_VERIFICATION", "SUCCESS")
+                    .with("username", user.getUsername())
+                    .with("email", email)
+                    .log();
 
             log.info("OTP verification completed successfully for email: {}", email);
 
         } catch (Exception e) {
-            Map<String, Object> context = new HashMap<>();
-            context.put("email", email);
-            structuredLogger.logError("OTP_VERIFICATION", e, context);
+            structuredLogger.error("OTP_VERIFICATION", e)
+                    .with("email", email)
+                    .log();
             throw e;
         }
     }
@@ -195,6 +209,8 @@ public class AuthUseCase {
         log.info("Resending OTP for email: {}", email);
 
         try {
+            checkCodeEmailLimit(email);
+
             User user = userRepository.findByEmail(email)
                     .orElseThrow(() -> new BusinessException(ErrorCode.USER_NOT_FOUND));
 
@@ -202,23 +218,28 @@ public class AuthUseCase {
                 throw new BusinessException(ErrorCode.ACCOUNT_NOT_VERIFIED, "Akun sudah diverifikasi");
             }
 
-            user.setOtpCode(generateOtp());
-            user.setOtpExpiry(LocalDateTime.now().plusMinutes(10));
-            userRepository.save(user);
-
-            emailService.sendOtpEmail(user.getEmail(), user.getOtpCode());
+            // Repeats within the window coalesce into the pending email, so its code must stay valid
+            String otpCode = generateOtp();
+            boolean enqueued = jobOutbox.enqueue("email", EmailJob.otpVerification(user.getEmail(), otpCode),
+                    "email:otp:" + user.getId(), Duration.ofSeconds(emailResendWindowSeconds));
+            if (enqueued) {
+                user.setOtpCode(otpCode);
+                user.setOtpExpiry(LocalDateTime.now().plusMinutes(10));
+                userRepository.save(user);
+            }
 
-            Map<String, Object> eventData = new HashMap<>();
-            eventData.put("username", user.getUsername());
-            eventData.put("email", email);
-            structuredLogger.logBusinessEvent("OTP_RESEND", "SUCCESS", eventData);
+            structuredLogger.business("OTP_RESEND", "SUCCESS")
+                    .with("username", user.getUsername())
+                    .with("email", email)
+                    .with("coalesced", !enqueued)
+                    .log();
 
-            log.info("OTP resent successfully for email: {}", email);
+            log.info("OTP resend queued for email: {}", email);
 
         } catch (Exception e) {
-            Map<String, Object> context = new HashMap<>();
-            context.put("email", email);
-            structuredLogger.logError("OTP_RESEND", e, context);
+            structuredLogger.error("OTP_RESEND", e)
+                    .with("email", email)
+                    .log();
             throw e;
         }
     }
@@ -243,18 +264,18 @@ public class AuthUseCase {
 
             String accessToken = jwtService.generateToken(refreshToken.getUser().getUsername());
 
-            Map<String, Object> eventData = new HashMap<>();
-            eventData.put("username", refreshToken.getUser().getUsername());
-            structuredLogger.logBusinessEvent("TOKEN_REFRESH", "SUCCESS", eventData);
+            structuredLogger.business("TOKEN_REFRESH", "SUCCESS")
+                    .with("username", refreshToken.getUser().getUsername())
+                    .log();
 
             log.info("Token refresh completed successfully for user: {}", refreshToken.getUser().getUsername());
 
             return AuthResponse.of(accessToken, refreshToken.getToken(), 3600000L);
 
         } catch (Exception e) {
-            Map<String, Object> context = new HashMap<>();
-            context.put("refreshToken", refreshTokenValue.substring(0, 8) + "...");
-            structuredLogger.logError("TOKEN_REFRESH", e, context);
+            structuredLogger.error("TOKEN_REFRESH", e)
+                    .with("refreshToken", refreshTokenValue.substring(0, 8) + "...")
+                    .log();
             throw e;
         }
     }
@@ -264,26 +285,32 @@ public class AuthUseCase {
         log.info("Starting forgot password for email: {}", email);
 
         try {
+            checkCodeEmailLimit(email);
+
             User user = userRepository.findByEmail(email)
                     .orElseThrow(() -> new BusinessException(ErrorCode.USER_NOT_FOUND));
 
-            user.setResetToken(generateOtp());
-            user.setResetTokenExpiry(LocalDateTime.now().plusMinutes(10));
-            userRepository.save(user);
-
-            emailService.sendPasswordResetEmail(user.getEmail(), user.getResetToken());
+            String resetToken = generateOtp();
+            boolean enqueued = jobOutbox.enqueue("email", EmailJob.passwordReset(user.getEmail(), resetToken),
+                    "email:reset:" + user.getId(), Duration.ofSeconds(emailResendWindowSeconds));
+            if (enqueued) {
+                user.setResetToken(resetToken);
+                user.setResetTokenExpiry(LocalDateTime.now().plusMinutes(10));
+                userRepository.save(user);
+            }
 
-            Map<String, Object> eventData = new HashMap<>();
-            eventData.put("username", user.getUsername());
-            eventData.put("email", email);
-            structuredLogger.logBusinessEvent("PASSWORD_RESET_REQUEST", "SUCCESS", eventData);
+            structuredLogger.business("PASSWORD_RESET_REQUEST", "SUCCESS")
+                    .with("username", user.getUsername())
+                    .with("email", email)
+                    .with("coalesced", !enqueued)
+                    .log();
 
-            log.info("Password reset email sent successfully for email: {}", email);
+            log.info("Password reset email queued for email: {}", email);
 
         } catch (Exception e) {
-            Map<String, Object> context = new HashMap<>();
-            context.put("email", email);
-            structuredLogger.logError("PASSWORD_RESET_REQUEST", e, context);
+            structuredLogger.error("PASSWORD_RESET_REQUEST", e)
+                    .with("email", email)
+                    .log();
             throw e;
         }
     }
@@ -314,18 +341,22 @@ public class AuthUseCase {
             userRepository.save(user);
 
             refreshTokenRepository.deleteByUser(user);
+            authPrincipalCache.evict(user);
 
-            Map<String, Object> eventData = new HashMap<>();
-            eventData.put("username", user.getUsername());
-            eventData.put("email", email);
-            structuredLogger.logBusinessEvent("PASSWORD_RESET", "SUCCESS", eventData);
+            jobOutbox.enqueue("notifications", NotificationJob.securityAlert(user.getId(),
+                    "Password changed", "Your password was reset and all sessions were signed out."));
+
+            structuredLogger.business("PASSWORD_RESET", "SUCCESS")
+                    .with("username", user.getUsername())
+                    .with("email", email)
+                    .log();
 
             log.info("Password reset completed successfully for email: {}", email);
 
         } catch (Exception e) {
-            Map<String, Object> context = new HashMap<>();
-            context.put("email", email);
-            structuredLogger.logError("PASSWORD_RESET", e, context);
+            structuredLogger.error("PASSWORD_RESET", e)
+                    .with("email", email)
+                    .log();
             throw e;
         }
     }
@@ -342,6 +373,14 @@ public class AuthUseCase {
         return refreshTokenRepository.save(refreshToken);
     }
 
+    // Rejects the request before a new code is generated, so the stored code always matches an email that is sent
+    private void checkCodeEmailLimit(String email) {
+        if (!codeEmailLimiter.tryAcquireCodeEmail(email)) {
+            structuredLogger.logSecurityEvent("CODE_EMAIL_THROTTLED", email, "Too many code requests");
+            throw new BusinessException(ErrorCode.TOO_MANY_REQUESTS, "Terlalu banyak permintaan kode, silakan coba lagi nanti");
+        }
+    }
+
     private String generateOtp() {
         return String.format("%06d", new Random().nextInt(999999));
     }
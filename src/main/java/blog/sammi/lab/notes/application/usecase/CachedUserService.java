@@ -26,71 +26,36 @@ public class CachedUserService {
     private static final String USER_USERNAME_CACHE_PREFIX = "user:username:";
     private static final int CACHE_TTL_SECONDS = 3600; // 1 hour
     
-    // Read-through cache pattern
+    // Read-through cache pattern; concurrent misses share a single database load
     public Optional<UserDto> findById(UUID id) {
-        String cacheKey = USER_CACHE_PREFIX + id;
-        
-        // Try cache first
-        Optional<UserDto> cached = cacheService.get(cacheKey, UserDto.class);
-        if (cached.isPresent()) {
-            log.debug("User found in cache: {}", id);
-            return cached;
-        }
-        
-        // Cache miss - fetch from database
-        Optional<User> user = userRepository.findById(id);
-        if (user.isPresent()) {
-            UserDto userDto = userMapper.toDto(user.get());
-            // Write to cache
-            cacheService.put(cacheKey, userDto, CACHE_TTL_SECONDS);
-            log.debug("User loaded from database and cached: {}", id);
-            return Optional.of(userDto);
-        }
-        
-        return Optional.empty();
+        return cacheService.getOrLoad(USER_CACHE_PREFIX + id, UserDto.class, CACHE_TTL_SECONDS, () -> {
+            Optional<UserDto> userDto = userRepository.findById(id).map(userMapper::toDto);
+            userDto.ifPresent(dto -> log.debug("User loaded from database and cached: {}", id));
+            return userDto;
+        });
     }
     
     // Read-through cache pattern for email lookup
     public Optional<UserDto> findByEmail(String email) {
-        String cacheKey = USER_EMAIL_CACHE_PREFIX + email;
-        
-        Optional<UserDto> cached = cacheService.get(cacheKey, UserDto.class);
-        if (cached.isPresent()) {
-            return cached;
-        }
-        
-        Optional<User> user = userRepository.findByEmail(email);
-        if (user.isPresent()) {
-            UserDto userDto = userMapper.toDto(user.get());
-            cacheService.put(cacheKey, userDto, CACHE_TTL_SECONDS);
+        return cacheService.getOrLoad(USER_EMAIL_CACHE_PREFIX + email, UserDto.class, CACHE_TTL_SECONDS, () -> {
+            Optional<UserDto> userDto = userRepository.findByEmail(email).map(userMapper::toDto);
             // Also cache by ID
-            cacheService.put(USER_CACHE_PREFIX + userDto.id(), userDto, CACHE_TTL_SECONDS);
-            return Optional.of(userDto);
-        }
-        
-        return Optional.empty();
+            userDto.ifPresent(dto -> cacheService.put(USER_CACHE_PREFIX + dto.id(), dto, CACHE_TTL_SECONDS));
+            return userDto;
+        });
     }
     
     // Read-through cache pattern for username lookup
     public Optional<UserDto> findByUsername(String username) {
-        String cacheKey = USER_USERNAME_CACHE_PREFIX + username;
-        
-        Optional<UserDto> cached = cacheService.get(cacheKey, UserDto.class);
-        if (cached.isPresent()) {
-            return cached;
-        }
-        
-        Optional<User> user = userRepository.findByUsername(username);
-        if (user.isPresent()) {
-            UserDto userDto = userMapper.toDto(user.get());
-            cacheService.put(cacheKey, userDto, CACHE_TTL_SECONDS);
+        return cacheService.getOrLoad(USER_USERNAME_CACHE_PREFIX + username, UserDto.class, CACHE_TTL_SECONDS, () -> {
+            Optional<UserDto> userDto = userRepository.findByUsername(username).map(userMapper::toDto);
             // Also cache by ID and email
-            cacheService.put(USER_CACHE_PREFIX + userDto.id(), userDto, CACHE_TTL_SECONDS);
-            cacheService.put(USER_EMAIL_CACHE_PREFIX + userDto.email(), userDto, CACHE_TTL_SECONDS);
-            return Optional.of(userDto);
-        }
-        
-        return Optional.empty();
+            userDto.ifPresent(dto -> {
+                cacheService.put(USER_CACHE_PREFIX + dto.id(), dto, CACHE_TTL_SECONDS);
+                cacheService.put(USER_EMAIL_CACHE_PREFIX + dto.email(), dto, CACHE_TTL_SECONDS);
+            });
+            return userDto;
+        });
     }
     
     // Write-through cache pattern
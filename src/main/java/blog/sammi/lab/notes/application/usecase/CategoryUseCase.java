@@ -22,6 +22,7 @@ public class CategoryUseCase {
     private final CategoryRepository categoryRepository;
     private final UserRepository userRepository;
     private final CategoryMapper categoryMapper;
+    private final NoteListCache noteListCache;
     
     public CategoryDto createCategory(CreateCategoryRequest request) {
         User user = userRepository.findById(request.userId())
@@ -75,6 +76,8 @@ public class CategoryUseCase {
         category.setDescription(request.description());
         
         Category savedCategory = categoryRepository.save(category);
+        // Cached note pages embed the category name
+        noteListCache.invalidate(request.userId());
         return categoryMapper.toDto(savedCategory);
     }
     
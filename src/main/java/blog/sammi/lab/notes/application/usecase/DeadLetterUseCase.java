@@ -0,0 +1,139 @@
+package blog.sammi.lab.notes.application.usecase;
+
+import blog.sammi.lab.notes.application.dto.CursorPage;
+import blog.sammi.lab.notes.application.dto.DeadLetterQuery;
+import blog.sammi.lab.notes.application.dto.DeadLetterReplay;
+import blog.sammi.lab.notes.domain.service.DeadLetterQueue;
+import blog.sammi.lab.notes.infrastructure.config.StructuredLogger;
+import blog.sammi.lab.notes.presentation.dto.ErrorCode;
+import blog.sammi.lab.notes.presentation.exception.BusinessException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Service
+@Slf4j
+public class DeadLetterUseCase {
+
+    private static final int MAX_PAGE_SIZE = 200;
+    private static final int MAX_TRACKED_REPLAYS = 50;
+
+    private final DeadLetterQueue deadLetterQueue;
+    private final StructuredLogger structuredLogger;
+    private final int retentionHours;
+
+    private final Map<UUID, DeadLetterReplay> replays = new ConcurrentHashMap<>();
+
+    public DeadLetterUseCase(
+            DeadLetterQueue deadLetterQueue,
+            StructuredLogger structuredLogger,
+            @Value("${app.queue.dead-letter.retention-hours:336}") int retentionHours) {
+        this.deadLetterQueue = deadLetterQueue;
+        this.structuredLogger = structuredLogger;
+        this.retentionHours = retentionHours;
+    }
+
+    public CursorPage<DeadLetterQueue.Entry> browse(DeadLetterQuery query) {
+        long cursor = parseCursor(query.cursor());
+        int size = Math.min(Math.max(query.size(), 1), MAX_PAGE_SIZE);
+
+        DeadLetterQueue.Page page = deadLetterQueue.browse(toFilter(query), cursor, size);
+        return new CursorPage<>(page.entries(), page.nextCursor() != null ? page.nextCursor().toString() : null);
+    }
+
+    // Runs in the background; poll getReplay for progress
+    public DeadLetterReplay startReplay(DeadLetterQuery query, boolean all) {
+        DeadLetterQueue.Filter filter = toFilter(query);
+        if (filter.isEmpty() && !all) {
+            throw new BusinessException(ErrorCode.VALIDATION_ERROR,
+                    "Tentukan filter atau jobIds, atau set all=true untuk memutar ulang seluruh dead letter");
+        }
+
+        DeadLetterReplay replay = new DeadLetterReplay(UUID.randomUUID(), DeadLetterReplay.Status.RUNNING,
+                0, null, LocalDateTime.now(), null);
+        forgetFinishedReplays();
+        replays.put(replay.id(), replay);
+
+        Thread.ofVirtual().name("dead-letter-replay-" + replay.id()).start(() -> {
+            try {
+                long replayed = deadLetterQueue.replay(filter, count -> replays.computeIfPresent(replay.id(),
+                        (id, current) -> new DeadLetterReplay(id, current.status(), count, null, current.startedAt(), null)));
+                replays.put(replay.id(), new DeadLetterReplay(replay.id(), DeadLetterReplay.Status.COMPLETED,
+                        replayed, null, replay.startedAt(), LocalDateTime.now()));
+
+                structuredLogger.business("DEAD_LETTER_REPLAY", "SUCCESS")
+                        .with("replayId", replay.id())
+                        .with("replayed", replayed)
+                        .log();
+            } catch (Exception e) {
+                log.error("Dead letter replay {} failed", replay.id(), e);
+                replays.computeIfPresent(replay.id(), (id, current) -> new DeadLetterReplay(id,
+                        DeadLetterReplay.Status.FAILED, current.replayed(), e.getMessage(), current.startedAt(),
+                        LocalDateTime.now()));
+            }
+        });
+        return replay;
+    }
+
+    public DeadLetterReplay getReplay(UUID replayId) {
+        DeadLetterReplay replay = replays.get(replayId);
+        if (replay == null) {
+            throw new BusinessException(ErrorCode.RESOURCE_NOT_FOUND, "Replay tidak ditemukan di node ini");
+        }
+        return replay;
+    }
+
+    // Removes entries that failed more than olderThanHours ago (app.queue.dead-letter.retention-hours by default)
+    public long purge(Integer olderThanHours) {
+        int hours = olderThanHours != null ? olderThanHours : retentionHours;
+        if (hours < 0) {
+            throw new BusinessException(ErrorCode.VALIDATION_ERROR, "olderThanHours tidak boleh negatif");
+        }
+
+        DeadLetterQueue.Filter filter = new DeadLetterQueue.Filter(null, null, null, null,
+                LocalDateTime.now().minusHours(hours), null);
+        long purged;
+        try {
+            purged = deadLetterQueue.purge(filter);
+        } catch (IllegalStateException e) {
+            throw new BusinessException(ErrorCode.OPERATION_IN_PROGRESS, "Replay atau purge dead letter lain sedang berjalan");
+        }
+
+        structuredLogger.business("DEAD_LETTER_PURGE", "SUCCESS")
+                .with("olderThanHours", hours)
+                .with("purged", purged)
+                .log();
+        return purged;
+    }
+
+    private void forgetFinishedReplays() {
+        if (replays.size() >= MAX_TRACKED_REPLAYS) {
+            replays.values().removeIf(replay -> replay.status() != DeadLetterReplay.Status.RUNNING);
+        }
+    }
+
+    private static DeadLetterQueue.Filter toFilter(DeadLetterQuery query) {
+        return new DeadLetterQueue.Filter(query.jobIds(), blankToNull(query.jobType()), blankToNull(query.queueName()),
+                blankToNull(query.error()), query.failedBefore(), query.failedAfter());
+    }
+
+    private static long parseCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(cursor);
+        } catch (NumberFormatException e) {
+            throw new BusinessException(ErrorCode.VALIDATION_ERROR, "Cursor tidak valid");
+        }
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value;
+    }
+}
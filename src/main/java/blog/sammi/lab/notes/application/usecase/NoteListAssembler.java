@@ -0,0 +1,107 @@
+package blog.sammi.lab.notes.application.usecase;
+
+import blog.sammi.lab.notes.application.mapper.CategoryMapper;
+import blog.sammi.lab.notes.application.mapper.NoteMapper;
+import blog.sammi.lab.notes.application.mapper.TagMapper;
+import blog.sammi.lab.notes.domain.entity.Category;
+import blog.sammi.lab.notes.domain.entity.Note;
+import blog.sammi.lab.notes.domain.entity.Tag;
+import blog.sammi.lab.notes.domain.repository.CategoryRepository;
+import blog.sammi.lab.notes.domain.repository.NoteRepository;
+import blog.sammi.lab.notes.domain.repository.TagRepository;
+import blog.sammi.lab.notes.presentation.dto.CategoryDto;
+import blog.sammi.lab.notes.presentation.dto.NoteDto;
+import blog.sammi.lab.notes.presentation.dto.TagDto;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Read path for note lists. Hydrates a page of notes with a fixed number of set-based
+ * queries (tags, categories, category counts, tag counts) regardless of page size,
+ * and maps without initializing any lazy association.
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class NoteListAssembler {
+
+    private final NoteRepository noteRepository;
+    private final CategoryRepository categoryRepository;
+    private final TagRepository tagRepository;
+    private final NoteMapper noteMapper;
+    private final CategoryMapper categoryMapper;
+    private final TagMapper tagMapper;
+
+    public Page<NoteDto> toDtoPage(Page<Note> notes) {
+        return new PageImpl<>(toDtoList(notes.getContent()), notes.getPageable(), notes.getTotalElements());
+    }
+
+    public List<NoteDto> toDtoList(List<Note> notes) {
+        if (notes.isEmpty()) {
+            return List.of();
+        }
+
+        List<UUID> noteIds = notes.stream().map(Note::getId).toList();
+
+        // Tags per note (1 query)
+        Map<UUID, List<Tag>> tagsByNote = new HashMap<>();
+        Map<UUID, Tag> tags = new HashMap<>();
+        for (Object[] row : noteRepository.findTagsByNoteIds(noteIds)) {
+            Tag tag = (Tag) row[1];
+            tagsByNote.computeIfAbsent((UUID) row[0], id -> new ArrayList<>()).add(tag);
+            tags.put(tag.getId(), tag);
+        }
+
+        // Categories (1 query); reading the id of the lazy proxy does not initialize it
+        Set<UUID> categoryIds = new LinkedHashSet<>();
+        for (Note note : notes) {
+            if (note.getCategory() != null) {
+                categoryIds.add(note.getCategory().getId());
+            }
+        }
+        Map<UUID, CategoryDto> categories = new HashMap<>();
+        if (!categoryIds.isEmpty()) {
+            Map<UUID, Long> categoryCounts = toCountMap(categoryRepository.countNotesByCategoryIds(categoryIds));
+            for (Category category : categoryRepository.findAllById(categoryIds)) {
+                categories.put(category.getId(),
+                        categoryMapper.toDto(category, categoryCounts.getOrDefault(category.getId(), 0L)));
+            }
+        }
+
+        // Tag note counts (1 query)
+        Map<UUID, TagDto> tagDtos = new HashMap<>();
+        if (!tags.isEmpty()) {
+            Map<UUID, Long> tagCounts = toCountMap(tagRepository.countNotesByTagIds(tags.keySet()));
+            tags.forEach((id, tag) -> tagDtos.put(id, tagMapper.toDto(tag, tagCounts.getOrDefault(id, 0L))));
+        }
+
+        List<NoteDto> result = new ArrayList<>(notes.size());
+        for (Note note : notes) {
+            CategoryDto category = note.getCategory() != null ? categories.get(note.getCategory().getId()) : null;
+            List<TagDto> noteTags = tagsByNote.getOrDefault(note.getId(), List.of()).stream()
+                    .map(tag -> tagDtos.get(tag.getId()))
+                    .toList();
+            result.add(noteMapper.toDto(note, category, noteTags));
+        }
+        return result;
+    }
+
+    private static Map<UUID, Long> toCountMap(List<Object[]> rows) {
+        Map<UUID, Long> counts = new HashMap<>();
+        for (Object[] row : rows) {
+            counts.put((UUID) row[0], (Long) row[1]);
+        }
+        return counts;
+    }
+}
@@ -0,0 +1,55 @@
+package blog.sammi.lab.notes.application.usecase;
+
+import blog.sammi.lab.notes.domain.service.CacheService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Caches a user's list pages and search results under a per-user cache namespace.
+ * Any write to the user's notes, categories or tags bumps the namespace, which drops
+ * every cached page for that user at once without scanning keys.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class NoteListCache {
+    
+    private static final String NAMESPACE_PREFIX = "notes:user:";
+    
+    private final CacheService cacheService;
+    
+    @Value("${app.cache.note-pages.ttl-seconds:300}")
+    private int ttlSeconds;
+    
+    public <T> T getOrLoad(UUID userId, String key, Class<T> type, Supplier<T> loader) {
+        String cacheKey = cacheService.namespacedKey(NAMESPACE_PREFIX + userId, key);
+        return cacheService.getOrLoad(cacheKey, type, ttlSeconds, () -> Optional.of(loader.get())).orElseThrow();
+    }
+    
+    // Bump after commit so a concurrent reader cannot cache pre-commit data under the new version
+    public void invalidate(UUID userId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    bump(userId);
+                }
+            });
+        } else {
+            bump(userId);
+        }
+    }
+    
+    private void bump(UUID userId) {
+        cacheService.invalidateNamespace(NAMESPACE_PREFIX + userId);
+        log.debug("Note list cache invalidated for user {}", userId);
+    }
+}
@@ -8,18 +8,30 @@ import blog.sammi.lab.notes.domain.entity.Tag;
 import blog.sammi.lab.notes.domain.entity.User;
 import blog.sammi.lab.notes.domain.repository.CategoryRepository;
 import blog.sammi.lab.notes.domain.repository.NoteRepository;
+import blog.sammi.lab.notes.domain.repository.NoteSummaryView;
 import blog.sammi.lab.notes.domain.repository.TagRepository;
 import blog.sammi.lab.notes.domain.repository.UserRepository;
 import blog.sammi.lab.notes.presentation.dto.ErrorCode;
 import blog.sammi.lab.notes.presentation.dto.NoteDto;
+import blog.sammi.lab.notes.presentation.dto.NoteSummaryDto;
 import blog.sammi.lab.notes.presentation.exception.BusinessException;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 @Service
 @RequiredArgsConstructor
@@ -31,6 +43,8 @@ public class NoteUseCase {
     private final CategoryRepository categoryRepository;
     private final TagRepository tagRepository;
     private final NoteMapper noteMapper;
+    private final NoteListAssembler noteListAssembler;
+    private final NoteListCache noteListCache;
     
     public NoteDto createNote(CreateNoteRequest request) {
         User user = userRepository.findById(request.userId())
@@ -60,6 +74,7 @@ public class NoteUseCase {
         }
         
         Note savedNote = noteRepository.save(note);
+        noteListCache.invalidate(request.userId());
         return noteMapper.toDto(savedNote);
     }
     
@@ -67,10 +82,15 @@ public class NoteUseCase {
         Page<Note> notes;
         
         if (request.search() != null && !request.search().trim().isEmpty()) {
-            // Full-text search using PostgreSQL
+            // Full-text search using PostgreSQL, substring match when the input has no searchable terms
+            String rawQuery = request.search().trim();
+            FullTextQuery query = FullTextQuery.parse(rawQuery);
+            boolean indexed = !query.isEmpty();
             notes = noteRepository.searchNotes(
                     request.userId(), 
-                    request.search().trim(), 
+                    indexed ? query.websearch() : null, 
+                    query.prefix(), 
+                    rawQuery, 
                     request.categoryId(), 
                     request.tagIds(), 
                     request.startDate(), 
@@ -89,7 +109,37 @@ public class NoteUseCase {
             );
         }
         
-        return notes.map(noteMapper::toDto);
+        return noteListAssembler.toDtoPage(notes);
+    }
+    
+    @Transactional(readOnly = true)
+    public Page<NoteSummaryDto> getNoteSummaries(GetNotesRequest request) {
+        String key = "notes:summaries:" + request.categoryId() + ":" + request.tagIds() + ":" + request.startDate()
+                + ":" + request.endDate() + ":" + pageKey(request.pageable());
+        return noteListCache.getOrLoad(request.userId(), key, CachedPage.NoteSummaries.class,
+                () -> CachedPage.NoteSummaries.of(loadNoteSummaries(request)))
+                .toPage(request.pageable());
+    }
+    
+    private Page<NoteSummaryDto> loadNoteSummaries(GetNotesRequest request) {
+        Page<NoteSummaryView> summaries = noteRepository.findNoteSummaries(
+                request.userId(),
+                request.categoryId(),
+                request.tagIds(),
+                request.startDate(),
+                request.endDate(),
+                request.pageable()
+        );
+        
+        Map<UUID, List<UUID>> tagIdsByNote = new HashMap<>();
+        if (summaries.hasContent()) {
+            List<UUID> noteIds = summaries.map(NoteSummaryView::getId).getContent();
+            for (Object[] row : noteRepository.findTagIdsByNoteIds(noteIds)) {
+                tagIdsByNote.computeIfAbsent((UUID) row[0], id -> new ArrayList<>()).add((UUID) row[1]);
+            }
+        }
+        
+        return summaries.map(view -> noteMapper.toSummaryDto(view, tagIdsByNote.getOrDefault(view.getId(), List.of())));
     }
     
     public NoteDto getNoteById(GetCategoryByIdRequest request) {
@@ -128,6 +178,7 @@ public class NoteUseCase {
         }
         
         Note savedNote = noteRepository.save(note);
+        noteListCache.invalidate(request.userId());
         return noteMapper.toDto(savedNote);
     }
     
@@ -136,6 +187,7 @@ public class NoteUseCase {
                 .orElseThrow(() -> new BusinessException(ErrorCode.NOTE_NOT_FOUND));
         
         noteRepository.delete(note);
+        noteListCache.invalidate(request.userId());
     }
     
     @Transactional(readOnly = true)
@@ -144,8 +196,27 @@ public class NoteUseCase {
             throw new BusinessException(ErrorCode.VALIDATION_ERROR, "Query pencarian tidak boleh kosong");
         }
         
-        Page<Note> notes = noteRepository.fullTextSearch(request.userId(), request.query().trim(), request.pageable());
-        return notes.map(noteMapper::toDto);
+        String rawQuery = request.query().trim();
+        String key = "notes:search:" + request.mode() + ":" + pageKey(request.pageable()) + ":" + rawQuery;
+        return noteListCache.getOrLoad(request.userId(), key, CachedPage.Notes.class,
+                () -> CachedPage.Notes.of(loadSearchNotes(request, rawQuery)))
+                .toPage(request.pageable());
+    }
+    
+    private Page<NoteDto> loadSearchNotes(SearchNotesRequest request, String rawQuery) {
+        FullTextQuery query = FullTextQuery.parse(rawQuery);
+        
+        Page<Note> notes;
+        if (request.mode() == SearchMode.CONTAINS || query.isEmpty()) {
+            // Fallback: substring match for explicit requests or input without indexable terms
+            notes = noteRepository.fullTextSearch(request.userId(), rawQuery, request.pageable());
+        } else {
+            // Results are ordered by relevance, so any client-supplied sort is dropped; stopword-only input
+            // falls back to a substring match inside the same query
+            Pageable pageable = PageRequest.of(request.pageable().getPageNumber(), request.pageable().getPageSize());
+            notes = noteRepository.rankedSearch(request.userId(), query.websearch(), query.prefix(), rawQuery, pageable);
+        }
+        return noteListAssembler.toDtoPage(notes);
     }
     
     @Transactional(readOnly = true)
@@ -155,7 +226,7 @@ public class NoteUseCase {
                 .orElseThrow(() -> new BusinessException(ErrorCode.CATEGORY_NOT_FOUND));
         
         Page<Note> notes = noteRepository.findByUserIdAndCategoryId(request.userId(), request.categoryId(), request.pageable());
-        return notes.map(noteMapper::toDto);
+        return noteListAssembler.toDtoPage(notes);
     }
     
     @Transactional(readOnly = true)
@@ -165,6 +236,112 @@ public class NoteUseCase {
                 .orElseThrow(() -> new BusinessException(ErrorCode.TAG_NOT_FOUND));
         
         Page<Note> notes = noteRepository.findByUserIdAndTagsId(request.userId(), request.tagId(), request.pageable());
-        return notes.map(noteMapper::toDto);
+        return noteListAssembler.toDtoPage(notes);
+    }
+    
+    private static String pageKey(Pageable pageable) {
+        return pageable.getPageNumber() + ":" + pageable.getPageSize() + ":" + pageable.getSort();
+    }
+    
+    @Transactional(readOnly = true)
+    public CursorPage<NoteDto> scrollNotes(GetNotesRequest request) {
+        return scroll(request.userId(), request.search(), SearchMode.RANKED, request.categoryId(), request.tagIds(),
+                request.startDate(), request.endDate(), request.cursor(), request.pageable());
+    }
+    
+    @Transactional(readOnly = true)
+    public CursorPage<NoteDto> scrollSearchNotes(SearchNotesRequest request) {
+        if (request.query() == null || request.query().trim().isEmpty()) {
+            throw new BusinessException(ErrorCode.VALIDATION_ERROR, "Query pencarian tidak boleh kosong");
+        }
+        
+        return scroll(request.userId(), request.query(), request.mode(), null, null,
+                null, null, request.cursor(), request.pageable());
+    }
+    
+    @Transactional(readOnly = true)
+    public CursorPage<NoteDto> scrollNotesByCategory(GetNotesByRequest request) {
+        categoryRepository.findByIdAndUserId(request.categoryId(), request.userId())
+                .orElseThrow(() -> new BusinessException(ErrorCode.CATEGORY_NOT_FOUND));
+        
+        return scroll(request.userId(), null, null, request.categoryId(), null,
+                null, null, request.cursor(), request.pageable());
+    }
+    
+    @Transactional(readOnly = true)
+    public CursorPage<NoteDto> scrollNotesByTag(GetNotesByRequest request) {
+        tagRepository.findByIdAndUserId(request.tagId(), request.userId())
+                .orElseThrow(() -> new BusinessException(ErrorCode.TAG_NOT_FOUND));
+        
+        return scroll(request.userId(), null, null, null, List.of(request.tagId()),
+                null, null, request.cursor(), request.pageable());
+    }
+    
+    // Fetches one extra row to learn whether a next page exists without a COUNT query.
+    // Search falls back to a substring match like searchNotes: for CONTAINS and for input without searchable terms
+    private CursorPage<NoteDto> scroll(UUID userId, String search, SearchMode mode, UUID categoryId, List<UUID> tagIds,
+                                       LocalDateTime startDate, LocalDateTime endDate,
+                                       String cursor, Pageable pageable) {
+        NoteCursor after = NoteCursor.decode(cursor);
+        String rawQuery = search != null && !search.trim().isEmpty() ? search.trim() : null;
+        FullTextQuery query = rawQuery != null ? FullTextQuery.parse(rawQuery) : null;
+        boolean indexed = query != null && mode != SearchMode.CONTAINS && !query.isEmpty();
+        int size = pageable.getPageSize();
+        
+        List<Note> notes = noteRepository.scrollNotes(
+                userId,
+                indexed ? query.websearch() : null,
+                indexed ? query.prefix() : "",
+                rawQuery,
+                categoryId,
+                tagIds,
+                startDate,
+                endDate,
+                after.updatedAt(),
+                after.id(),
+                PageRequest.of(0, size + 1)
+        );
+        
+        boolean hasNext = notes.size() > size;
+        List<Note> content = hasNext ? notes.subList(0, size) : notes;
+        String nextCursor = hasNext ? NoteCursor.of(content.get(size - 1)).encode() : null;
+        
+        return new CursorPage<>(noteListAssembler.toDtoList(content), nextCursor);
+    }
+    
+    // Splits user input into a websearch_to_tsquery part and "term:*" prefix lexemes.
+    // Prefix terms are only recognised outside quoted phrases and are restricted to letters/digits,
+    // so the prefix string is always valid to_tsquery syntax.
+    record FullTextQuery(String websearch, String prefix) {
+        
+        private static final Pattern PREFIX_TERM = Pattern.compile("(?<=^|\\s)([\\p{L}\\p{N}]+)\\*(?=\\s|$)");
+        private static final Pattern INDEXABLE = Pattern.compile("[\\p{L}\\p{N}]");
+        
+        static FullTextQuery parse(String raw) {
+            StringBuilder websearch = new StringBuilder();
+            List<String> prefixes = new ArrayList<>();
+            String[] parts = raw.split("\"", -1);
+            
+            for (int i = 0; i < parts.length; i++) {
+                if (i % 2 == 1) {
+                    websearch.append('"').append(parts[i]).append('"');
+                    continue;
+                }
+                Matcher matcher = PREFIX_TERM.matcher(parts[i]);
+                StringBuilder rest = new StringBuilder();
+                while (matcher.find()) {
+                    prefixes.add(matcher.group(1) + ":*");
+                    matcher.appendReplacement(rest, "");
+                }
+                matcher.appendTail(rest);
+                websearch.append(rest);
+            }
+            
+            return new FullTextQuery(websearch.toString().trim(), String.join(" & ", prefixes));
+        }
+        
+        boolean isEmpty() {
+            return prefix.isEmpty() && !INDEXABLE.matcher(websearch).find();
+        }
     }
 }
@@ -24,6 +24,7 @@ public class TagUseCase {
     private final TagRepository tagRepository;
     private final UserRepository userRepository;
     private final TagMapper tagMapper;
+    private final NoteListCache noteListCache;
     
     public TagDto createTag(CreateTagRequest request) {
         User user = userRepository.findById(request.userId())
@@ -89,6 +90,8 @@ public class TagUseCase {
         tag.setColor(request.color());
         
         Tag savedTag = tagRepository.save(tag);
+        // Cached note pages embed the tag name
+        noteListCache.invalidate(request.userId());
         return tagMapper.toDto(savedTag);
     }
     
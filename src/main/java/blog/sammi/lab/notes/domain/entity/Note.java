@@ -20,6 +20,13 @@ public class Note extends Auditable {
     @Lob
     private String content;
 
+    // Generated by the database from content (see V3 migration), read-only here
+    @Column(insertable = false, updatable = false)
+    private String preview;
+
+    @Column(name = "word_count", insertable = false, updatable = false)
+    private Integer wordCount;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
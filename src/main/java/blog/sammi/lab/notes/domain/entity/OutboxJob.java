@@ -0,0 +1,52 @@
+package blog.sammi.lab.notes.domain.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+@Entity
+@Table(name = "job_outbox")
+@Getter
+@Setter
+public class OutboxJob extends BaseUuidEntity {
+    @Column(name = "queue_name", nullable = false, length = 100)
+    private String queueName;
+
+    @Column(name = "job_type", nullable = false, length = 100)
+    private String jobType;
+
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(nullable = false, columnDefinition = "jsonb")
+    private Map<String, Object> payload;
+
+    @Column(name = "delay_seconds", nullable = false)
+    private long delaySeconds;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(name = "last_error", columnDefinition = "TEXT")
+    private String lastError;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    @Column(name = "sent_at")
+    private LocalDateTime sentAt;
+
+    // Set when the row can never be relayed (e.g. unknown job type); parked rows are skipped by the relay
+    @Column(name = "parked_at")
+    private LocalDateTime parkedAt;
+
+    // Dedup key claimed with the row; the relayed job frees it once processed
+    @Column(name = "dedup_key")
+    private String dedupKey;
+
+    @Column(name = "dedup_token", length = 36)
+    private String dedupToken;
+}
@@ -0,0 +1,38 @@
+package blog.sammi.lab.notes.domain.job;
+
+import java.util.List;
+
+// `otpCode` is the OTP for OTP_VERIFICATION and the reset token for PASSWORD_RESET;
+// `notifications` is set only for NOTIFICATION_DIGEST
+public record EmailJob(
+    Type type,
+    String to,
+    String otpCode,
+    List<NotificationJob> notifications
+) implements JobPayload {
+
+    public static final String JOB_TYPE = "EMAIL";
+
+    public enum Type {
+        OTP_VERIFICATION,
+        PASSWORD_RESET,
+        NOTIFICATION_DIGEST
+    }
+
+    public static EmailJob otpVerification(String to, String otpCode) {
+        return new EmailJob(Type.OTP_VERIFICATION, to, otpCode, null);
+    }
+
+    public static EmailJob passwordReset(String to, String resetToken) {
+        return new EmailJob(Type.PASSWORD_RESET, to, resetToken, null);
+    }
+
+    public static EmailJob notificationDigest(String to, List<NotificationJob> notifications) {
+        return new EmailJob(Type.NOTIFICATION_DIGEST, to, null, notifications);
+    }
+
+    @Override
+    public String jobType() {
+        return JOB_TYPE;
+    }
+}
@@ -0,0 +1,10 @@
+package blog.sammi.lab.notes.domain.job;
+
+/**
+ * Typed job payload. Each job type has one payload record, registered by its {@code JobProcessor}.
+ * Payload records evolve by adding nullable components only; unknown fields are ignored on decode,
+ * so nodes on the previous release can keep consuming during a rolling upgrade.
+ */
+public interface JobPayload {
+    String jobType();
+}
@@ -0,0 +1,16 @@
+package blog.sammi.lab.notes.domain.job;
+
+import java.util.UUID;
+
+// Scheduled when a user's digest window opens; sends everything collected for the user since
+public record NotificationDigestJob(
+    UUID userId
+) implements JobPayload {
+
+    public static final String JOB_TYPE = "NOTIFICATION_DIGEST";
+
+    @Override
+    public String jobType() {
+        return JOB_TYPE;
+    }
+}
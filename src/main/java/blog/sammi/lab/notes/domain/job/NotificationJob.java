@@ -0,0 +1,30 @@
+package blog.sammi.lab.notes.domain.job;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// One user-facing event; events for the same user are collected and emailed as a single digest per window
+public record NotificationJob(
+    String eventId,
+    UUID userId,
+    Type type,
+    String title,
+    String message,
+    LocalDateTime occurredAt
+) implements JobPayload {
+
+    public static final String JOB_TYPE = "NOTIFICATION";
+
+    public enum Type {
+        SECURITY_ALERT
+    }
+
+    public static NotificationJob securityAlert(UUID userId, String title, String message) {
+        return new NotificationJob(UUID.randomUUID().toString(), userId, Type.SECURITY_ALERT, title, message, LocalDateTime.now());
+    }
+
+    @Override
+    public String jobType() {
+        return JOB_TYPE;
+    }
+}
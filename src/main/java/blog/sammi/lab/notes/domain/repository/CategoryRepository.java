@@ -8,6 +8,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -29,4 +30,8 @@ public interface CategoryRepository extends JpaRepository<Category, UUID> {
     
     @Query("SELECT COUNT(n) FROM Note n WHERE n.category.id = :categoryId")
     long countNotesByCategoryId(@Param("categoryId") UUID categoryId);
+    
+    // Rows of [categoryId, noteCount]; categories without notes are omitted
+    @Query("SELECT n.category.id, COUNT(n) FROM Note n WHERE n.category.id IN :categoryIds GROUP BY n.category.id")
+    List<Object[]> countNotesByCategoryIds(@Param("categoryIds") Collection<UUID> categoryIds);
 }
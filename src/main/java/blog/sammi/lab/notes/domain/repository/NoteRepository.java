@@ -9,6 +9,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -25,7 +26,7 @@ public interface NoteRepository extends JpaRepository<Note, UUID> {
     
     Optional<Note> findByIdAndUserId(UUID id, UUID userId);
     
-    // Simple text search using native SQL
+    // Substring search using native SQL (SearchMode.CONTAINS fallback, cannot use an index)
     @Query(value = """
         SELECT n.* FROM notes n 
         WHERE n.user_id = :userId 
@@ -40,12 +41,50 @@ public interface NoteRepository extends JpaRepository<Note, UUID> {
         nativeQuery = true)
     Page<Note> fullTextSearch(@Param("userId") UUID userId, @Param("query") String query, Pageable pageable);
     
-    // Advanced search with filters using native SQL
+    // Ranked full-text search over the search_vector GIN index.
+    // :query uses websearch syntax ("phrase", or, -term); :prefixQuery holds "term:*" lexemes ANDed in.
+    // Input that parses to an empty tsquery (only stopwords, e.g. "yang dan") falls back to a substring
+    // match on :contains, the raw input, in the same query
+    @Query(value = """
+        SELECT n.* FROM notes n
+        CROSS JOIN (SELECT websearch_to_tsquery('indonesian', :query)
+                           && to_tsquery('indonesian', :prefixQuery) AS tsq) q
+        WHERE n.user_id = :userId
+        AND (n.search_vector @@ q.tsq
+             OR (numnode(q.tsq) = 0
+                 AND (n.title ILIKE CONCAT('%', :contains, '%') OR n.content ILIKE CONCAT('%', :contains, '%'))))
+        ORDER BY ts_rank_cd(n.search_vector, q.tsq) DESC, n.updated_at DESC, n.id
+        """,
+        countQuery = """
+        SELECT COUNT(*) FROM notes n
+        CROSS JOIN (SELECT websearch_to_tsquery('indonesian', :query)
+                           && to_tsquery('indonesian', :prefixQuery) AS tsq) q
+        WHERE n.user_id = :userId
+        AND (n.search_vector @@ q.tsq
+             OR (numnode(q.tsq) = 0
+                 AND (n.title ILIKE CONCAT('%', :contains, '%') OR n.content ILIKE CONCAT('%', :contains, '%'))))
+        """,
+        nativeQuery = true)
+    Page<Note> rankedSearch(
+        @Param("userId") UUID userId,
+        @Param("query") String query,
+        @Param("prefixQuery") String prefixQuery,
+        @Param("contains") String contains,
+        Pageable pageable
+    );
+    
+    // Advanced search with filters using native SQL. :contains is the raw input: matched as a substring when
+    // :query is null (CONTAINS) or parses to an empty tsquery (only stopwords)
     @Query(value = """
         SELECT DISTINCT n.* FROM notes n 
         LEFT JOIN note_tags nt ON n.id = nt.note_id
         WHERE n.user_id = :userId
-        AND (:query IS NULL OR n.title ILIKE CONCAT('%', :query, '%') OR n.content ILIKE CONCAT('%', :query, '%'))
+        AND (:contains IS NULL
+             OR (:query IS NOT NULL AND n.search_vector @@ (websearch_to_tsquery('indonesian', :query)
+                                                         && to_tsquery('indonesian', :prefixQuery)))
+             OR ((:query IS NULL OR numnode(websearch_to_tsquery('indonesian', :query)
+                                            && to_tsquery('indonesian', :prefixQuery)) = 0)
+                 AND (n.title ILIKE CONCAT('%', :contains, '%') OR n.content ILIKE CONCAT('%', :contains, '%'))))
         AND (:categoryId IS NULL OR n.category_id = :categoryId)
         AND (:#{#tagIds == null || #tagIds.isEmpty()} = true OR nt.tag_id IN :tagIds)
         AND (:startDate IS NULL OR n.created_at >= :startDate)
@@ -56,7 +95,12 @@ public interface NoteRepository extends JpaRepository<Note, UUID> {
         SELECT COUNT(DISTINCT n.id) FROM notes n 
         LEFT JOIN note_tags nt ON n.id = nt.note_id
         WHERE n.user_id = :userId
-        AND (:query IS NULL OR n.title ILIKE CONCAT('%', :query, '%') OR n.content ILIKE CONCAT('%', :query, '%'))
+        AND (:contains IS NULL
+             OR (:query IS NOT NULL AND n.search_vector @@ (websearch_to_tsquery('indonesian', :query)
+                                                         && to_tsquery('indonesian', :prefixQuery)))
+             OR ((:query IS NULL OR numnode(websearch_to_tsquery('indonesian', :query)
+                                            && to_tsquery('indonesian', :prefixQuery)) = 0)
+                 AND (n.title ILIKE CONCAT('%', :contains, '%') OR n.content ILIKE CONCAT('%', :contains, '%'))))
         AND (:categoryId IS NULL OR n.category_id = :categoryId)
         AND (:#{#tagIds == null || #tagIds.isEmpty()} = true OR nt.tag_id IN :tagIds)
         AND (:startDate IS NULL OR n.created_at >= :startDate)
@@ -66,10 +110,46 @@ public interface NoteRepository extends JpaRepository<Note, UUID> {
     Page<Note> searchNotes(
         @Param("userId") UUID userId,
         @Param("query") String query,
+        @Param("prefixQuery") String prefixQuery,
+        @Param("contains") String contains,
+        @Param("categoryId") UUID categoryId,
+        @Param("tagIds") List<UUID> tagIds,
+        @Param("startDate") LocalDateTime startDate,
+        @Param("endDate") LocalDateTime endDate,
+        Pageable pageable
+    );
+    
+    // Keyset pagination over (updated_at DESC, id DESC); returns at most pageable.size rows after the cursor.
+    // :query and :contains work as in searchNotes
+    @Query(value = """
+        SELECT n.* FROM notes n
+        WHERE n.user_id = :userId
+        AND (n.updated_at, n.id) < (:cursorUpdatedAt, :cursorId)
+        AND (:contains IS NULL
+             OR (:query IS NOT NULL AND n.search_vector @@ (websearch_to_tsquery('indonesian', :query)
+                                                         && to_tsquery('indonesian', :prefixQuery)))
+             OR ((:query IS NULL OR numnode(websearch_to_tsquery('indonesian', :query)
+                                            && to_tsquery('indonesian', :prefixQuery)) = 0)
+                 AND (n.title ILIKE CONCAT('%', :contains, '%') OR n.content ILIKE CONCAT('%', :contains, '%'))))
+        AND (:categoryId IS NULL OR n.category_id = :categoryId)
+        AND (:#{#tagIds == null || #tagIds.isEmpty()} = true
+             OR EXISTS (SELECT 1 FROM note_tags nt WHERE nt.note_id = n.id AND nt.tag_id IN :tagIds))
+        AND (:startDate IS NULL OR n.created_at >= :startDate)
+        AND (:endDate IS NULL OR n.created_at <= :endDate)
+        ORDER BY n.updated_at DESC, n.id DESC
+        """,
+        nativeQuery = true)
+    List<Note> scrollNotes(
+        @Param("userId") UUID userId,
+        @Param("query") String query,
+        @Param("prefixQuery") String prefixQuery,
+        @Param("contains") String contains,
         @Param("categoryId") UUID categoryId,
         @Param("tagIds") List<UUID> tagIds,
         @Param("startDate") LocalDateTime startDate,
         @Param("endDate") LocalDateTime endDate,
+        @Param("cursorUpdatedAt") LocalDateTime cursorUpdatedAt,
+        @Param("cursorId") UUID cursorId,
         Pageable pageable
     );
     
@@ -92,4 +172,43 @@ public interface NoteRepository extends JpaRepository<Note, UUID> {
         @Param("endDate") LocalDateTime endDate,
         Pageable pageable
     );
+    
+    // Tag links for a page of notes in one round trip: rows of [noteId, Tag]
+    @Query("SELECT n.id, t FROM Note n JOIN n.tags t WHERE n.id IN :noteIds")
+    List<Object[]> findTagsByNoteIds(@Param("noteIds") Collection<UUID> noteIds);
+    
+    // Tag ids for a page of notes without loading tag entities: rows of [noteId, tagId]
+    @Query("SELECT n.id, t.id FROM Note n JOIN n.tags t WHERE n.id IN :noteIds")
+    List<Object[]> findTagIdsByNoteIds(@Param("noteIds") Collection<UUID> noteIds);
+    
+    // List projection that selects the generated preview/word_count columns instead of content
+    @Query(value = """
+        SELECT n.id AS id, n.title AS title, n.preview AS preview, n.wordCount AS wordCount,
+               n.user.id AS userId, n.category.id AS categoryId,
+               n.createdAt AS createdAt, n.updatedAt AS updatedAt
+        FROM Note n
+        WHERE n.user.id = :userId
+        AND (:categoryId IS NULL OR n.category.id = :categoryId)
+        AND (:#{#tagIds == null || #tagIds.isEmpty()} = true
+             OR EXISTS (SELECT 1 FROM Note tn JOIN tn.tags t WHERE tn.id = n.id AND t.id IN :tagIds))
+        AND (:startDate IS NULL OR n.createdAt >= :startDate)
+        AND (:endDate IS NULL OR n.createdAt <= :endDate)
+        """,
+        countQuery = """
+        SELECT COUNT(n) FROM Note n
+        WHERE n.user.id = :userId
+        AND (:categoryId IS NULL OR n.category.id = :categoryId)
+        AND (:#{#tagIds == null || #tagIds.isEmpty()} = true
+             OR EXISTS (SELECT 1 FROM Note tn JOIN tn.tags t WHERE tn.id = n.id AND t.id IN :tagIds))
+        AND (:startDate IS NULL OR n.createdAt >= :startDate)
+        AND (:endDate IS NULL OR n.createdAt <= :endDate)
+        """)
+    Page<NoteSummaryView> findNoteSummaries(
+        @Param("userId") UUID userId,
+        @Param("categoryId") UUID categoryId,
+        @Param("tagIds") List<UUID> tagIds,
+        @Param("startDate") LocalDateTime startDate,
+        @Param("endDate") LocalDateTime endDate,
+        Pageable pageable
+    );
 }
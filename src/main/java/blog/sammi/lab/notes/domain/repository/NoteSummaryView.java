@@ -0,0 +1,16 @@
+package blog.sammi.lab.notes.domain.repository;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// Column projection for note lists; never includes the full content
+public interface NoteSummaryView {
+    UUID getId();
+    String getTitle();
+    String getPreview();
+    Integer getWordCount();
+    UUID getUserId();
+    UUID getCategoryId();
+    LocalDateTime getCreatedAt();
+    LocalDateTime getUpdatedAt();
+}
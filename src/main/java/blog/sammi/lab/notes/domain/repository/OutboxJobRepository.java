@@ -0,0 +1,17 @@
+package blog.sammi.lab.notes.domain.repository;
+
+import blog.sammi.lab.notes.domain.entity.OutboxJob;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+public interface OutboxJobRepository {
+    OutboxJob save(OutboxJob job);
+    // Unsent, unparked rows, fewest attempts then oldest first, locked for the caller's transaction;
+    // rows locked by another relay are skipped
+    List<OutboxJob> lockPending(int limit);
+    int markSent(Collection<UUID> ids, LocalDateTime sentAt);
+    int deleteSentBefore(LocalDateTime cutoff);
+}
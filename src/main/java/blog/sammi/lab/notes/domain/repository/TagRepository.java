@@ -8,6 +8,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -33,4 +34,8 @@ public interface TagRepository extends JpaRepository<Tag, UUID> {
     
     @Query("SELECT COUNT(n) FROM Note n JOIN n.tags t WHERE t.id = :tagId")
     long countNotesByTagId(@Param("tagId") UUID tagId);
+    
+    // Rows of [tagId, noteCount]; tags without notes are omitted
+    @Query("SELECT t.id, COUNT(n) FROM Note n JOIN n.tags t WHERE t.id IN :tagIds GROUP BY t.id")
+    List<Object[]> countNotesByTagIds(@Param("tagIds") Collection<UUID> tagIds);
 }
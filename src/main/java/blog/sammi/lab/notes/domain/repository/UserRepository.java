@@ -2,11 +2,14 @@ package blog.sammi.lab.notes.domain.repository;
 
 import blog.sammi.lab.notes.domain.entity.User;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 public interface UserRepository {
     Optional<User> findByEmail(String email);
+    List<User> findByEmailIn(Collection<String> emails);
     Optional<User> findByUsername(String username);
     Optional<User> findByUsernameOrEmail(String username, String email);
     boolean existsByEmail(String email);
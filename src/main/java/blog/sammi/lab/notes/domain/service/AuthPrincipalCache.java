@@ -0,0 +1,8 @@
+package blog.sammi.lab.notes.domain.service;
+
+import blog.sammi.lab.notes.domain.entity.User;
+
+public interface AuthPrincipalCache {
+    // Drop the cached principal after changes to credentials, activation or verification
+    void evict(User user);
+}
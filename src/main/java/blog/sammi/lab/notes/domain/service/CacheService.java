@@ -1,6 +1,7 @@
 package blog.sammi.lab.notes.domain.service;
 
 import java.util.Optional;
+import java.util.function.Supplier;
 
 public interface CacheService {
     <T> void put(String key, T value, int expirationSeconds);
@@ -8,4 +9,13 @@ public interface CacheService {
     void delete(String key);
     void deletePattern(String pattern);
     boolean exists(String key);
+    
+    // Read-through with stampede protection: concurrent misses for a key share one loader call,
+    // and hot entries may be refreshed shortly before they expire. Empty loader results are not cached.
+    <T> Optional<T> getOrLoad(String key, Class<T> type, int expirationSeconds, Supplier<Optional<T>> loader);
+    
+    // Generation-counter namespaces: the returned key embeds the namespace's current version, so
+    // invalidateNamespace drops every key built from it with one write. Orphaned entries age out by TTL/LRU.
+    String namespacedKey(String namespace, String key);
+    void invalidateNamespace(String namespace);
 }
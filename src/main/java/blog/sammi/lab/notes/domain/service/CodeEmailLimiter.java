@@ -0,0 +1,6 @@
+package blog.sammi.lab.notes.domain.service;
+
+public interface CodeEmailLimiter {
+    // Checked before an OTP or reset code is issued, so a code is never rotated for an email that will not be sent
+    boolean tryAcquireCodeEmail(String email);
+}
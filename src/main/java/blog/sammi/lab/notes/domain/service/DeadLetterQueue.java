@@ -0,0 +1,47 @@
+package blog.sammi.lab.notes.domain.service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.function.LongConsumer;
+
+/**
+ * Jobs that exhausted their retries. Entries are scanned in the order they failed; the cursor is a
+ * position in that order, so it can skip or repeat entries when a replay or purge runs concurrently.
+ */
+public interface DeadLetterQueue {
+
+    Page browse(Filter filter, long cursor, int limit);
+
+    // Sends matching entries back to their origin queue in throttled batches; returns how many were replayed
+    long replay(Filter filter, LongConsumer progress);
+
+    long purge(Filter filter);
+
+    // Null criteria match everything; error is a case-insensitive substring
+    record Filter(Set<String> jobIds, String jobType, String queueName, String error,
+                  LocalDateTime failedBefore, LocalDateTime failedAfter) {
+
+        public boolean isEmpty() {
+            return (jobIds == null || jobIds.isEmpty()) && jobType == null && queueName == null && error == null
+                    && failedBefore == null && failedAfter == null;
+        }
+
+        public boolean matches(Entry entry) {
+            return (jobIds == null || jobIds.isEmpty() || jobIds.contains(entry.jobId()))
+                    && (jobType == null || jobType.equals(entry.jobType()))
+                    && (queueName == null || queueName.equals(entry.queueName()))
+                    && (error == null || (entry.error() != null
+                            && entry.error().toLowerCase().contains(error.toLowerCase())))
+                    && (failedBefore == null || (entry.failedAt() != null && entry.failedAt().isBefore(failedBefore)))
+                    && (failedAfter == null || (entry.failedAt() != null && entry.failedAt().isAfter(failedAfter)));
+        }
+    }
+
+    // Payloads are not exposed: they can carry OTP codes and reset tokens
+    record Entry(String jobId, String jobType, String queueName, String error, int retryCount,
+                 LocalDateTime createdAt, LocalDateTime failedAt) {}
+
+    // nextCursor is null once the whole queue has been scanned
+    record Page(List<Entry> entries, Long nextCursor) {}
+}
@@ -1,6 +1,32 @@
 package blog.sammi.lab.notes.domain.service;
 
+import blog.sammi.lab.notes.domain.job.EmailJob;
+import blog.sammi.lab.notes.domain.job.NotificationJob;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 public interface EmailService {
     void sendOtpEmail(String to, String otpCode);
     void sendPasswordResetEmail(String to, String otpCode);
+    void sendNotificationDigest(String to, List<NotificationJob> notifications);
+
+    // Failures by index; emails without an entry were sent. Implementations override this to share one SMTP session.
+    default Map<Integer, Exception> sendAll(List<EmailJob> emails) {
+        Map<Integer, Exception> failures = new HashMap<>();
+        for (int i = 0; i < emails.size(); i++) {
+            EmailJob email = emails.get(i);
+            try {
+                switch (email.type()) {
+                    case OTP_VERIFICATION -> sendOtpEmail(email.to(), email.otpCode());
+                    case PASSWORD_RESET -> sendPasswordResetEmail(email.to(), email.otpCode());
+                    case NOTIFICATION_DIGEST -> sendNotificationDigest(email.to(), email.notifications());
+                }
+            } catch (Exception e) {
+                failures.put(i, e);
+            }
+        }
+        return failures;
+    }
 }
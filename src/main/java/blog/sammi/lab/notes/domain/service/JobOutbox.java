@@ -0,0 +1,16 @@
+package blog.sammi.lab.notes.domain.service;
+
+import blog.sammi.lab.notes.domain.job.JobPayload;
+
+import java.time.Duration;
+
+/**
+ * Enqueues jobs as part of the caller's database transaction. Jobs reach the queue only after
+ * the transaction commits, and never for a transaction that rolls back.
+ */
+public interface JobOutbox {
+    void enqueue(String queueName, JobPayload payload);
+    void enqueue(String queueName, JobPayload payload, long delaySeconds);
+    // See QueueService; the key is freed again if the transaction rolls back
+    boolean enqueue(String queueName, JobPayload payload, String dedupKey, Duration window);
+}
@@ -1,9 +1,37 @@
 package blog.sammi.lab.notes.domain.service;
 
+import blog.sammi.lab.notes.domain.job.JobPayload;
+
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
-public interface JobProcessor {
-    void process(Map<String, Object> payload) throws Exception;
+public interface JobProcessor<P extends JobPayload> {
+    void process(P payload) throws Exception;
     String getJobType();
+    // Payloads of this job type are decoded straight into this record
+    Class<P> getPayloadType();
     int getMaxRetries();
+    
+    // Processors that can handle many payloads in one go (e.g. one SMTP session) override both methods.
+    // Failures are reported per payload index; payloads without an entry succeeded.
+    default boolean supportsBatch() {
+        return false;
+    }
+    
+    default Map<Integer, Exception> processBatch(List<P> payloads) {
+        Map<Integer, Exception> failures = new HashMap<>();
+        for (int i = 0; i < payloads.size(); i++) {
+            try {
+                process(payloads.get(i));
+            } catch (Exception e) {
+                failures.put(i, e);
+            }
+        }
+        return failures;
+    }
+    
+    default RetryPolicy getRetryPolicy() {
+        return RetryPolicy.exponential(getMaxRetries());
+    }
 }
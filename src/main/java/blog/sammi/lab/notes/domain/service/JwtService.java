@@ -1,6 +1,7 @@
 package blog.sammi.lab.notes.domain.service;
 
 import java.util.Date;
+import java.util.Optional;
 
 public interface JwtService {
     String generateToken(String username);
@@ -8,4 +9,9 @@ public interface JwtService {
     Date extractExpiration(String token);
     boolean isTokenExpired(String token);
     boolean validateToken(String token, String username);
+    
+    // Signature and expiry checked once; empty for malformed, forged or expired tokens
+    Optional<VerifiedToken> verify(String token);
+    
+    record VerifiedToken(String subject, Date expiration) {}
 }
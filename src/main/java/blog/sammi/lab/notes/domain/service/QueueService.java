@@ -1,9 +1,26 @@
 package blog.sammi.lab.notes.domain.service;
 
-import java.util.Map;
+import blog.sammi.lab.notes.domain.job.JobPayload;
+
+import java.time.Duration;
+import java.util.List;
 
 public interface QueueService {
-    void enqueue(String queueName, String jobType, Map<String, Object> payload);
-    void enqueue(String queueName, String jobType, Map<String, Object> payload, long delaySeconds);
-    void scheduleJob(String jobType, Map<String, Object> payload, long delaySeconds);
+    void enqueue(String queueName, JobPayload payload);
+    void enqueue(String queueName, JobPayload payload, long delaySeconds);
+    void scheduleJob(JobPayload payload, long delaySeconds);
+
+    // Idempotent enqueue: a repeat with the same dedup key coalesces into the job already enqueued and returns
+    // false while that job is pending. The key is freed once the job is processed or dead-lettered; `window`
+    // bounds how long it can be held if the job is lost.
+    boolean enqueue(String queueName, JobPayload payload, String dedupKey, Duration window);
+
+    // For a dedup key the caller already claimed (the outbox claims it in the request's transaction); the job
+    // frees it like above
+    void enqueueClaimed(String queueName, JobPayload payload, long delaySeconds, String dedupKey, String dedupToken);
+
+    // Backends override this to write the whole batch in one round trip
+    default void enqueueAll(String queueName, List<? extends JobPayload> payloads) {
+        payloads.forEach(payload -> enqueue(queueName, payload));
+    }
 }
@@ -0,0 +1,22 @@
+package blog.sammi.lab.notes.domain.service;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Full-jitter exponential backoff: attempt n waits a uniform random time in [0, min(maxDelay, baseDelay * 2^(n-1))]
+public record RetryPolicy(int maxRetries, Duration baseDelay, Duration maxDelay) {
+    
+    public static RetryPolicy exponential(int maxRetries) {
+        return new RetryPolicy(maxRetries, Duration.ofSeconds(1), Duration.ofMinutes(5));
+    }
+    
+    public Duration delayFor(int attempt) {
+        long ceilingMs = maxDelay.toMillis();
+        int shift = Math.max(0, Math.min(attempt - 1, 30));
+        long exponentialMs = baseDelay.toMillis() << shift;
+        if (exponentialMs > 0 && exponentialMs < ceilingMs) {
+            ceilingMs = exponentialMs;
+        }
+        return Duration.ofMillis(ThreadLocalRandom.current().nextLong(ceilingMs + 1));
+    }
+}
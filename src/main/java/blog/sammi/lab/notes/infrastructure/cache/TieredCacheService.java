@@ -0,0 +1,643 @@
+package blog.sammi.lab.notes.infrastructure.cache;
+
+import blog.sammi.lab.notes.domain.service.CacheService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import net.spy.memcached.MemcachedClient;
+import net.spy.memcached.internal.GetFuture;
+import net.spy.memcached.internal.OperationFuture;
+import net.spy.memcached.ops.OperationStatus;
+import net.spy.memcached.ops.StatusCode;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * Two-tier cache: a bounded in-process L1 (Caffeine) in front of memcached (L2).
+ * <p>
+ * L1 entries live at most {@code app.cache.l1.ttl-seconds}, which bounds how long another node's
+ * invalidation can go unseen here. L2 reads are async with a short timeout, and repeated L2 errors
+ * open a short bypass window, so a slow or missing memcached degrades to cache misses instead of
+ * failed requests.
+ * <p>
+ * {@link #getOrLoad} adds stampede protection: per-key single-flight inside the JVM, a short Valkey
+ * lease so one node recomputes a key at a time, and XFetch-style early refresh of hot entries.
+ * <p>
+ * Namespace versions are counters in memcached ({@code ns:<namespace>}). Each node keeps them in memory
+ * for only {@code app.cache.namespace-ttl-ms}, far shorter than values, so a bump on one node is seen by the
+ * others within that time.
+ * <p>
+ * Deletes and namespace bumps that do not reach memcached (bypassed, or cancelled by the client while the
+ * node is down) are remembered and replayed once memcached answers again, so a stale L2 value is not served
+ * for its full TTL after an outage. If more than {@code app.cache.l2.missed-invalidations} pile up, L2 is
+ * flushed instead.
+ */
+@Service
+@Slf4j
+public class TieredCacheService implements CacheService {
+
+    private static final int MAX_MEMCACHED_KEY_LENGTH = 250;
+    private static final Pattern INVALID_MEMCACHED_KEY = Pattern.compile("[\\s\\p{Cntrl}]");
+    private static final String LEASE_PREFIX = "cache:lease:";
+    private static final String NAMESPACE_PREFIX = "ns:";
+
+    private final MemcachedClient memcachedClient;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final Cache<String, LocalEntry> localCache;
+    private final Cache<String, Long> namespaceVersions;
+    private final Map<String, PrefixMeters> meters = new ConcurrentHashMap<>();
+
+    private final RedissonClient redissonClient;
+    private final Map<String, CompletableFuture<Optional<?>>> inFlight = new ConcurrentHashMap<>();
+
+    private final long l1TtlNanos;
+    private final long l2TimeoutMs;
+    private final int failureThreshold;
+    private final long cooldownMs;
+    private final double earlyRefreshBeta;
+    private final long leaseTtlMs;
+    private final long leaseWaitMs;
+    private final int leaseWaitAttempts;
+
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private volatile long bypassUntil;
+
+    // Memcached keys whose delete was not applied, and namespaces whose bump was not
+    private final Cache<String, Boolean> missedDeletes;
+    private final Set<String> missedNamespaces = ConcurrentHashMap.newKeySet();
+    private volatile boolean missedOverflow;
+    private final AtomicBoolean replaying = new AtomicBoolean();
+
+    public TieredCacheService(
+            MemcachedClient memcachedClient,
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            RedissonClient redissonClient,
+            @Value("${app.cache.l1.max-size:10000}") long l1MaxSize,
+            @Value("${app.cache.l1.ttl-seconds:30}") long l1TtlSeconds,
+            @Value("${app.cache.namespace-ttl-ms:1000}") long namespaceTtlMs,
+            @Value("${app.cache.l2.timeout-ms:50}") long l2TimeoutMs,
+            @Value("${app.cache.l2.failure-threshold:5}") int failureThreshold,
+            @Value("${app.cache.l2.cooldown-ms:5000}") long cooldownMs,
+            @Value("${app.cache.l2.missed-invalidations:10000}") long maxMissedInvalidations,
+            @Value("${app.cache.early-refresh-beta:1.0}") double earlyRefreshBeta,
+            @Value("${app.cache.lease.ttl-ms:5000}") long leaseTtlMs,
+            @Value("${app.cache.lease.wait-ms:50}") long leaseWaitMs,
+            @Value("${app.cache.lease.wait-attempts:10}") int leaseWaitAttempts) {
+        this.memcachedClient = memcachedClient;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.redissonClient = redissonClient;
+        this.l1TtlNanos = TimeUnit.SECONDS.toNanos(l1TtlSeconds);
+        this.l2TimeoutMs = l2TimeoutMs;
+        this.failureThreshold = failureThreshold;
+        this.cooldownMs = cooldownMs;
+        this.earlyRefreshBeta = earlyRefreshBeta;
+        this.leaseTtlMs = leaseTtlMs;
+        this.leaseWaitMs = leaseWaitMs;
+        this.leaseWaitAttempts = leaseWaitAttempts;
+        this.localCache = Caffeine.newBuilder()
+                .maximumSize(l1MaxSize)
+                .expireAfter(new LocalEntryExpiry())
+                .build();
+        this.namespaceVersions = Caffeine.newBuilder()
+                .maximumSize(l1MaxSize)
+                .expireAfterWrite(Duration.ofMillis(namespaceTtlMs))
+                .build();
+        this.missedDeletes = Caffeine.newBuilder()
+                .maximumSize(maxMissedInvalidations)
+                .removalListener((String key, Boolean missed, RemovalCause cause) -> {
+                    if (cause == RemovalCause.SIZE) {
+                        missedOverflow = true;
+                    }
+                })
+                .build();
+    }
+
+    @Override
+    public <T> void put(String key, T value, int expirationSeconds) {
+        store(key, value, expirationSeconds, 0L);
+    }
+
+    @Override
+    public <T> Optional<T> get(String key, Class<T> type) {
+        return lookup(key, type).map(CachedValue::value);
+    }
+
+    @Override
+    public <T> Optional<T> getOrLoad(String key, Class<T> type, int expirationSeconds, Supplier<Optional<T>> loader) {
+        Optional<CachedValue<T>> cached = lookup(key, type);
+        if (cached.isPresent() && !shouldRefreshEarly(cached.get())) {
+            return Optional.of(cached.get().value());
+        }
+
+        Optional<T> stale = cached.map(CachedValue::value);
+        if (stale.isPresent()) {
+            metersFor(key).earlyRefresh().increment();
+        }
+        return singleFlight(key, stale, () -> loadWithLease(key, type, expirationSeconds, loader, stale));
+    }
+
+    // One loader per key per JVM; callers holding a stale value return it instead of waiting
+    @SuppressWarnings("unchecked")
+    private <T> Optional<T> singleFlight(String key, Optional<T> stale, Supplier<Optional<T>> load) {
+        CompletableFuture<Optional<?>> mine = new CompletableFuture<>();
+        CompletableFuture<Optional<?>> existing = inFlight.putIfAbsent(key, mine);
+        if (existing != null) {
+            if (stale.isPresent()) {
+                return stale;
+            }
+            try {
+                return (Optional<T>) existing.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw e;
+            }
+        }
+
+        try {
+            Optional<T> loaded = load.get();
+            mine.complete(loaded);
+            return loaded;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    // Cross-node: only the lease holder recomputes; others serve stale data or wait briefly for the holder's write.
+    // When Valkey is unreachable the value is loaded without a lease, so loading never depends on Valkey being up.
+    private <T> Optional<T> loadWithLease(String key, Class<T> type, int expirationSeconds,
+                                          Supplier<Optional<T>> loader, Optional<T> stale) {
+        RLock lease = redissonClient.getLock(LEASE_PREFIX + key);
+        Lease state = tryAcquire(lease);
+
+        if (state == Lease.HELD_ELSEWHERE) {
+            if (stale.isPresent()) {
+                return stale;
+            }
+            Optional<T> published = awaitPublished(key, type);
+            if (published.isPresent()) {
+                return published;
+            }
+        }
+
+        try {
+            long start = System.currentTimeMillis();
+            Optional<T> loaded = loader.get();
+            long deltaMs = System.currentTimeMillis() - start;
+            loaded.ifPresent(value -> store(key, value, expirationSeconds, deltaMs));
+            return loaded;
+        } finally {
+            if (state == Lease.ACQUIRED) {
+                release(lease);
+            }
+        }
+    }
+
+    private Lease tryAcquire(RLock lease) {
+        try {
+            return lease.tryLock(0, leaseTtlMs, TimeUnit.MILLISECONDS) ? Lease.ACQUIRED : Lease.HELD_ELSEWHERE;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Lease.UNAVAILABLE;
+        } catch (Exception e) {
+            log.debug("Cache lease unavailable, loading without it: {}", e.toString());
+            return Lease.UNAVAILABLE;
+        }
+    }
+
+    private void release(RLock lease) {
+        try {
+            lease.unlockAsync();
+        } catch (Exception e) {
+            log.debug("Failed to release cache lease: {}", e.toString());
+        }
+    }
+
+    private <T> Optional<T> awaitPublished(String key, Class<T> type) {
+        for (int attempt = 0; attempt < leaseWaitAttempts; attempt++) {
+            try {
+                Thread.sleep(leaseWaitMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return Optional.empty();
+            }
+            Optional<CachedValue<T>> published = lookup(key, type);
+            if (published.isPresent()) {
+                return Optional.of(published.get().value());
+            }
+        }
+        return Optional.empty();
+    }
+
+    // XFetch: refresh early with probability rising as expiry nears, scaled by how long the value took to compute
+    private boolean shouldRefreshEarly(CachedValue<?> cached) {
+        if (cached.deltaMs() <= 0 || earlyRefreshBeta <= 0) {
+            return false;
+        }
+        double gap = cached.deltaMs() * earlyRefreshBeta * -Math.log(ThreadLocalRandom.current().nextDouble());
+        return System.currentTimeMillis() + gap >= cached.expiresAtMs();
+    }
+
+    private <T> void store(String key, T value, int expirationSeconds, long deltaMs) {
+        if (value == null) {
+            delete(key);
+            return;
+        }
+
+        long expiresAtMs = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(expirationSeconds);
+        long l1Ttl = Math.min(l1TtlNanos, TimeUnit.SECONDS.toNanos(expirationSeconds));
+        localCache.put(key, new LocalEntry(value, l1Ttl, deltaMs, expiresAtMs));
+
+        if (l2Bypassed()) {
+            return;
+        }
+        try {
+            String json = objectMapper.writeValueAsString(
+                    new L2Envelope(objectMapper.valueToTree(value), deltaMs, expiresAtMs));
+            // Fire-and-forget: the returned future is not awaited on the request path
+            memcachedClient.set(memcachedKey(key), expirationSeconds, json);
+            recordL2Success();
+        } catch (Exception e) {
+            recordL2Failure("set", key, e);
+        }
+    }
+
+    private <T> Optional<CachedValue<T>> lookup(String key, Class<T> type) {
+        PrefixMeters prefixMeters = metersFor(key);
+
+        LocalEntry local = localCache.getIfPresent(key);
+        if (local != null && type.isInstance(local.value())) {
+            prefixMeters.l1Hit().increment();
+            return Optional.of(new CachedValue<>(type.cast(local.value()), local.deltaMs(), local.expiresAtMs()));
+        }
+        prefixMeters.l1Miss().increment();
+
+        if (l2Bypassed()) {
+            prefixMeters.l2Error().increment();
+            return Optional.empty();
+        }
+
+        long start = System.nanoTime();
+        GetFuture<Object> future = null;
+        try {
+            future = memcachedClient.asyncGet(memcachedKey(key));
+            Object raw = future.get(l2TimeoutMs, TimeUnit.MILLISECONDS);
+            prefixMeters.l2Latency().record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            recordL2Success();
+
+            if (raw == null) {
+                prefixMeters.l2Miss().increment();
+                return Optional.empty();
+            }
+            return decode(key, raw, type, prefixMeters);
+
+        } catch (TimeoutException e) {
+            future.cancel(false);
+            prefixMeters.l2Latency().record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            prefixMeters.l2Error().increment();
+            recordL2Failure("get", key, e);
+            return Optional.empty();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            prefixMeters.l2Error().increment();
+            return Optional.empty();
+        } catch (Exception e) {
+            prefixMeters.l2Error().increment();
+            recordL2Failure("get", key, e);
+            return Optional.empty();
+        }
+    }
+
+    // A value memcached returned but that cannot be read (old envelope, changed type) is a miss, not an
+    // L2 failure: it says nothing about memcached's health, so it is deleted instead of tripping the bypass
+    private <T> Optional<CachedValue<T>> decode(String key, Object raw, Class<T> type, PrefixMeters prefixMeters) {
+        try {
+            L2Envelope envelope = objectMapper.readValue((String) raw, L2Envelope.class);
+            T value = objectMapper.treeToValue(envelope.value(), type);
+            long l1Ttl = Math.min(l1TtlNanos, TimeUnit.MILLISECONDS.toNanos(envelope.expiresAt() - System.currentTimeMillis()));
+            if (l1Ttl > 0) {
+                localCache.put(key, new LocalEntry(value, l1Ttl, envelope.delta(), envelope.expiresAt()));
+            }
+            prefixMeters.l2Hit().increment();
+            return Optional.of(new CachedValue<>(value, envelope.delta(), envelope.expiresAt()));
+        } catch (Exception e) {
+            log.debug("Discarding unreadable cache entry {}: {}", key, e.toString());
+            prefixMeters.l2Miss().increment();
+            memcachedClient.delete(memcachedKey(key));
+            return Optional.empty();
+        }
+    }
+
+    // The client cancels operations while memcached is down (FailureMode.Cancel), so a delete that is bypassed
+    // or does not complete is recorded and replayed once memcached answers again
+    @Override
+    public void delete(String key) {
+        localCache.invalidate(key);
+
+        String memcachedKey = memcachedKey(key);
+        if (l2Bypassed()) {
+            missedDeletes.put(memcachedKey, Boolean.TRUE);
+            return;
+        }
+        try {
+            sendDelete(memcachedKey);
+            recordL2Success();
+        } catch (Exception e) {
+            missedDeletes.put(memcachedKey, Boolean.TRUE);
+            recordL2Failure("delete", key, e);
+        }
+    }
+
+    private void sendDelete(String memcachedKey) {
+        memcachedClient.delete(memcachedKey).addListener(future -> {
+            if (!applied(future)) {
+                missedDeletes.put(memcachedKey, Boolean.TRUE);
+            }
+        });
+    }
+
+    // A missing key counts as deleted; a cancelled operation has no status
+    private static boolean applied(OperationFuture<?> future) {
+        OperationStatus status = future.getStatus();
+        return status != null && (status.isSuccess() || status.getStatusCode() == StatusCode.ERR_NOT_FOUND);
+    }
+
+    @Override
+    public void deletePattern(String pattern) {
+        // Memcached cannot enumerate keys, so only the local tier is swept; L2 entries expire by TTL.
+        // Use namespacedKey/invalidateNamespace for groups of keys that must be dropped together.
+        Pattern regex = globToRegex(pattern);
+        localCache.asMap().keySet().removeIf(key -> regex.matcher(key).matches());
+        log.debug("Pattern invalidation applied to L1 only: {}", pattern);
+    }
+
+    @Override
+    public boolean exists(String key) {
+        if (localCache.getIfPresent(key) != null) {
+            return true;
+        }
+        if (l2Bypassed()) {
+            return false;
+        }
+        try {
+            // Presence check only; skip deserialization and do not populate L1 with an untyped value
+            boolean present = memcachedClient.asyncGet(memcachedKey(key)).get(l2TimeoutMs, TimeUnit.MILLISECONDS) != null;
+            recordL2Success();
+            return present;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (Exception e) {
+            recordL2Failure("exists", key, e);
+            return false;
+        }
+    }
+
+    @Override
+    public String namespacedKey(String namespace, String key) {
+        return key + "#" + namespace + "@" + namespaceVersion(namespace);
+    }
+
+    @Override
+    public void invalidateNamespace(String namespace) {
+        // Seeding with the clock keeps versions increasing even if memcached evicted the counter
+        long next = incrementVersion(namespace, 1).orElseGet(() -> {
+            missedNamespaces.add(namespace);
+            Long current = namespaceVersions.getIfPresent(namespace);
+            return Math.max(current == null ? 0 : current + 1, System.currentTimeMillis());
+        });
+        namespaceVersions.put(namespace, next);
+        log.debug("Cache namespace {} moved to version {}", namespace, next);
+    }
+
+    private long namespaceVersion(String namespace) {
+        Long cached = namespaceVersions.getIfPresent(namespace);
+        if (cached != null) {
+            return cached;
+        }
+        long version = incrementVersion(namespace, 0).orElseGet(System::currentTimeMillis);
+        namespaceVersions.put(namespace, version);
+        return version;
+    }
+
+    private Optional<Long> incrementVersion(String namespace, int by) {
+        if (l2Bypassed()) {
+            return Optional.empty();
+        }
+        try {
+            long version = memcachedClient.incr(memcachedKey(NAMESPACE_PREFIX + namespace), by, System.currentTimeMillis(), 0);
+            recordL2Success();
+            return version < 0 ? Optional.empty() : Optional.of(version);
+        } catch (Exception e) {
+            recordL2Failure("incr", NAMESPACE_PREFIX + namespace, e);
+            return Optional.empty();
+        }
+    }
+
+    private boolean l2Bypassed() {
+        return System.currentTimeMillis() < bypassUntil;
+    }
+
+    private void recordL2Success() {
+        if (consecutiveFailures.get() != 0) {
+            consecutiveFailures.set(0);
+        }
+        if (missedOverflow || missedDeletes.estimatedSize() > 0 || !missedNamespaces.isEmpty()) {
+            replayMissedInvalidations();
+        }
+    }
+
+    // Runs off the request path; anything that fails again is recorded again by the listeners
+    private void replayMissedInvalidations() {
+        if (!replaying.compareAndSet(false, true)) {
+            return;
+        }
+        Thread.startVirtualThread(() -> {
+            try {
+                if (missedOverflow) {
+                    missedOverflow = false;
+                    missedDeletes.invalidateAll();
+                    missedNamespaces.clear();
+                    memcachedClient.flush();
+                    log.warn("Too many invalidations missed while memcached was unavailable, flushed L2");
+                    return;
+                }
+                List<String> keys = List.copyOf(missedDeletes.asMap().keySet());
+                List<String> namespaces = List.copyOf(missedNamespaces);
+                for (String memcachedKey : keys) {
+                    missedDeletes.invalidate(memcachedKey);
+                    try {
+                        sendDelete(memcachedKey);
+                    } catch (RuntimeException e) {
+                        missedDeletes.put(memcachedKey, Boolean.TRUE);
+                        throw e;
+                    }
+                }
+                for (String namespace : namespaces) {
+                    missedNamespaces.remove(namespace);
+                    memcachedClient.asyncIncr(memcachedKey(NAMESPACE_PREFIX + namespace), 1L, System.currentTimeMillis(), 0)
+                            .addListener(future -> {
+                                if (future.getStatus() == null || !future.getStatus().isSuccess()) {
+                                    missedNamespaces.add(namespace);
+                                }
+                            });
+                }
+                log.info("Replayed {} deletes and {} namespace bumps missed while memcached was unavailable",
+                        keys.size(), namespaces.size());
+            } catch (Exception e) {
+                log.debug("Replaying missed invalidations failed: {}", e.toString());
+            } finally {
+                replaying.set(false);
+            }
+        });
+    }
+
+    private void recordL2Failure(String operation, String key, Exception e) {
+        // The client rejects a bad key or value before sending anything; that says nothing about memcached's health
+        if (e instanceof IllegalArgumentException) {
+            log.debug("Memcached {} rejected by the client for key {}: {}", operation, key, e.toString());
+            return;
+        }
+        int failures = consecutiveFailures.incrementAndGet();
+        if (failures >= failureThreshold) {
+            bypassUntil = System.currentTimeMillis() + cooldownMs;
+            consecutiveFailures.set(0);
+            log.warn("Memcached unavailable after {} consecutive failures, bypassing L2 for {}ms", failures, cooldownMs);
+        } else {
+            log.debug("Memcached {} failed for key {}: {}", operation, key, e.toString());
+        }
+    }
+
+    // Hash keys memcached would reject (over 250 bytes as UTF-8, whitespace or control characters)
+    private static String memcachedKey(String key) {
+        byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length <= MAX_MEMCACHED_KEY_LENGTH - 10 && !INVALID_MEMCACHED_KEY.matcher(key).find()) {
+            return key;
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(bytes);
+            return "sha256:" + HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Pattern globToRegex(String glob) {
+        StringBuilder regex = new StringBuilder();
+        for (String part : glob.split("\\*", -1)) {
+            if (!regex.isEmpty()) {
+                regex.append(".*");
+            }
+            regex.append(Pattern.quote(part));
+        }
+        return Pattern.compile(regex.toString());
+    }
+
+    // Metric prefix is at most the first two key segments ("user:email:a@b.c" -> "user:email") to bound tag cardinality
+    private static String metricPrefix(String key) {
+        int first = key.indexOf(':');
+        if (first < 0) {
+            return "none";
+        }
+        int second = key.indexOf(':', first + 1);
+        return second < 0 ? key.substring(0, first) : key.substring(0, second);
+    }
+
+    private PrefixMeters metersFor(String key) {
+        return meters.computeIfAbsent(metricPrefix(key), this::createMeters);
+    }
+
+    private PrefixMeters createMeters(String prefix) {
+        return new PrefixMeters(
+                requestCounter(prefix, "l1", "hit"),
+                requestCounter(prefix, "l1", "miss"),
+                requestCounter(prefix, "l2", "hit"),
+                requestCounter(prefix, "l2", "miss"),
+                requestCounter(prefix, "l2", "error"),
+                Counter.builder("cache.early_refresh")
+                        .description("Loads triggered before expiry by probabilistic early refresh")
+                        .tag("prefix", prefix)
+                        .register(meterRegistry),
+                Timer.builder("cache.l2.latency")
+                        .description("Memcached get latency")
+                        .tag("prefix", prefix)
+                        .publishPercentileHistogram()
+                        .register(meterRegistry)
+        );
+    }
+
+    private Counter requestCounter(String prefix, String tier, String result) {
+        return Counter.builder("cache.requests")
+                .description("Cache lookups by key prefix, tier and result")
+                .tag("prefix", prefix)
+                .tag("tier", tier)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    // UNAVAILABLE: the lease could not be checked, so this node loads anyway but has nothing to release
+    private enum Lease { ACQUIRED, HELD_ELSEWHERE, UNAVAILABLE }
+
+    private record PrefixMeters(Counter l1Hit, Counter l1Miss, Counter l2Hit, Counter l2Miss, Counter l2Error,
+                                Counter earlyRefresh, Timer l2Latency) {}
+
+    private record CachedValue<T>(T value, long deltaMs, long expiresAtMs) {}
+
+    // Memcached value format: JSON payload plus the recompute time and logical expiry needed for early refresh
+    private record L2Envelope(JsonNode value, long delta, long expiresAt) {}
+
+    private record LocalEntry(Object value, long ttlNanos, long deltaMs, long expiresAtMs) {}
+
+    private static final class LocalEntryExpiry implements Expiry<String, LocalEntry> {
+        @Override
+        public long expireAfterCreate(String key, LocalEntry entry, long currentTime) {
+            return entry.ttlNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, LocalEntry entry, long currentTime, long currentDuration) {
+            return entry.ttlNanos();
+        }
+
+        @Override
+        public long expireAfterRead(String key, LocalEntry entry, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
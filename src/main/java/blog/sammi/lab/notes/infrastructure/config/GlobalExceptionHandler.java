@@ -24,7 +24,6 @@ import org.springframework.web.method.annotation.MethodArgumentTypeMismatchExcep
 import org.springframework.web.servlet.NoHandlerFoundException;
 import org.springframework.web.servlet.resource.NoResourceFoundException;
 
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -274,7 +273,7 @@ public class GlobalExceptionHandler {
             case AUTHENTICATION_FAILED, INVALID_CREDENTIALS, TOKEN_EXPIRED, INVALID_TOKEN -> HttpStatus.UNAUTHORIZED;
             case ACCESS_DENIED, INSUFFICIENT_PERMISSIONS -> HttpStatus.FORBIDDEN;
             case USER_NOT_FOUND, RESOURCE_NOT_FOUND, NOTE_NOT_FOUND, CATEGORY_NOT_FOUND, TAG_NOT_FOUND -> HttpStatus.NOT_FOUND;
-            case USER_ALREADY_EXISTS, EMAIL_ALREADY_EXISTS, USERNAME_ALREADY_EXISTS, DUPLICATE_RESOURCE -> HttpStatus.CONFLICT;
+            case USER_ALREADY_EXISTS, EMAIL_ALREADY_EXISTS, USERNAME_ALREADY_EXISTS, DUPLICATE_RESOURCE, OPERATION_IN_PROGRESS -> HttpStatus.CONFLICT;
             case TOO_MANY_REQUESTS, RATE_LIMIT_EXCEEDED -> HttpStatus.TOO_MANY_REQUESTS;
             case SERVICE_UNAVAILABLE -> HttpStatus.SERVICE_UNAVAILABLE;
             default -> HttpStatus.INTERNAL_SERVER_ERROR;
@@ -285,13 +284,12 @@ public class GlobalExceptionHandler {
      * Log error with structured logging
      */
     private void logError(String errorType, Exception ex, HttpServletRequest request) {
-        Map<String, Object> context = new HashMap<>();
-        context.put("errorType", errorType);
-        context.put("requestUri", request.getRequestURI());
-        context.put("requestMethod", request.getMethod());
-        context.put("userAgent", request.getHeader("User-Agent"));
-        context.put("remoteAddr", request.getRemoteAddr());
-        
-        structuredLogger.logError("API_ERROR", ex, context);
+        structuredLogger.error("API_ERROR", ex)
+                .with("errorType", errorType)
+                .with("requestUri", request.getRequestURI())
+                .with("requestMethod", request.getMethod())
+                .with("userAgent", request.getHeader("User-Agent"))
+                .with("remoteAddr", request.getRemoteAddr())
+                .log();
     }
 }
@@ -1,5 +1,7 @@
 package blog.sammi.lab.notes.infrastructure.config;
 
+import net.spy.memcached.ConnectionFactoryBuilder;
+import net.spy.memcached.FailureMode;
 import net.spy.memcached.MemcachedClient;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
@@ -7,6 +9,7 @@ import org.springframework.context.annotation.Configuration;
 
 import java.io.IOException;
 import java.net.InetSocketAddress;
+import java.util.List;
 
 @Configuration
 public class MemcachedConfig {
@@ -17,8 +20,16 @@ public class MemcachedConfig {
     @Value("${memcached.port:11211}")
     private int port;
     
+    @Value("${app.cache.l2.timeout-ms:50}")
+    private long operationTimeoutMs;
+    
     @Bean
     public MemcachedClient memcachedClient() throws IOException {
-        return new MemcachedClient(new InetSocketAddress(host, port));
+        // Cancel instead of queueing while the node is down so callers fail open quickly
+        ConnectionFactoryBuilder builder = new ConnectionFactoryBuilder()
+                .setOpTimeout(operationTimeoutMs)
+                .setFailureMode(FailureMode.Cancel)
+                .setDaemon(true);
+        return new MemcachedClient(builder.build(), List.of(new InetSocketAddress(host, port)));
     }
 }
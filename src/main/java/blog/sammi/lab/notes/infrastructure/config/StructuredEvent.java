@@ -0,0 +1,120 @@
+package blog.sammi.lab.notes.infrastructure.config;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import net.logstash.logback.argument.StructuredArgument;
+import org.slf4j.Logger;
+import org.slf4j.Marker;
+import org.slf4j.event.Level;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * One structured log event, built fluently and handed to logstash as a {@link StructuredArgument}: the
+ * encoder writes it straight into the log line's JSON under {@code "structured"}, with the same keys
+ * {@link StructuredLogger} always used ({@code event}, {@code action}, {@code timestamp}, {@code data}, ...).
+ * Fields live in one flat array; there is no map and no intermediate JSON string.
+ * <p>
+ * Instances are single-use. Async appenders keep the argument until the encoder runs, so a builder
+ * cannot be recycled after {@link #log()}. When the level is disabled the shared {@link #DISABLED}
+ * instance is returned and nothing is allocated.
+ */
+public final class StructuredEvent implements StructuredArgument {
+
+    static final String FIELD = "structured";
+
+    static final StructuredEvent DISABLED = new StructuredEvent(null, null, null, null, null, null, null, null);
+
+    private final Logger logger;
+    private final Level level;
+    private final Marker marker;
+    private final String message;
+    private final String summary;
+    private final Throwable throwable;
+    // Fixed top-level fields as key/value pairs, then the nested section (`data`, `metrics`, `context`)
+    private final Object[] header;
+    private final String section;
+
+    private Object[] fields;
+    private int size;
+    private Object sectionValue;
+
+    // `message` has one placeholder, filled with `summary` (the event or operation name) for text appenders
+    StructuredEvent(Logger logger, Level level, Marker marker, String message, String summary, Throwable throwable,
+                    Object[] header, String section) {
+        this.logger = logger;
+        this.level = level;
+        this.marker = marker;
+        this.message = message;
+        this.summary = summary;
+        this.throwable = throwable;
+        this.header = header;
+        this.section = section;
+    }
+
+    public StructuredEvent with(String key, Object value) {
+        if (this == DISABLED) {
+            return this;
+        }
+        if (fields == null) {
+            fields = new Object[8];
+        } else if (size == fields.length) {
+            fields = Arrays.copyOf(fields, size * 2);
+        }
+        fields[size++] = key;
+        fields[size++] = value;
+        return this;
+    }
+
+    // Replaces the nested section with an arbitrary object, for callers that already hold a map
+    StructuredEvent section(Object value) {
+        if (this != DISABLED) {
+            sectionValue = value;
+        }
+        return this;
+    }
+
+    public void log() {
+        if (this == DISABLED) {
+            return;
+        }
+        // This event is the argument after the placeholder, so only the JSON encoders write it
+        switch (level) {
+            case ERROR -> logger.error(marker, message, summary, this, throwable);
+            case WARN -> logger.warn(marker, message, summary, this);
+            default -> logger.info(marker, message, summary, this);
+        }
+    }
+
+    @Override
+    public void writeTo(JsonGenerator generator) throws IOException {
+        generator.writeObjectFieldStart(FIELD);
+        for (int i = 0; i < header.length; i += 2) {
+            generator.writeObjectField((String) header[i], header[i + 1]);
+        }
+        if (section != null) {
+            if (sectionValue != null || size == 0) {
+                generator.writeObjectField(section, sectionValue);
+            } else {
+                generator.writeObjectFieldStart(section);
+                for (int i = 0; i < size; i += 2) {
+                    generator.writeObjectField((String) fields[i], fields[i + 1]);
+                }
+                generator.writeEndObject();
+            }
+        }
+        generator.writeEndObject();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder(64);
+        for (int i = 0; i < header.length; i += 2) {
+            text.append(i == 0 ? "" : ", ").append(header[i]).append('=').append(header[i + 1]);
+        }
+        for (int i = 0; i < size; i += 2) {
+            text.append(", ").append(fields[i]).append('=').append(fields[i + 1]);
+        }
+        return text.toString();
+    }
+}
@@ -1,83 +1,69 @@
 package blog.sammi.lab.notes.infrastructure.config;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.slf4j.MDC;
+import org.slf4j.Marker;
+import org.slf4j.MarkerFactory;
+import org.slf4j.event.Level;
 import org.springframework.stereotype.Component;
 
-import java.util.HashMap;
 import java.util.Map;
 
+// Structured events for the JSON log files; see StructuredEvent. Security and performance events carry
+// markers so logback-spring.xml routes them to their own files without inspecting the message.
 @Component
-@RequiredArgsConstructor
 @Slf4j
 public class StructuredLogger {
-    
-    private final ObjectMapper objectMapper;
-    
-    public void logBusinessEvent(String event, String action, Object data) {
-        try {
-            Map<String, Object> logData = new HashMap<>();
-            logData.put("event", event);
-            logData.put("action", action);
-            logData.put("timestamp", System.currentTimeMillis());
-            logData.put("data", data);
-            
-            String jsonLog = objectMapper.writeValueAsString(logData);
-            log.info("Business Event: {}", jsonLog);
-        } catch (Exception e) {
-            log.error("Failed to log business event", e);
+
+    static final Marker SECURITY = MarkerFactory.getMarker("SECURITY");
+    static final Marker METRICS = MarkerFactory.getMarker("METRICS");
+
+    // structuredLogger.business("JOB_PROCESSED", "SUCCESS").with("jobId", id).log();
+    public StructuredEvent business(String event, String action) {
+        if (!log.isInfoEnabled()) {
+            return StructuredEvent.DISABLED;
+        }
+        return new StructuredEvent(log, Level.INFO, null, "Business Event: {}", event, null,
+                new Object[] {"event", event, "action", action, "timestamp", System.currentTimeMillis()}, "data");
+    }
+
+    public StructuredEvent performance(String operation, long duration) {
+        if (!log.isInfoEnabled(METRICS)) {
+            return StructuredEvent.DISABLED;
+        }
+        return new StructuredEvent(log, Level.INFO, METRICS, "Performance Metric: {}", operation, null,
+                new Object[] {"event", "PERFORMANCE", "operation", operation, "duration", duration,
+                        "timestamp", System.currentTimeMillis()}, "metrics");
+    }
+
+    public StructuredEvent error(String operation, Exception error) {
+        if (!log.isErrorEnabled()) {
+            return StructuredEvent.DISABLED;
         }
+        return new StructuredEvent(log, Level.ERROR, null, "Application Error: {}", operation, error,
+                new Object[] {"event", "ERROR", "operation", operation, "error", error.getClass().getSimpleName(),
+                        "message", error.getMessage(), "timestamp", System.currentTimeMillis()}, "context");
     }
-    
+
+    public void logBusinessEvent(String event, String action, Object data) {
+        business(event, action).section(data).log();
+    }
+
     public void logSecurityEvent(String event, String username, String details) {
-        try {
-            Map<String, Object> logData = new HashMap<>();
-            logData.put("event", "SECURITY");
-            logData.put("action", event);
-            logData.put("username", username);
-            logData.put("details", details);
-            logData.put("timestamp", System.currentTimeMillis());
-            logData.put("correlationId", MDC.get("correlationId"));
-            
-            String jsonLog = objectMapper.writeValueAsString(logData);
-            log.warn("Security Event: {}", jsonLog);
-        } catch (Exception e) {
-            log.error("Failed to log security event", e);
+        if (!log.isWarnEnabled(SECURITY)) {
+            return;
         }
+        new StructuredEvent(log, Level.WARN, SECURITY, "Security Event: {}", event, null,
+                new Object[] {"event", "SECURITY", "action", event, "username", username, "details", details,
+                        "timestamp", System.currentTimeMillis(), "correlationId", MDC.get("correlationId")}, null)
+                .log();
     }
-    
+
     public void logPerformanceMetric(String operation, long duration, Map<String, Object> metrics) {
-        try {
-            Map<String, Object> logData = new HashMap<>();
-            logData.put("event", "PERFORMANCE");
-            logData.put("operation", operation);
-            logData.put("duration", duration);
-            logData.put("metrics", metrics);
-            logData.put("timestamp", System.currentTimeMillis());
-            
-            String jsonLog = objectMapper.writeValueAsString(logData);
-            log.info("Performance Metric: {}", jsonLog);
-        } catch (Exception e) {
-            log.error("Failed to log performance metric", e);
-        }
+        performance(operation, duration).section(metrics).log();
     }
-    
+
     public void logError(String operation, Exception error, Map<String, Object> context) {
-        try {
-            Map<String, Object> logData = new HashMap<>();
-            logData.put("event", "ERROR");
-            logData.put("operation", operation);
-            logData.put("error", error.getClass().getSimpleName());
-            logData.put("message", error.getMessage());
-            logData.put("context", context);
-            logData.put("timestamp", System.currentTimeMillis());
-            
-            String jsonLog = objectMapper.writeValueAsString(logData);
-            log.error("Application Error: {}", jsonLog, error);
-        } catch (Exception e) {
-            log.error("Failed to log error event", e);
-        }
+        error(operation, error).section(context).log();
     }
 }
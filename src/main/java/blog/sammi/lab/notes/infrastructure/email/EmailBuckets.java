@@ -0,0 +1,15 @@
+package blog.sammi.lab.notes.infrastructure.email;
+
+// Token buckets behind EmailThrottle: in Valkey, shared by every node, or in process with the (single node)
+// embedded backend. A bucket is identified by its limit and a key, e.g. the recipient address
+interface EmailBuckets {
+
+    // Takes a token if one is available
+    boolean tryAcquire(Limit limit, String key);
+
+    // Takes a token now and returns how many nanoseconds to wait before using it
+    long reserve(Limit limit, String key);
+
+    record Limit(String name, double perSecond, int burst) {
+    }
+}
@@ -1,84 +1,84 @@
 package blog.sammi.lab.notes.infrastructure.email;
 
+import blog.sammi.lab.notes.domain.job.EmailJob;
+import blog.sammi.lab.notes.domain.job.NotificationJob;
 import blog.sammi.lab.notes.domain.service.EmailService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
-import org.springframework.mail.javamail.JavaMailSender;
-import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
-import org.thymeleaf.TemplateEngine;
-import org.thymeleaf.context.Context;
 
 import jakarta.mail.MessagingException;
 import jakarta.mail.internet.MimeMessage;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 @Service
 @ConditionalOnProperty(name = "app.email.mock", havingValue = "false", matchIfMissing = true)
 @RequiredArgsConstructor
 @Slf4j
 public class EmailServiceImpl implements EmailService {
     
-    private final JavaMailSender mailSender;
-    private final TemplateEngine templateEngine;
-    
-    @Value("${spring.mail.username}")
-    private String fromEmail;
+    private final SmtpTransportPool smtpTransportPool;
+    private final EmailTemplates emailTemplates;
     
     @Override
     public void sendOtpEmail(String to, String otpCode) {
-        try {
-            Context context = new Context();
-            context.setVariable("otpCode", otpCode);
-            
-            String htmlContent = templateEngine.process("otp-email", context);
-            
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
-            
-            helper.setFrom(fromEmail, "Notes App");
-            helper.setTo(to);
-            helper.setSubject("Verify Your Account - Notes App");
-            helper.setText(htmlContent, true);
-            
-            mailSender.send(message);
-            log.info("OTP email sent successfully to: {}", to);
-            
-        } catch (MessagingException e) {
-            log.error("Failed to send OTP email to: {}", to, e);
-            throw new RuntimeException("Failed to send OTP email", e);
-        } catch (Exception e) {
-            log.error("Unexpected error sending OTP email to: {}", to, e);
-            throw new RuntimeException("Failed to send OTP email", e);
-        }
+        send(EmailJob.otpVerification(to, otpCode), "OTP");
     }
     
     @Override
     public void sendPasswordResetEmail(String to, String resetCode) {
+        send(EmailJob.passwordReset(to, resetCode), "password reset");
+    }
+    
+    @Override
+    public void sendNotificationDigest(String to, List<NotificationJob> notifications) {
+        send(EmailJob.notificationDigest(to, notifications), "notification digest");
+    }
+    
+    // Builds every message, then sends all of them over pooled SMTP connections
+    @Override
+    public Map<Integer, Exception> sendAll(List<EmailJob> emails) {
+        Map<Integer, Exception> failures = new HashMap<>();
+        List<MimeMessage> messages = new ArrayList<>(emails.size());
+        List<Integer> indexes = new ArrayList<>(emails.size());
+        for (int i = 0; i < emails.size(); i++) {
+            try {
+                messages.add(buildMessage(emails.get(i)));
+                indexes.add(i);
+            } catch (Exception e) {
+                log.error("Failed to build email to: {}", emails.get(i).to(), e);
+                failures.put(i, e);
+            }
+        }
+        
+        smtpTransportPool.sendAll(messages).forEach((position, e) -> {
+            log.error("Failed to send email to: {}", emails.get(indexes.get(position)).to(), e);
+            failures.put(indexes.get(position), e);
+        });
+        log.info("Sent {} of {} emails", emails.size() - failures.size(), emails.size());
+        return failures;
+    }
+    
+    private void send(EmailJob email, String kind) {
+        Exception failure;
         try {
-            Context context = new Context();
-            context.setVariable("resetCode", resetCode);
-            
-            String htmlContent = templateEngine.process("password-reset-email", context);
-            
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
-            
-            helper.setFrom(fromEmail, "Notes App");
-            helper.setTo(to);
-            helper.setSubject("Reset Your Password - Notes App");
-            helper.setText(htmlContent, true);
-            
-            mailSender.send(message);
-            log.info("Password reset email sent successfully to: {}", to);
-            
-        } catch (MessagingException e) {
-            log.error("Failed to send password reset email to: {}", to, e);
-            throw new RuntimeException("Failed to send password reset email", e);
+            failure = smtpTransportPool.sendAll(List.of(buildMessage(email))).get(0);
         } catch (Exception e) {
-            log.error("Unexpected error sending password reset email to: {}", to, e);
-            throw new RuntimeException("Failed to send password reset email", e);
+            failure = e;
+        }
+        if (failure != null) {
+            log.error("Failed to send {} email to: {}", kind, email.to(), failure);
+            throw new RuntimeException("Failed to send " + kind + " email", failure);
         }
+        log.info("{} email sent successfully to: {}", kind, email.to());
+    }
+    
+    private MimeMessage buildMessage(EmailJob email) throws MessagingException {
+        return emailTemplates.populate(smtpTransportPool.createMimeMessage(), email);
     }
 }
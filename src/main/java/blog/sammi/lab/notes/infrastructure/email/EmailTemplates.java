@@ -0,0 +1,130 @@
+package blog.sammi.lab.notes.infrastructure.email;
+
+import blog.sammi.lab.notes.domain.job.EmailJob;
+import jakarta.activation.DataHandler;
+import jakarta.mail.Message;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.InternetAddress;
+import jakarta.mail.internet.MimeMessage;
+import jakarta.mail.internet.MimeUtility;
+import jakarta.mail.util.ByteArrayDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.util.HtmlUtils;
+import org.thymeleaf.TemplateEngine;
+import org.thymeleaf.context.Context;
+
+import java.io.UnsupportedEncodingException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Email templates compiled once at startup: each template is rendered through Thymeleaf with a marker in
+ * place of its code, split at the marker and kept as static UTF-8 segments. Sending an email then only
+ * splices the escaped code between the segments into a single-part text/html message whose From and
+ * encoded Subject were built up front. The templates' only dynamic part is the code, so output is
+ * byte-for-byte what Thymeleaf renders. Notification digests hold a list of items and still go through
+ * Thymeleaf; they are sent at most once per user per digest window.
+ */
+@Component
+@ConditionalOnProperty(name = "app.email.mock", havingValue = "false", matchIfMissing = true)
+public class EmailTemplates {
+
+    private static final String CONTENT_TYPE = "text/html; charset=UTF-8";
+    private static final String MARKER = "__notes_template_%s__";
+    private static final String DIGEST_TEMPLATE = "notification-digest";
+
+    private final TemplateEngine templateEngine;
+    private final InternetAddress from;
+    private final String digestSubject;
+    private final Map<EmailJob.Type, CompiledTemplate> templates = new EnumMap<>(EmailJob.Type.class);
+
+    public EmailTemplates(TemplateEngine templateEngine, @Value("${spring.mail.username}") String fromEmail)
+            throws UnsupportedEncodingException {
+        this.templateEngine = templateEngine;
+        this.from = new InternetAddress(fromEmail, "Notes App", "UTF-8");
+        this.digestSubject = MimeUtility.encodeText("Your Notes App Activity", "UTF-8", null);
+        templates.put(EmailJob.Type.OTP_VERIFICATION,
+                compile(templateEngine, "otp-email", "otpCode", "Verify Your Account - Notes App"));
+        templates.put(EmailJob.Type.PASSWORD_RESET,
+                compile(templateEngine, "password-reset-email", "resetCode", "Reset Your Password - Notes App"));
+    }
+
+    // Fills an empty message (from the mail session) with the headers and body for this email
+    public MimeMessage populate(MimeMessage message, EmailJob email) throws MessagingException {
+        message.setFrom(from);
+        message.setRecipient(Message.RecipientType.TO, new InternetAddress(email.to()));
+        message.setHeader("Subject", email.type() == EmailJob.Type.NOTIFICATION_DIGEST ? digestSubject : template(email).subject());
+        message.setDataHandler(new DataHandler(new ByteArrayDataSource(renderBody(email), CONTENT_TYPE)));
+        // Set after the data handler, which clears content headers; an explicit encoding skips the body scan
+        message.setHeader("Content-Type", CONTENT_TYPE);
+        message.setHeader("Content-Transfer-Encoding", "quoted-printable");
+        return message;
+    }
+
+    public byte[] renderBody(EmailJob email) {
+        if (email.type() == EmailJob.Type.NOTIFICATION_DIGEST) {
+            Context context = new Context();
+            context.setVariable("notifications", email.notifications());
+            return templateEngine.process(DIGEST_TEMPLATE, context).getBytes(StandardCharsets.UTF_8);
+        }
+        return template(email).render(email.otpCode());
+    }
+
+    private CompiledTemplate template(EmailJob email) {
+        CompiledTemplate template = email.type() != null ? templates.get(email.type()) : null;
+        if (template == null) {
+            throw new IllegalArgumentException("Unknown email type: " + email.type());
+        }
+        return template;
+    }
+
+    private static CompiledTemplate compile(TemplateEngine templateEngine, String name, String variable, String subject)
+            throws UnsupportedEncodingException {
+        String marker = MARKER.formatted(variable);
+        Context context = new Context();
+        context.setVariable(variable, marker);
+        String rendered = templateEngine.process(name, context);
+
+        List<byte[]> segments = new ArrayList<>();
+        int start = 0;
+        int found;
+        while ((found = rendered.indexOf(marker, start)) >= 0) {
+            segments.add(rendered.substring(start, found).getBytes(StandardCharsets.UTF_8));
+            start = found + marker.length();
+        }
+        segments.add(rendered.substring(start).getBytes(StandardCharsets.UTF_8));
+        if (segments.size() < 2) {
+            throw new IllegalStateException("Email template " + name + " does not render ${" + variable + "}");
+        }
+        return new CompiledTemplate(segments.toArray(byte[][]::new), MimeUtility.encodeText(subject, "UTF-8", null));
+    }
+
+    // Static segments with the code spliced in between each pair
+    private record CompiledTemplate(byte[][] segments, String subject) {
+
+        byte[] render(String value) {
+            byte[] code = HtmlUtils.htmlEscape(value).getBytes(StandardCharsets.UTF_8);
+            int length = code.length * (segments.length - 1);
+            for (byte[] segment : segments) {
+                length += segment.length;
+            }
+
+            byte[] body = new byte[length];
+            int position = 0;
+            for (int i = 0; i < segments.length; i++) {
+                if (i > 0) {
+                    System.arraycopy(code, 0, body, position, code.length);
+                    position += code.length;
+                }
+                System.arraycopy(segments[i], 0, body, position, segments[i].length);
+                position += segments[i].length;
+            }
+            return body;
+        }
+    }
+}
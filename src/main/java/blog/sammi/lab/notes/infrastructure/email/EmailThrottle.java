@@ -0,0 +1,58 @@
+package blog.sammi.lab.notes.infrastructure.email;
+
+import blog.sammi.lab.notes.domain.service.CodeEmailLimiter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Send rates for outgoing email: a global bucket that paces every send to stay inside the SMTP quota, one
+ * bucket per recipient that caps how many digests a single address can receive, and a separate one per
+ * address for OTP and reset codes. Codes are limited when they are requested (see AuthUseCase), not when
+ * sent, so a digest never uses up a code's allowance and an issued code is never dropped.
+ * The buckets live in Valkey ({@link EmailBuckets}), so the rates hold for all nodes together.
+ */
+@Component
+public class EmailThrottle implements CodeEmailLimiter {
+
+    private static final String GLOBAL_KEY = "all";
+
+    private final EmailBuckets buckets;
+    private final EmailBuckets.Limit global;
+    private final EmailBuckets.Limit recipients;
+    private final EmailBuckets.Limit codeRecipients;
+
+    public EmailThrottle(
+            EmailBuckets buckets,
+            @Value("${app.email.throttle.global-per-second:10}") double globalPerSecond,
+            @Value("${app.email.throttle.global-burst:20}") int globalBurst,
+            @Value("${app.email.throttle.recipient-per-hour:10}") double recipientPerHour,
+            @Value("${app.email.throttle.recipient-burst:3}") int recipientBurst,
+            @Value("${app.email.throttle.code-per-hour:5}") double codePerHour,
+            @Value("${app.email.throttle.code-burst:3}") int codeBurst) {
+        this.buckets = buckets;
+        this.global = new EmailBuckets.Limit("global", globalPerSecond, globalBurst);
+        this.recipients = new EmailBuckets.Limit("digest", recipientPerHour / 3600, recipientBurst);
+        this.codeRecipients = new EmailBuckets.Limit("code", codePerHour / 3600, codeBurst);
+    }
+
+    // False when the address has used up its digest allowance; the digest should be dropped, not retried
+    public boolean tryAcquireRecipient(String to) {
+        return buckets.tryAcquire(recipients, to.toLowerCase(Locale.ROOT));
+    }
+
+    @Override
+    public boolean tryAcquireCodeEmail(String email) {
+        return buckets.tryAcquire(codeRecipients, email.toLowerCase(Locale.ROOT));
+    }
+
+    // Blocks (a virtual thread) until the global rate allows one more send
+    public void awaitGlobal() throws InterruptedException {
+        long waitNanos = buckets.reserve(global, GLOBAL_KEY);
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+}
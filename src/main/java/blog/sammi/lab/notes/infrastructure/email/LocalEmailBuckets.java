@@ -0,0 +1,43 @@
+package blog.sammi.lab.notes.infrastructure.email;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// In-process buckets for the embedded backend, which runs on one node; also the fallback while Valkey is
+// unreachable. Buckets are evicted once they would have refilled, so idle addresses cost nothing
+@Component
+@ConditionalOnProperty(prefix = "app.queue", name = "backend", havingValue = "embedded")
+class LocalEmailBuckets implements EmailBuckets {
+
+    private final long maxKeys;
+    private final Map<String, Cache<String, TokenBucket>> buckets = new ConcurrentHashMap<>();
+
+    LocalEmailBuckets(@Value("${app.email.throttle.max-recipients:100000}") long maxKeys) {
+        this.maxKeys = maxKeys;
+    }
+
+    @Override
+    public boolean tryAcquire(Limit limit, String key) {
+        return bucket(limit, key).tryAcquire();
+    }
+
+    @Override
+    public long reserve(Limit limit, String key) {
+        return bucket(limit, key).reserve();
+    }
+
+    private TokenBucket bucket(Limit limit, String key) {
+        return buckets.computeIfAbsent(limit.name(), name -> Caffeine.newBuilder()
+                        .maximumSize(maxKeys)
+                        .expireAfterAccess(Duration.ofSeconds((long) Math.ceil(limit.burst() / limit.perSecond())))
+                        .<String, TokenBucket>build())
+                .get(key, ignored -> new TokenBucket(limit.perSecond(), limit.burst()));
+    }
+}
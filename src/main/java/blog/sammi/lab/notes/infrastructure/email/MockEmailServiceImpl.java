@@ -1,10 +1,13 @@
 package blog.sammi.lab.notes.infrastructure.email;
 
+import blog.sammi.lab.notes.domain.job.NotificationJob;
 import blog.sammi.lab.notes.domain.service.EmailService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
+
 @Service
 @ConditionalOnProperty(name = "app.email.mock", havingValue = "true", matchIfMissing = false)
 @Slf4j
@@ -27,4 +30,13 @@ public class MockEmailServiceImpl implements EmailService {
         log.info("📝 Subject: Reset Your Password - Notes App");
         log.info("✅ Email would be sent successfully (MOCK MODE)");
     }
+    
+    @Override
+    public void sendNotificationDigest(String to, List<NotificationJob> notifications) {
+        log.info("🔥 MOCK EMAIL - Notification Digest");
+        log.info("📧 To: {}", to);
+        notifications.forEach(notification -> log.info("🔔 {}: {}", notification.type(), notification.title()));
+        log.info("📝 Subject: Your Notes App Activity");
+        log.info("✅ Email would be sent successfully (MOCK MODE)");
+    }
 }
@@ -0,0 +1,211 @@
+package blog.sammi.lab.notes.infrastructure.email;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pool of connected, authenticated SMTP transports for the configured {@code spring.mail.host}, so the
+ * TCP connect, STARTTLS and AUTH happen once per connection instead of once per email.
+ * <ul>
+ *   <li>At most {@code max-sessions} connections are open at a time (borrowed plus idle)</li>
+ *   <li>A batch goes out over one connection, switching only when it hits {@code max-messages-per-connection}</li>
+ *   <li>Idle connections are closed after {@code idle-timeout-ms} and checked with NOOP after {@code validate-after-ms}</li>
+ *   <li>A connection that fails mid-send is discarded and the message is retried once on a fresh one;
+ *       rejected recipients fail only their own message and keep the connection</li>
+ * </ul>
+ */
+@Component
+@ConditionalOnProperty(name = "app.email.mock", havingValue = "false", matchIfMissing = true)
+@Slf4j
+public class SmtpTransportPool {
+
+    private final JavaMailSenderImpl mailSender;
+    private final Semaphore sessions;
+    private final int maxMessagesPerConnection;
+    private final long idleTimeoutMs;
+    private final long validateAfterMs;
+    private final long acquireTimeoutMs;
+
+    private final BlockingDeque<PooledTransport> idle = new LinkedBlockingDeque<>();
+
+    public SmtpTransportPool(
+            JavaMailSenderImpl mailSender,
+            @Value("${app.email.smtp.max-sessions:4}") int maxSessions,
+            @Value("${app.email.smtp.max-messages-per-connection:100}") int maxMessagesPerConnection,
+            @Value("${app.email.smtp.idle-timeout-ms:60000}") long idleTimeoutMs,
+            @Value("${app.email.smtp.validate-after-ms:5000}") long validateAfterMs,
+            @Value("${app.email.smtp.acquire-timeout-ms:30000}") long acquireTimeoutMs) {
+        this.mailSender = mailSender;
+        this.sessions = new Semaphore(maxSessions, true);
+        this.maxMessagesPerConnection = maxMessagesPerConnection;
+        this.idleTimeoutMs = idleTimeoutMs;
+        this.validateAfterMs = validateAfterMs;
+        this.acquireTimeoutMs = acquireTimeoutMs;
+    }
+
+    public MimeMessage createMimeMessage() {
+        return mailSender.createMimeMessage();
+    }
+
+    // Failures by message index; messages without an entry were accepted by the server
+    public Map<Integer, Exception> sendAll(List<MimeMessage> messages) {
+        Map<Integer, Exception> failures = new HashMap<>();
+        int next = 0;
+        boolean retrying = false;
+
+        while (next < messages.size()) {
+            PooledTransport transport;
+            try {
+                transport = borrow();
+            } catch (MessagingException e) {
+                for (int i = next; i < messages.size(); i++) {
+                    failures.put(i, e);
+                }
+                break;
+            }
+
+            boolean broken = false;
+            try {
+                while (next < messages.size() && transport.messagesSent < maxMessagesPerConnection) {
+                    MimeMessage message = messages.get(next);
+                    MessagingException failure;
+                    try {
+                        message.saveChanges();
+                        transport.transport.sendMessage(message, message.getAllRecipients());
+                        transport.messagesSent++;
+                        next++;
+                        retrying = false;
+                        continue;
+                    } catch (SendFailedException e) {
+                        // A dropped connection also surfaces as SMTPSendFailedException, so check before keeping it
+                        if (transport.transport.isConnected()) {
+                            // Rejected recipients; the session itself is fine
+                            failures.put(next++, e);
+                            retrying = false;
+                            continue;
+                        }
+                        failure = e;
+                    } catch (MessagingException e) {
+                        failure = e;
+                    }
+
+                    broken = true;
+                    if (retrying) {
+                        failures.put(next++, failure);
+                        retrying = false;
+                    } else {
+                        log.warn("SMTP connection failed after {} message(s), reconnecting: {}", transport.messagesSent, failure.getMessage());
+                        retrying = true;
+                    }
+                    break;
+                }
+            } finally {
+                release(transport, broken);
+            }
+        }
+        return failures;
+    }
+
+    private PooledTransport borrow() throws MessagingException {
+        try {
+            if (!sessions.tryAcquire(acquireTimeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new MessagingException("Timed out waiting for an SMTP session");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MessagingException("Interrupted while waiting for an SMTP session", e);
+        }
+
+        try {
+            long now = System.currentTimeMillis();
+            PooledTransport pooled;
+            while ((pooled = idle.pollFirst()) != null) {
+                if (isUsable(pooled, now)) {
+                    return pooled;
+                }
+                close(pooled);
+            }
+            return connect();
+        } catch (MessagingException | RuntimeException e) {
+            sessions.release();
+            throw e;
+        }
+    }
+
+    private void release(PooledTransport pooled, boolean broken) {
+        try {
+            if (broken || pooled.messagesSent >= maxMessagesPerConnection) {
+                close(pooled);
+            } else {
+                pooled.lastUsedAt = System.currentTimeMillis();
+                // Most recently used first, so surplus connections age out
+                idle.offerFirst(pooled);
+            }
+        } finally {
+            sessions.release();
+        }
+    }
+
+    private boolean isUsable(PooledTransport pooled, long now) {
+        long idleMs = now - pooled.lastUsedAt;
+        if (idleMs >= idleTimeoutMs) {
+            return false;
+        }
+        // SMTPTransport.isConnected() sends NOOP; skip it for connections used moments ago
+        return idleMs < validateAfterMs || pooled.transport.isConnected();
+    }
+
+    private PooledTransport connect() throws MessagingException {
+        Transport transport = mailSender.getSession().getTransport(mailSender.getProtocol());
+        String username = mailSender.getUsername();
+        String password = mailSender.getPassword();
+        if ("".equals(username)) {
+            username = null;
+            password = null;
+        }
+        transport.connect(mailSender.getHost(), mailSender.getPort(), username, password);
+        return new PooledTransport(transport);
+    }
+
+    private static void close(PooledTransport pooled) {
+        try {
+            pooled.transport.close();
+        } catch (MessagingException e) {
+            log.debug("Failed to close SMTP connection cleanly", e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        PooledTransport pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            close(pooled);
+        }
+    }
+
+    private static final class PooledTransport {
+        private final Transport transport;
+        private long lastUsedAt = System.currentTimeMillis();
+        private int messagesSent;
+
+        private PooledTransport(Transport transport) {
+            this.transport = transport;
+        }
+    }
+}
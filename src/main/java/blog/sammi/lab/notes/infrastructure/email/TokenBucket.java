@@ -0,0 +1,44 @@
+package blog.sammi.lab.notes.infrastructure.email;
+
+/**
+ * Token bucket refilled continuously at {@code perSecond} up to {@code capacity}, starting full.
+ * {@link #reserve()} may drive the balance negative: callers sleep for the returned debt, so concurrent
+ * senders queue up in order instead of spinning.
+ */
+final class TokenBucket {
+
+    private final double perNano;
+    private final double capacity;
+
+    private double balance;
+    private long lastRefillNanos;
+
+    TokenBucket(double perSecond, double capacity) {
+        this.perNano = perSecond / 1e9;
+        this.capacity = capacity;
+        this.balance = capacity;
+        this.lastRefillNanos = System.nanoTime();
+    }
+
+    synchronized boolean tryAcquire() {
+        refill();
+        if (balance < 1) {
+            return false;
+        }
+        balance -= 1;
+        return true;
+    }
+
+    // Takes a token now and returns how long to wait before using it
+    synchronized long reserve() {
+        refill();
+        balance -= 1;
+        return balance >= 0 ? 0 : (long) Math.ceil(-balance / perNano);
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        balance = Math.min(capacity, balance + (now - lastRefillNanos) * perNano);
+        lastRefillNanos = now;
+    }
+}
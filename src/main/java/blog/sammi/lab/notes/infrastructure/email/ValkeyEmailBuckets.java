@@ -0,0 +1,83 @@
+package blog.sammi.lab.notes.infrastructure.email;
+
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RScript;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Buckets shared by all nodes (email:bucket:<limit>:<key>), so the configured rates hold for the whole
+// deployment. Refill uses the server clock. While Valkey is unreachable each node falls back to its own buckets
+@Component
+@ConditionalOnExpression("'${app.queue.backend:list}' != 'embedded'")
+@Slf4j
+class ValkeyEmailBuckets implements EmailBuckets {
+
+    private static final String KEY_PREFIX = "email:bucket:";
+
+    // KEYS: bucket. ARGV: tokens per ms, burst, 1 to reserve (may go negative) or 0 to try.
+    // Returns the wait in ms for a reservation, 0 when a token was taken, -1 when none was available
+    private static final String ACQUIRE_SCRIPT =
+            "local time = redis.call('TIME'); " +
+            "local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000); " +
+            "local rate = tonumber(ARGV[1]); " +
+            "local burst = tonumber(ARGV[2]); " +
+            "local state = redis.call('HMGET', KEYS[1], 'tokens', 'ts'); " +
+            "local tokens = tonumber(state[1]) or burst; " +
+            "local ts = tonumber(state[2]) or now; " +
+            "tokens = math.min(burst, tokens + math.max(0, now - ts) * rate); " +
+            "local wait = 0; " +
+            "if ARGV[3] == '1' then " +
+            "  tokens = tokens - 1; " +
+            "  if tokens < 0 then wait = math.ceil(-tokens / rate); end " +
+            "elseif tokens < 1 then " +
+            "  return -1; " +
+            "else " +
+            "  tokens = tokens - 1; " +
+            "end " +
+            "redis.call('HSET', KEYS[1], 'tokens', tostring(tokens), 'ts', now); " +
+            "redis.call('PEXPIRE', KEYS[1], math.ceil(burst / rate) + wait); " +
+            "return wait;";
+
+    private final RedissonClient redissonClient;
+    private final LocalEmailBuckets fallback;
+
+    ValkeyEmailBuckets(
+            RedissonClient redissonClient,
+            @Value("${app.email.throttle.max-recipients:100000}") long maxKeys) {
+        this.redissonClient = redissonClient;
+        this.fallback = new LocalEmailBuckets(maxKeys);
+    }
+
+    @Override
+    public boolean tryAcquire(Limit limit, String key) {
+        try {
+            return acquire(limit, key, false) >= 0;
+        } catch (RuntimeException e) {
+            log.debug("Email bucket {} unavailable in Valkey, using the local one: {}", limit.name(), e.toString());
+            return fallback.tryAcquire(limit, key);
+        }
+    }
+
+    @Override
+    public long reserve(Limit limit, String key) {
+        try {
+            return TimeUnit.MILLISECONDS.toNanos(acquire(limit, key, true));
+        } catch (RuntimeException e) {
+            log.debug("Email bucket {} unavailable in Valkey, using the local one: {}", limit.name(), e.toString());
+            return fallback.reserve(limit, key);
+        }
+    }
+
+    private long acquire(Limit limit, String key, boolean reserve) {
+        Long result = redissonClient.getScript(StringCodec.INSTANCE).eval(RScript.Mode.READ_WRITE, ACQUIRE_SCRIPT,
+                RScript.ReturnType.INTEGER, List.of(KEY_PREFIX + limit.name() + ":" + key),
+                String.valueOf(limit.perSecond() / 1000), String.valueOf(limit.burst()), reserve ? "1" : "0");
+        return result == null ? 0 : result;
+    }
+}
@@ -0,0 +1,112 @@
+package blog.sammi.lab.notes.infrastructure.notification;
+
+import blog.sammi.lab.notes.domain.job.NotificationJob;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * In-process notification buffer for the embedded backend, so notifications need no Valkey either. Same rules
+ * as {@link ValkeyNotificationDigestBuffer}: the window closes on its own after twice its length, and a user's
+ * events are dropped a day after the last one. Events not yet mailed are lost on restart (the digest job
+ * itself is journaled and then finds nothing to send).
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.queue", name = "backend", havingValue = "embedded")
+public class EmbeddedNotificationDigestBuffer implements NotificationDigestBuffer {
+
+    private static final Duration PENDING_TTL = Duration.ofDays(1);
+
+    private final Duration window;
+    private final Cache<UUID, UserEvents> buffers;
+
+    public EmbeddedNotificationDigestBuffer(@Value("${app.notifications.digest-window-seconds:900}") long windowSeconds) {
+        this.window = Duration.ofSeconds(windowSeconds);
+        this.buffers = Caffeine.newBuilder()
+                .expireAfterWrite(PENDING_TTL.plus(window))
+                .build();
+    }
+
+    @Override
+    public Duration window() {
+        return window;
+    }
+
+    @Override
+    public List<Boolean> appendAll(List<NotificationJob> events) {
+        List<Boolean> opened = new ArrayList<>(events.size());
+        for (NotificationJob event : events) {
+            boolean[] openedWindow = new boolean[1];
+            buffers.asMap().compute(event.userId(), (userId, buffer) -> {
+                UserEvents user = buffer != null ? buffer : new UserEvents();
+                user.events.add(event);
+                openedWindow[0] = user.openWindow(false);
+                return user;
+            });
+            opened.add(openedWindow[0]);
+        }
+        return opened;
+    }
+
+    @Override
+    public void closeWindow(UUID userId) {
+        buffers.asMap().computeIfPresent(userId, (id, user) -> {
+            user.windowUntilNanos = 0;
+            return user;
+        });
+    }
+
+    @Override
+    public Pending pending(UUID userId) {
+        List<NotificationJob> entries = new ArrayList<>();
+        buffers.asMap().computeIfPresent(userId, (id, user) -> {
+            entries.addAll(user.events);
+            return user;
+        });
+        Map<String, NotificationJob> events = new LinkedHashMap<>();
+        for (NotificationJob event : entries) {
+            events.putIfAbsent(event.eventId(), event);
+        }
+        return new Pending(new ArrayList<>(events.values()), entries.size());
+    }
+
+    @Override
+    public boolean trim(UUID userId, int count) {
+        boolean[] reopened = new boolean[1];
+        buffers.asMap().computeIfPresent(userId, (id, user) -> {
+            user.events.subList(0, Math.min(count, user.events.size())).clear();
+            user.windowUntilNanos = 0;
+            if (user.events.isEmpty()) {
+                return null;
+            }
+            reopened[0] = user.openWindow(true);
+            return user;
+        });
+        return reopened[0];
+    }
+
+    // Guarded by the cache's per-key compute
+    private final class UserEvents {
+        private final List<NotificationJob> events = new ArrayList<>();
+        private long windowUntilNanos;
+
+        // True when the window was closed (or has expired) and is open now
+        boolean openWindow(boolean force) {
+            long now = System.nanoTime();
+            if (!force && windowUntilNanos != 0 && now - windowUntilNanos < 0) {
+                return false;
+            }
+            windowUntilNanos = now + window.multipliedBy(2).toNanos();
+            return true;
+        }
+    }
+}
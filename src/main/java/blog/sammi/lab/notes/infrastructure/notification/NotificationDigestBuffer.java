@@ -0,0 +1,32 @@
+package blog.sammi.lab.notes.infrastructure.notification;
+
+import blog.sammi.lab.notes.domain.job.NotificationJob;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+// Events waiting for a user's next digest, and whether a digest is already scheduled for them:
+// in Valkey, or in memory with the embedded backend
+public interface NotificationDigestBuffer {
+
+    Duration window();
+
+    // Returns, per event, whether it opened its user's window (the caller then schedules the digest)
+    List<Boolean> appendAll(List<NotificationJob> events) throws IOException;
+
+    // Undoes a window this node opened but could not schedule a digest for, so the next event retries it
+    void closeWindow(UUID userId);
+
+    // Pending events in arrival order, without duplicates from retried appends
+    Pending pending(UUID userId);
+
+    // Removes the first `count` entries (Pending.entries, so events appended since stay);
+    // true when newer events are waiting and a new digest must be scheduled
+    boolean trim(UUID userId, int count);
+
+    // `entries` counts raw entries, including duplicates and unreadable ones
+    record Pending(List<NotificationJob> events, int entries) {
+    }
+}
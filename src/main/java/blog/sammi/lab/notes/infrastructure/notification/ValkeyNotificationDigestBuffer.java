@@ -0,0 +1,134 @@
+package blog.sammi.lab.notes.infrastructure.notification;
+
+import blog.sammi.lab.notes.domain.job.NotificationJob;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.BatchResult;
+import org.redisson.api.RBatch;
+import org.redisson.api.RScript;
+import org.redisson.api.RScriptAsync;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Per-user notification buffer in Valkey, shared by all nodes (not used by the embedded backend):
+ * <ul>
+ *   <li>{@code notify:pending:<userId>} - list of events (JSON) waiting for the user's next digest</li>
+ *   <li>{@code notify:window:<userId>} - set while a digest is scheduled; the event that creates it
+ *       schedules the digest job, every later event in the window only appends</li>
+ * </ul>
+ * The window key expires after twice the window, so a lost digest job only delays events until the next one;
+ * pending lists expire a day after their last event so abandoned ones do not pile up.
+ */
+@Component
+@ConditionalOnExpression("'${app.queue.backend:list}' != 'embedded'")
+@Slf4j
+public class ValkeyNotificationDigestBuffer implements NotificationDigestBuffer {
+
+    private static final String PENDING_PREFIX = "notify:pending:";
+    private static final String WINDOW_PREFIX = "notify:window:";
+
+    private static final Duration PENDING_TTL = Duration.ofDays(1);
+
+    // KEYS: pending list, window key. ARGV: event, window TTL (ms), pending TTL (ms).
+    // Returns 1 when this event opened the window.
+    private static final String APPEND_SCRIPT =
+            "redis.call('rpush', KEYS[1], ARGV[1]); " +
+            "redis.call('pexpire', KEYS[1], ARGV[3]); " +
+            "if redis.call('set', KEYS[2], '1', 'NX', 'PX', ARGV[2]) then return 1; end " +
+            "return 0;";
+
+    // KEYS: pending list, window key. ARGV: number of events sent, window TTL (ms). Drops the sent events and
+    // closes the window; events that arrived meanwhile reopen it, and 1 tells the caller to schedule again.
+    private static final String TRIM_SCRIPT =
+            "redis.call('ltrim', KEYS[1], ARGV[1], -1); " +
+            "redis.call('del', KEYS[2]); " +
+            "if redis.call('llen', KEYS[1]) > 0 then " +
+            "  redis.call('set', KEYS[2], '1', 'PX', ARGV[2]); " +
+            "  return 1; " +
+            "end " +
+            "return 0;";
+
+    private final RedissonClient redissonClient;
+    private final ObjectMapper objectMapper;
+    private final Duration window;
+
+    public ValkeyNotificationDigestBuffer(
+            RedissonClient redissonClient,
+            ObjectMapper objectMapper,
+            @Value("${app.notifications.digest-window-seconds:900}") long windowSeconds) {
+        this.redissonClient = redissonClient;
+        this.objectMapper = objectMapper;
+        this.window = Duration.ofSeconds(windowSeconds);
+    }
+
+    @Override
+    public Duration window() {
+        return window;
+    }
+
+    // One round trip for all events
+    @Override
+    public List<Boolean> appendAll(List<NotificationJob> events) throws JsonProcessingException {
+        RBatch batch = redissonClient.createBatch();
+        RScriptAsync script = batch.getScript(StringCodec.INSTANCE);
+        for (NotificationJob event : events) {
+            script.evalAsync(RScript.Mode.READ_WRITE, APPEND_SCRIPT, RScript.ReturnType.INTEGER,
+                    keys(event.userId()), objectMapper.writeValueAsString(event), ttlMs(),
+                    String.valueOf(PENDING_TTL.plus(window).toMillis()));
+        }
+        BatchResult<?> result = batch.execute();
+
+        List<Boolean> opened = new ArrayList<>(events.size());
+        for (Object response : result.getResponses()) {
+            opened.add(response instanceof Long value && value == 1L);
+        }
+        return opened;
+    }
+
+    @Override
+    public void closeWindow(UUID userId) {
+        redissonClient.getBucket(WINDOW_PREFIX + userId, StringCodec.INSTANCE).delete();
+    }
+
+    @Override
+    public Pending pending(UUID userId) {
+        List<String> entries = redissonClient.<String>getList(PENDING_PREFIX + userId, StringCodec.INSTANCE).readAll();
+        Map<String, NotificationJob> events = new LinkedHashMap<>();
+        for (String entry : entries) {
+            try {
+                NotificationJob event = objectMapper.readValue(entry, NotificationJob.class);
+                events.putIfAbsent(event.eventId(), event);
+            } catch (JsonProcessingException e) {
+                log.error("Dropping unreadable notification for user: {}", userId, e);
+            }
+        }
+        return new Pending(new ArrayList<>(events.values()), entries.size());
+    }
+
+    @Override
+    public boolean trim(UUID userId, int count) {
+        Long reopened = redissonClient.getScript(StringCodec.INSTANCE).eval(RScript.Mode.READ_WRITE, TRIM_SCRIPT,
+                RScript.ReturnType.INTEGER, keys(userId), String.valueOf(count), ttlMs());
+        return reopened != null && reopened == 1L;
+    }
+
+    private static List<Object> keys(UUID userId) {
+        return List.of(PENDING_PREFIX + userId, WINDOW_PREFIX + userId);
+    }
+
+    private String ttlMs() {
+        return String.valueOf(window.multipliedBy(2).toMillis());
+    }
+}
@@ -0,0 +1,34 @@
+package blog.sammi.lab.notes.infrastructure.persistence;
+
+import blog.sammi.lab.notes.domain.entity.OutboxJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface JpaOutboxJobRepository extends JpaRepository<OutboxJob, UUID> {
+
+    @Query(value = """
+            SELECT * FROM job_outbox
+            WHERE sent_at IS NULL AND parked_at IS NULL
+            ORDER BY attempts, created_at
+            LIMIT :limit
+            FOR UPDATE SKIP LOCKED
+            """, nativeQuery = true)
+    List<OutboxJob> lockPending(@Param("limit") int limit);
+
+    @Modifying
+    @Query("UPDATE OutboxJob o SET o.sentAt = :sentAt WHERE o.id IN :ids")
+    int markSent(@Param("ids") Collection<UUID> ids, @Param("sentAt") LocalDateTime sentAt);
+
+    @Modifying
+    @Query("DELETE FROM OutboxJob o WHERE o.sentAt < :cutoff")
+    int deleteSentBefore(@Param("cutoff") LocalDateTime cutoff);
+}
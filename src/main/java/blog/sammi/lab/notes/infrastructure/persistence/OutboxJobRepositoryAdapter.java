@@ -0,0 +1,37 @@
+package blog.sammi.lab.notes.infrastructure.persistence;
+
+import blog.sammi.lab.notes.domain.entity.OutboxJob;
+import blog.sammi.lab.notes.domain.repository.OutboxJobRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Component
+@RequiredArgsConstructor
+public class OutboxJobRepositoryAdapter implements OutboxJobRepository {
+    private final JpaOutboxJobRepository jpaOutboxJobRepository;
+
+    @Override
+    public OutboxJob save(OutboxJob job) {
+        return jpaOutboxJobRepository.save(job);
+    }
+
+    @Override
+    public List<OutboxJob> lockPending(int limit) {
+        return jpaOutboxJobRepository.lockPending(limit);
+    }
+
+    @Override
+    public int markSent(Collection<UUID> ids, LocalDateTime sentAt) {
+        return jpaOutboxJobRepository.markSent(ids, sentAt);
+    }
+
+    @Override
+    public int deleteSentBefore(LocalDateTime cutoff) {
+        return jpaOutboxJobRepository.deleteSentBefore(cutoff);
+    }
+}
@@ -5,6 +5,8 @@ import blog.sammi.lab.notes.domain.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -18,6 +20,11 @@ public class UserRepositoryAdapter implements UserRepository {
         return jpaUserRepository.findByEmail(email);
     }
 
+    @Override
+    public List<User> findByEmailIn(Collection<String> emails) {
+        return jpaUserRepository.findByEmailIn(emails);
+    }
+
     @Override
     public Optional<User> findByUsername(String username) {
         return jpaUserRepository.findByUsername(username);
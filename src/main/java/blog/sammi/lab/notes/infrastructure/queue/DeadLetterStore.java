@@ -0,0 +1,11 @@
+package blog.sammi.lab.notes.infrastructure.queue;
+
+import java.util.List;
+
+// Where JobExecutor writes dead letters: the dead_letter list in Valkey, or the journal of the embedded backend
+public interface DeadLetterStore {
+
+    void addAll(List<byte[]> jobs);
+
+    long size();
+}
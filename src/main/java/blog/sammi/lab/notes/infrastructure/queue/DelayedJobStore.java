@@ -0,0 +1,15 @@
+package blog.sammi.lab.notes.infrastructure.queue;
+
+import java.time.Duration;
+import java.util.List;
+
+// Where retries and delayed jobs wait until due: retry:<queue> in Valkey, or the journal of the embedded backend
+public interface DelayedJobStore {
+
+    void offerAll(String queueName, List<Delayed> jobs);
+
+    // Jobs not yet due
+    long size(String queueName);
+
+    record Delayed(byte[] job, Duration delay) {}
+}
@@ -0,0 +1,179 @@
+package blog.sammi.lab.notes.infrastructure.queue;
+
+import blog.sammi.lab.notes.domain.service.DeadLetterQueue;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongConsumer;
+
+/**
+ * Dead letters of the embedded backend, kept in its journal (see {@link EmbeddedQueueService}). The cursor is
+ * the journal sequence of the next entry, so it stays valid while a replay or purge removes entries.
+ * Replayed jobs are appended straight to their origin queue; only one replay or purge runs at a time.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.queue", name = "backend", havingValue = "embedded")
+@Slf4j
+public class EmbeddedDeadLetterQueue implements DeadLetterQueue, DeadLetterStore {
+
+    private static final String FALLBACK_QUEUE = "default";
+    private static final int PURGE_BATCH_SIZE = 500;
+    // Upper bound on entries read per browse request when the filter is selective
+    private static final int MAX_SCAN_PER_PAGE = 20000;
+
+    private final EmbeddedQueueService embeddedQueueService;
+    private final JobCodec jobCodec;
+    private final int replayBatchSize;
+    private final long replayIntervalMs;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    public EmbeddedDeadLetterQueue(
+            EmbeddedQueueService embeddedQueueService,
+            JobCodec jobCodec,
+            @Value("${app.queue.dead-letter.replay-batch-size:200}") int replayBatchSize,
+            @Value("${app.queue.dead-letter.replay-interval-ms:1000}") long replayIntervalMs) {
+        this.embeddedQueueService = embeddedQueueService;
+        this.jobCodec = jobCodec;
+        this.replayBatchSize = replayBatchSize;
+        this.replayIntervalMs = replayIntervalMs;
+    }
+
+    @Override
+    public void addAll(List<byte[]> jobs) {
+        try {
+            embeddedQueueService.appendDeadLetters(jobs);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to append dead letters to the queue journal", e);
+        }
+    }
+
+    @Override
+    public long size() {
+        return embeddedQueueService.deadLetters().size();
+    }
+
+    @Override
+    public Page browse(Filter filter, long cursor, int limit) {
+        List<Entry> entries = new ArrayList<>(limit);
+        int scanned = 0;
+        Long next = null;
+        for (Map.Entry<Long, MappedJournal.Entry> deadLetter : embeddedQueueService.deadLetters().tailMap(cursor, true).entrySet()) {
+            if (entries.size() == limit || scanned == MAX_SCAN_PER_PAGE) {
+                next = deadLetter.getKey();
+                break;
+            }
+            scanned++;
+            QueueJob job = parse(deadLetter.getValue().job());
+            if (job != null && filter.matches(toEntry(job))) {
+                entries.add(toEntry(job));
+            }
+        }
+        return new Page(entries, next);
+    }
+
+    @Override
+    public long replay(Filter filter, LongConsumer progress) {
+        return removeMatching(filter, replayBatchSize, replayIntervalMs, progress, true);
+    }
+
+    @Override
+    public long purge(Filter filter) {
+        return removeMatching(filter, PURGE_BATCH_SIZE, 0, removed -> {}, false);
+    }
+
+    private long removeMatching(Filter filter, int batchSize, long pauseMs, LongConsumer progress, boolean replay) {
+        if (!lock.tryLock()) {
+            throw new IllegalStateException("Another dead letter replay or purge is running");
+        }
+        try {
+            List<EmbeddedQueueService.DeadLetterRemoval> pending = new ArrayList<>(batchSize);
+            long removed = 0;
+            // Only what was dead-lettered before the run started: a replayed job that fails straight away is
+            // dead-lettered again under a higher sequence and must not be replayed again in the same run
+            NavigableMap<Long, MappedJournal.Entry> deadLetters = embeddedQueueService.deadLetters();
+            Map.Entry<Long, MappedJournal.Entry> last = deadLetters.lastEntry();
+            Collection<MappedJournal.Entry> atStart = last == null ? List.of() : deadLetters.headMap(last.getKey(), true).values();
+            for (MappedJournal.Entry deadLetter : atStart) {
+                QueueJob job = parse(deadLetter.job());
+                if (job == null || !filter.matches(toEntry(job))) {
+                    continue;
+                }
+                String queueName = job.getQueueName() != null ? job.getQueueName() : FALLBACK_QUEUE;
+                pending.add(new EmbeddedQueueService.DeadLetterRemoval(deadLetter, queueName, replay ? toReplayJob(job) : null));
+                if (pending.size() == batchSize) {
+                    removed += flush(pending);
+                    progress.accept(removed);
+                    pause(pauseMs);
+                }
+            }
+            removed += flush(pending);
+            progress.accept(removed);
+            log.info("Dead letter {} finished: {} entries", replay ? "replay" : "purge", removed);
+            return removed;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int flush(List<EmbeddedQueueService.DeadLetterRemoval> removals) {
+        if (removals.isEmpty()) {
+            return 0;
+        }
+        try {
+            embeddedQueueService.removeDeadLetters(removals);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to update dead letters in the queue journal", e);
+        }
+        int flushed = removals.size();
+        removals.clear();
+        return flushed;
+    }
+
+    // A replayed job starts over with a fresh retry count
+    private byte[] toReplayJob(QueueJob job) {
+        job.setRetryCount(0);
+        job.setErrorMessage(null);
+        job.setFailedAt(null);
+        job.setScheduledAt(LocalDateTime.now());
+        return jobCodec.encode(job);
+    }
+
+    private static Entry toEntry(QueueJob job) {
+        return new Entry(job.getId(), job.getJobType(), job.getQueueName(), job.getErrorMessage(),
+                job.getRetryCount(), job.getCreatedAt(),
+                job.getFailedAt() != null ? job.getFailedAt() : job.getCreatedAt());
+    }
+
+    private QueueJob parse(byte[] encoded) {
+        try {
+            return jobCodec.decode(encoded);
+        } catch (Exception e) {
+            log.debug("Skipping unreadable dead letter entry", e);
+            return null;
+        }
+    }
+
+    private static void pause(long pauseMs) {
+        if (pauseMs <= 0) {
+            return;
+        }
+        try {
+            TimeUnit.MILLISECONDS.sleep(pauseMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while replaying dead letters", e);
+        }
+    }
+}
@@ -0,0 +1,508 @@
+package blog.sammi.lab.notes.infrastructure.queue;
+
+import blog.sammi.lab.notes.domain.job.JobPayload;
+import blog.sammi.lab.notes.domain.service.QueueService;
+import blog.sammi.lab.notes.infrastructure.config.StructuredLogger;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Embedded backend: an in-process queue for single-node deployments and local load tests, with no Valkey
+ * round trip on enqueue, take or acknowledge. Every job is appended to a {@link MappedJournal} before it
+ * becomes visible and is acknowledged there after processing, so jobs survive a crash and are replayed on
+ * startup (at-least-once). Delayed jobs and retries wait in a {@link TimingWheel}. Ready jobs are held on
+ * the heap; the journal is only read back during recovery.
+ * <p>
+ * Dead letters ({@link EmbeddedDeadLetterQueue}) and dedup claims are journal entries too, under reserved
+ * queue names, so this backend needs no Valkey. A dedup claim's due time is its expiry; releasing or
+ * replacing it acknowledges the entry. The journal directory belongs to one process; it is locked while open.
+ */
+@Service
+@ConditionalOnProperty(prefix = "app.queue", name = "backend", havingValue = "embedded")
+@Slf4j
+public class EmbeddedQueueService implements QueueService, QueueDepthProbe, DelayedJobStore, JobDeduplicator {
+
+    private static final int WHEEL_SIZE = 512;
+    // Reserved queue names; no worker queue may use them
+    private static final String DEAD_LETTERS = "dead_letter";
+    private static final String DEDUP_PREFIX = "dedup:";
+    // Jobs whose processing or acknowledgement failed wait this long before they are delivered again
+    private static final long REDELIVERY_DELAY_MS = 1000;
+
+    private final JobCodec jobCodec;
+    private final StructuredLogger structuredLogger;
+    private final MappedJournal journal;
+    private final TimingWheel<MappedJournal.Entry> timingWheel;
+    private final long compactIntervalMs;
+
+    // Journal appends are short but may fault in a page; a lock instead of synchronized keeps virtual threads unpinned
+    private final ReentrantLock journalLock = new ReentrantLock();
+    private final Map<String, LinkedBlockingDeque<MappedJournal.Entry>> readyByQueue = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> delayedByQueue = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> inFlightByQueue = new ConcurrentHashMap<>();
+    // Dead letters by sequence, i.e. in the order they failed
+    private final NavigableMap<Long, MappedJournal.Entry> deadLetters = new ConcurrentSkipListMap<>();
+    // Guarded by journalLock
+    private final Map<String, MappedJournal.Entry> dedupClaims = new HashMap<>();
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private Thread ticker;
+    private ScheduledExecutorService compactor;
+
+    public EmbeddedQueueService(
+            JobCodec jobCodec,
+            StructuredLogger structuredLogger,
+            @Value("${app.queue.embedded.directory:./data/queue-journal}") String directory,
+            @Value("${app.queue.embedded.segment-size-mb:64}") int segmentSizeMb,
+            @Value("${app.queue.embedded.sync:false}") boolean sync,
+            @Value("${app.queue.embedded.tick-ms:10}") long tickMs,
+            @Value("${app.queue.embedded.compact-interval-ms:30000}") long compactIntervalMs,
+            @Value("${app.queue.embedded.compact-live-ratio:0.25}") double compactLiveRatio) {
+        this.jobCodec = jobCodec;
+        this.structuredLogger = structuredLogger;
+        this.journal = new MappedJournal(Path.of(directory), segmentSizeMb * 1024 * 1024, sync, compactLiveRatio);
+        this.timingWheel = new TimingWheel<>(tickMs, WHEEL_SIZE, System.currentTimeMillis());
+        this.compactIntervalMs = compactIntervalMs;
+    }
+
+    // Replays the journal before any bean can enqueue; jobs that were in flight at the crash run again
+    @PostConstruct
+    public void open() throws IOException {
+        long now = System.currentTimeMillis();
+        int recovered = 0;
+        journalLock.lock();
+        try {
+            for (MappedJournal.Entry entry : journal.open()) {
+                deliver(entry, now);
+                recovered++;
+            }
+        } finally {
+            journalLock.unlock();
+        }
+        if (recovered > 0) {
+            log.info("Recovered {} jobs from the queue journal", recovered);
+        }
+
+        running.set(true);
+        ticker = Thread.ofVirtual().name("queue-timing-wheel").start(this::tick);
+        compactor = Executors.newSingleThreadScheduledExecutor(Thread.ofVirtual().name("queue-journal-compactor").factory());
+        compactor.scheduleWithFixedDelay(this::compact, compactIntervalMs, compactIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void enqueue(String queueName, JobPayload payload) {
+        try {
+            QueueJob job = new QueueJob(payload);
+            append(queueName, List.of(jobCodec.encode(job)), System.currentTimeMillis());
+
+            structuredLogger.business("JOB_ENQUEUED", "SUCCESS")
+                    .with("queueName", queueName)
+                    .with("jobType", job.getJobType())
+                    .with("jobId", job.getId())
+                    .log();
+
+            log.info("Job enqueued: {} to queue: {}", job.getId(), queueName);
+
+        } catch (Exception e) {
+            structuredLogger.error("JOB_ENQUEUE", e)
+                    .with("queueName", queueName)
+                    .with("jobType", payload.jobType())
+                    .log();
+            throw new RuntimeException("Failed to enqueue job", e);
+        }
+    }
+
+    @Override
+    public void enqueue(String queueName, JobPayload payload, long delaySeconds) {
+        try {
+            QueueJob job = new QueueJob(payload);
+            job.setScheduledAt(job.getScheduledAt().plusSeconds(delaySeconds));
+            append(queueName, List.of(jobCodec.encode(job)), System.currentTimeMillis() + delaySeconds * 1000);
+
+            structuredLogger.business("JOB_SCHEDULED", "SUCCESS")
+                    .with("queueName", queueName)
+                    .with("jobType", job.getJobType())
+                    .with("jobId", job.getId())
+                    .with("delaySeconds", delaySeconds)
+                    .log();
+
+            log.info("Job scheduled: {} to queue: {} with delay: {}s", job.getId(), queueName, delaySeconds);
+
+        } catch (Exception e) {
+            structuredLogger.error("JOB_SCHEDULE", e)
+                    .with("queueName", queueName)
+                    .with("jobType", payload.jobType())
+                    .with("delaySeconds", delaySeconds)
+                    .log();
+            throw new RuntimeException("Failed to schedule job", e);
+        }
+    }
+
+    @Override
+    public boolean enqueue(String queueName, JobPayload payload, String dedupKey, Duration window) {
+        String token = claim(dedupKey, window);
+        if (token == null) {
+            structuredLogger.business("JOB_DEDUPLICATED", "SKIPPED")
+                    .with("queueName", queueName)
+                    .with("jobType", payload.jobType())
+                    .with("dedupKey", dedupKey)
+                    .log();
+            return false;
+        }
+        try {
+            enqueueClaimed(queueName, payload, 0, dedupKey, token);
+            return true;
+        } catch (RuntimeException e) {
+            release(dedupKey, token);
+            throw e;
+        }
+    }
+
+    @Override
+    public void enqueueClaimed(String queueName, JobPayload payload, long delaySeconds, String dedupKey, String dedupToken) {
+        try {
+            QueueJob job = new QueueJob(payload);
+            job.setScheduledAt(job.getScheduledAt().plusSeconds(delaySeconds));
+            job.setDedupKey(dedupKey);
+            job.setDedupToken(dedupToken);
+            append(queueName, List.of(jobCodec.encode(job)), System.currentTimeMillis() + delaySeconds * 1000);
+
+            structuredLogger.business("JOB_ENQUEUED", "SUCCESS")
+                    .with("queueName", queueName)
+                    .with("jobType", job.getJobType())
+                    .with("jobId", job.getId())
+                    .with("dedupKey", dedupKey)
+                    .with("delaySeconds", delaySeconds)
+                    .log();
+
+            log.info("Job enqueued: {} to queue: {} with dedup key: {}", job.getId(), queueName, dedupKey);
+
+        } catch (Exception e) {
+            structuredLogger.error("JOB_ENQUEUE", e)
+                    .with("queueName", queueName)
+                    .with("jobType", payload.jobType())
+                    .with("dedupKey", dedupKey)
+                    .log();
+            throw new RuntimeException("Failed to enqueue job", e);
+        }
+    }
+
+    // One lock acquisition for the whole batch
+    @Override
+    public void enqueueAll(String queueName, List<? extends JobPayload> payloads) {
+        if (payloads.isEmpty()) {
+            return;
+        }
+        try {
+            List<byte[]> jobs = new ArrayList<>(payloads.size());
+            for (JobPayload payload : payloads) {
+                jobs.add(jobCodec.encode(new QueueJob(payload)));
+            }
+            append(queueName, jobs, System.currentTimeMillis());
+
+            structuredLogger.business("JOBS_ENQUEUED", "SUCCESS")
+                    .with("queueName", queueName)
+                    .with("count", jobs.size())
+                    .log();
+
+            log.info("{} jobs enqueued to queue: {}", jobs.size(), queueName);
+
+        } catch (Exception e) {
+            structuredLogger.error("JOB_ENQUEUE", e)
+                    .with("queueName", queueName)
+                    .with("count", payloads.size())
+                    .log();
+            throw new RuntimeException("Failed to enqueue jobs", e);
+        }
+    }
+
+    @Override
+    public void scheduleJob(JobPayload payload, long delaySeconds) {
+        enqueue("default", payload, delaySeconds);
+    }
+
+    // Retries from JobExecutor land in the journal like any other delayed job
+    @Override
+    public void offerAll(String queueName, List<Delayed> jobs) {
+        long now = System.currentTimeMillis();
+        journalLock.lock();
+        try {
+            for (Delayed delayed : jobs) {
+                long dueAtMs = now + delayed.delay().toMillis();
+                long sequence = journal.append(queueName, dueAtMs, delayed.job());
+                deliver(new MappedJournal.Entry(sequence, queueName, dueAtMs, delayed.job()), now);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to append to the queue journal", e);
+        } finally {
+            journalLock.unlock();
+        }
+    }
+
+    // Like ValkeyJobDeduplicator, a claim that cannot be written counts as successful, so jobs are never dropped
+    @Override
+    public String claim(String dedupKey, Duration window) {
+        String token = UUID.randomUUID().toString();
+        long now = System.currentTimeMillis();
+        journalLock.lock();
+        try {
+            MappedJournal.Entry held = dedupClaims.get(dedupKey);
+            if (held != null && held.dueAtMs() > now) {
+                return null;
+            }
+            if (held != null) {
+                journal.ack(held.sequence());
+                dedupClaims.remove(dedupKey);
+            }
+            byte[] value = token.getBytes(StandardCharsets.UTF_8);
+            long expiresAtMs = now + window.toMillis();
+            long sequence = journal.append(DEDUP_PREFIX + dedupKey, expiresAtMs, value);
+            dedupClaims.put(dedupKey, new MappedJournal.Entry(sequence, DEDUP_PREFIX + dedupKey, expiresAtMs, value));
+            return token;
+        } catch (IOException e) {
+            log.warn("Dedup key unavailable, enqueueing without it: {}", dedupKey, e);
+            return token;
+        } finally {
+            journalLock.unlock();
+        }
+    }
+
+    @Override
+    public void release(String dedupKey, String token) {
+        journalLock.lock();
+        try {
+            MappedJournal.Entry held = dedupClaims.get(dedupKey);
+            if (held != null && token.equals(new String(held.job(), StandardCharsets.UTF_8))) {
+                journal.ack(held.sequence());
+                dedupClaims.remove(dedupKey);
+            }
+        } catch (IOException e) {
+            log.warn("Failed to release dedup key: {}", dedupKey, e);
+        } finally {
+            journalLock.unlock();
+        }
+    }
+
+    @Override
+    public long size(String queueName) {
+        return counter(delayedByQueue, queueName).get();
+    }
+
+    @Override
+    public Snapshot sample(String queueName) {
+        MappedJournal.Entry head = ready(queueName).peekFirst();
+        return new Snapshot(ready(queueName).size(), counter(inFlightByQueue, queueName).get(),
+                head != null ? head.dueAtMs() : 0);
+    }
+
+    MappedJournal.Entry take(String queueName, long timeoutMs) throws InterruptedException {
+        MappedJournal.Entry entry = ready(queueName).pollFirst(timeoutMs, TimeUnit.MILLISECONDS);
+        if (entry != null) {
+            counter(inFlightByQueue, queueName).incrementAndGet();
+        }
+        return entry;
+    }
+
+    List<MappedJournal.Entry> takeBatch(String queueName, int max, long timeoutMs) throws InterruptedException {
+        MappedJournal.Entry first = take(queueName, timeoutMs);
+        if (first == null) {
+            return List.of();
+        }
+        List<MappedJournal.Entry> entries = new ArrayList<>(max);
+        entries.add(first);
+        int more = ready(queueName).drainTo(entries, max - 1);
+        counter(inFlightByQueue, queueName).addAndGet(more);
+        return entries;
+    }
+
+    // Puts jobs whose processing or acknowledgement failed back in line after a pause. Entries acknowledged
+    // meanwhile are skipped; the rest are also replayed on the next start if this node stops first.
+    void redeliver(String queueName, List<MappedJournal.Entry> entries) {
+        long dueAtMs = System.currentTimeMillis() + REDELIVERY_DELAY_MS;
+        journalLock.lock();
+        try {
+            for (MappedJournal.Entry entry : entries) {
+                if (journal.isLive(entry.sequence())) {
+                    counter(delayedByQueue, queueName).incrementAndGet();
+                    timingWheel.schedule(entry, dueAtMs);
+                }
+            }
+        } finally {
+            journalLock.unlock();
+        }
+        counter(inFlightByQueue, queueName).addAndGet(-entries.size());
+    }
+
+    void appendDeadLetters(List<byte[]> jobs) throws IOException {
+        append(DEAD_LETTERS, jobs, System.currentTimeMillis());
+    }
+
+    // Read-only view, safe to iterate while dead letters are added or removed
+    NavigableMap<Long, MappedJournal.Entry> deadLetters() {
+        return Collections.unmodifiableNavigableMap(deadLetters);
+    }
+
+    // Each replayed job is appended to its queue before its dead letter is acknowledged, so a crash in
+    // between replays it twice rather than losing it. A null job purges the dead letter.
+    void removeDeadLetters(List<DeadLetterRemoval> removals) throws IOException {
+        long now = System.currentTimeMillis();
+        journalLock.lock();
+        try {
+            for (DeadLetterRemoval removal : removals) {
+                if (removal.job() != null) {
+                    long sequence = journal.append(removal.queueName(), now, removal.job());
+                    deliver(new MappedJournal.Entry(sequence, removal.queueName(), now, removal.job()), now);
+                }
+                journal.ack(removal.deadLetter().sequence());
+                deadLetters.remove(removal.deadLetter().sequence());
+            }
+        } finally {
+            journalLock.unlock();
+        }
+    }
+
+    record DeadLetterRemoval(MappedJournal.Entry deadLetter, String queueName, byte[] job) {}
+
+    void ackAll(String queueName, List<MappedJournal.Entry> entries) throws IOException {
+        journalLock.lock();
+        try {
+            for (MappedJournal.Entry entry : entries) {
+                journal.ack(entry.sequence());
+            }
+        } finally {
+            journalLock.unlock();
+        }
+        counter(inFlightByQueue, queueName).addAndGet(-entries.size());
+    }
+
+    private void append(String queueName, List<byte[]> jobs, long dueAtMs) throws IOException {
+        long now = System.currentTimeMillis();
+        journalLock.lock();
+        try {
+            for (byte[] job : jobs) {
+                long sequence = journal.append(queueName, dueAtMs, job);
+                deliver(new MappedJournal.Entry(sequence, queueName, dueAtMs, job), now);
+            }
+        } finally {
+            journalLock.unlock();
+        }
+    }
+
+    // Called with the journal lock held, so entries reach their queue in journal order
+    private void deliver(MappedJournal.Entry entry, long now) throws IOException {
+        if (entry.queueName().equals(DEAD_LETTERS)) {
+            deadLetters.put(entry.sequence(), entry);
+        } else if (entry.queueName().startsWith(DEDUP_PREFIX)) {
+            // Only replay sees an older claim for the same key or an expired one
+            MappedJournal.Entry previous = dedupClaims.put(entry.queueName().substring(DEDUP_PREFIX.length()), entry);
+            if (previous != null) {
+                journal.ack(previous.sequence());
+            }
+        } else if (entry.dueAtMs() <= now) {
+            ready(entry.queueName()).offerLast(entry);
+        } else {
+            counter(delayedByQueue, entry.queueName()).incrementAndGet();
+            timingWheel.schedule(entry, entry.dueAtMs());
+        }
+    }
+
+    private void tick() {
+        long tickMs = timingWheel.tickMs();
+        while (running.get()) {
+            try {
+                Thread.sleep(tickMs);
+                timingWheel.advance(System.currentTimeMillis(), entry -> {
+                    counter(delayedByQueue, entry.queueName()).decrementAndGet();
+                    ready(entry.queueName()).offerLast(entry);
+                });
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("Error advancing the queue timing wheel", e);
+            }
+        }
+    }
+
+    private void compact() {
+        journalLock.lock();
+        try {
+            expireDedupClaims(System.currentTimeMillis());
+            int removed = journal.compact();
+            if (removed > 0) {
+                log.info("Compacted queue journal: {} segment(s) removed, {} left", removed, journal.segmentCount());
+            }
+        } catch (Exception e) {
+            log.error("Failed to compact the queue journal", e);
+        } finally {
+            journalLock.unlock();
+        }
+    }
+
+    // Acknowledges claims past their window so their segments can be compacted
+    private void expireDedupClaims(long now) throws IOException {
+        Iterator<MappedJournal.Entry> claims = dedupClaims.values().iterator();
+        while (claims.hasNext()) {
+            MappedJournal.Entry claim = claims.next();
+            if (claim.dueAtMs() <= now) {
+                journal.ack(claim.sequence());
+                claims.remove();
+            }
+        }
+    }
+
+    private LinkedBlockingDeque<MappedJournal.Entry> ready(String queueName) {
+        return readyByQueue.computeIfAbsent(queueName, name -> new LinkedBlockingDeque<>());
+    }
+
+    private static AtomicLong counter(Map<String, AtomicLong> counters, String queueName) {
+        return counters.computeIfAbsent(queueName, name -> new AtomicLong());
+    }
+
+    // Runs after EmbeddedQueueWorker has stopped; unacknowledged jobs stay in the journal for the next start
+    @PreDestroy
+    public void close() {
+        if (running.compareAndSet(true, false)) {
+            if (compactor != null) {
+                compactor.shutdownNow();
+            }
+            if (ticker != null) {
+                ticker.interrupt();
+            }
+            journalLock.lock();
+            try {
+                journal.close();
+            } catch (IOException e) {
+                log.error("Failed to close the queue journal", e);
+            } finally {
+                journalLock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package blog.sammi.lab.notes.infrastructure.queue;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Embedded backend: in-process queues over a memory-mapped journal, see EmbeddedQueueService
+@Component
+@ConditionalOnProperty(prefix = "app.queue", name = "backend", havingValue = "embedded")
+@RequiredArgsConstructor
+@Slf4j
+public class EmbeddedQueueWorker {
+
+    private final JobExecutor jobExecutor;
+    private final EmbeddedQueueService embeddedQueueService;
+
+    // Comma-separated queue:concurrency pairs, e.g. "default:1,email:4"
+    @Value("${app.queue.workers:default:1,email:2,notifications:1}")
+    private String workers;
+
+    // Queues listed here (queue:size) take and acknowledge jobs in batches of up to `size`
+    @Value("${app.queue.batch-sizes:}")
+    private String batchSizes;
+
+    @Value("${app.queue.poll-timeout-ms:2000}")
+    private long pollTimeoutMs;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private ExecutorService executorService;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startWorkers() {
+        if (running.compareAndSet(false, true)) {
+            executorService = Executors.newVirtualThreadPerTaskExecutor();
+
+            Map<String, Integer> concurrencyByQueue = QueueWorker.parseWorkers(workers);
+            Map<String, Integer> batchSizeByQueue = QueueWorker.parseWorkers(batchSizes);
+            concurrencyByQueue.forEach((queueName, concurrency) -> {
+                int batchSize = batchSizeByQueue.getOrDefault(queueName, 1);
+                executorService.submit(() -> processQueue(queueName, concurrency, batchSize));
+            });
+
+            log.info("Embedded queue workers started: {}", concurrencyByQueue);
+        }
+    }
+
+    // Each permit covers one take (a single job, or a batch that JobExecutor runs concurrently)
+    private void processQueue(String queueName, int concurrency, int batchSize) {
+        Semaphore permits = new Semaphore(concurrency);
+
+        while (running.get()) {
+            try {
+                permits.acquire();
+                List<MappedJournal.Entry> entries = batchSize > 1
+                        ? embeddedQueueService.takeBatch(queueName, batchSize, pollTimeoutMs)
+                        : single(embeddedQueueService.take(queueName, pollTimeoutMs));
+                if (entries.isEmpty()) {
+                    permits.release();
+                    continue;
+                }
+                try {
+                    executorService.submit(() -> {
+                        try {
+                            if (entries.size() == 1) {
+                                jobExecutor.execute(entries.get(0).job(), queueName);
+                            } else {
+                                jobExecutor.executeBatch(entries.stream().map(MappedJournal.Entry::job).toList(), queueName);
+                            }
+                            embeddedQueueService.ackAll(queueName, entries);
+                        } catch (Exception e) {
+                            // Still live in the journal: delivered again after a pause
+                            log.error("Failed to process or acknowledge {} job(s) on queue: {}, redelivering",
+                                    entries.size(), queueName, e);
+                            embeddedQueueService.redeliver(queueName, entries);
+                        } finally {
+                            permits.release();
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    // Shutting down: the jobs stay unacknowledged in the journal
+                    permits.release();
+                    break;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                permits.release();
+                log.error("Error processing queue: {}", queueName, e);
+            }
+        }
+    }
+
+    private static List<MappedJournal.Entry> single(MappedJournal.Entry entry) {
+        return entry == null ? List.of() : List.of(entry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (running.compareAndSet(true, false)) {
+            log.info("Shutting down embedded queue workers...");
+
+            if (executorService != null) {
+                executorService.shutdown();
+                try {
+                    if (!executorService.awaitTermination(30, TimeUnit.SECONDS)) {
+                        executorService.shutdownNow();
+                    }
+                } catch (InterruptedException e) {
+                    executorService.shutdownNow();
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+            log.info("Embedded queue workers shut down completed");
+        }
+    }
+}
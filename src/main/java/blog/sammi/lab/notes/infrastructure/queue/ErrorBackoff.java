@@ -0,0 +1,33 @@
+package blog.sammi.lab.notes.infrastructure.queue;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Pause between attempts of a polling loop whose calls keep failing, e.g. while Valkey is down:
+ * jittered exponential from 100ms up to 5s, reset by the first call that succeeds. Keeps an outage
+ * from turning the loop into a busy spin that floods the log. One instance per loop thread.
+ */
+final class ErrorBackoff {
+
+    private static final long INITIAL_MS = 100;
+    private static final long MAX_MS = 5000;
+
+    private long nextMs = INITIAL_MS;
+
+    void reset() {
+        nextMs = INITIAL_MS;
+    }
+
+    // False when interrupted while waiting; the interrupt flag is restored for the caller
+    boolean pause() {
+        long delayMs = ThreadLocalRandom.current().nextLong(nextMs / 2, nextMs + 1);
+        nextMs = Math.min(MAX_MS, nextMs * 2);
+        try {
+            Thread.sleep(delayMs);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,269 @@
+package blog.sammi.lab.notes.infrastructure.queue;
+
+import blog.sammi.lab.notes.domain.job.JobPayload;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * Wire format of queued jobs: a 4-byte header ({@code 'Q' 'J' <version> <format>}) followed by the job
+ * encoded with the format selected by {@code app.queue.codec} (smile, cbor or json). Metadata is written
+ * field by field and the payload is decoded straight into the record registered for the job type, so
+ * no intermediate map or tree is built.
+ * <p>
+ * Every node reads every format and every version up to {@link #VERSION}. For a rolling upgrade, ship
+ * the reader first and switch {@code app.queue.codec} (or bump the version) once all nodes run it.
+ * Entries written before the header existed (plain JSON, or a JSON string in Redisson's default codec)
+ * are still decoded. The codec needs no Valkey connection.
+ * <p>
+ * All formats use camelCase field names, whatever naming strategy the application's mapper has, so a payload
+ * kept raw by one node binds the same way on every other.
+ */
+@Component
+public class JobCodec {
+
+    static final byte VERSION = 1;
+
+    private static final byte MAGIC_0 = 'Q';
+    private static final byte MAGIC_1 = 'J';
+    private static final int HEADER_LENGTH = 4;
+    // Redisson's codecs put a few bytes (type tag, length) in front of a string; the JSON starts within these
+    private static final int LEGACY_PREFIX_LIMIT = 16;
+
+    private final JobRegistry jobRegistry;
+    private final Format format;
+    private final ObjectMapper jsonMapper;
+    private final ObjectMapper smileMapper;
+    private final ObjectMapper cborMapper;
+
+    public JobCodec(
+            JobRegistry jobRegistry,
+            @Value("${app.queue.codec:smile}") String format) {
+        this.jobRegistry = jobRegistry;
+        this.format = Format.valueOf(format.toUpperCase());
+        this.jsonMapper = configure(new ObjectMapper());
+        this.smileMapper = configure(new SmileMapper());
+        this.cborMapper = configure(new CBORMapper());
+    }
+
+    public byte[] encode(QueueJob job) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+        out.write(MAGIC_0);
+        out.write(MAGIC_1);
+        out.write(VERSION);
+        out.write(format.id);
+
+        ObjectMapper mapper = mapperFor(format);
+        try (JsonGenerator generator = mapper.createGenerator(out)) {
+            generator.writeStartObject();
+            generator.writeStringField("id", job.getId());
+            generator.writeStringField("jobType", job.getJobType());
+            generator.writeNumberField("retryCount", job.getRetryCount());
+            generator.writeNumberField("maxRetries", job.getMaxRetries());
+            writeTime(generator, "createdAt", job.getCreatedAt());
+            writeTime(generator, "scheduledAt", job.getScheduledAt());
+            if (job.getErrorMessage() != null) {
+                generator.writeStringField("errorMessage", job.getErrorMessage());
+            }
+            if (job.getQueueName() != null) {
+                generator.writeStringField("queueName", job.getQueueName());
+            }
+            writeTime(generator, "failedAt", job.getFailedAt());
+            if (job.getDedupKey() != null) {
+                generator.writeStringField("dedupKey", job.getDedupKey());
+                generator.writeStringField("dedupToken", job.getDedupToken());
+            }
+
+            generator.writeFieldName("payload");
+            if (job.getPayload() != null) {
+                mapper.writeValue(generator, job.getPayload());
+            } else if (job.getRawPayload() != null) {
+                generator.writeTree(job.getRawPayload());
+            } else {
+                generator.writeNull();
+            }
+            generator.writeEndObject();
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to encode job " + job.getId(), e);
+        }
+        return out.toByteArray();
+    }
+
+    public QueueJob decode(byte[] bytes) {
+        try {
+            if (bytes.length >= HEADER_LENGTH && bytes[0] == MAGIC_0 && bytes[1] == MAGIC_1) {
+                if (bytes[2] < 1 || bytes[2] > VERSION) {
+                    throw new IllegalArgumentException("Unsupported job version " + bytes[2]);
+                }
+                return decode(bytes, mapperFor(Format.of(bytes[3])));
+            }
+            return decodeLegacy(bytes);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Unreadable job", e);
+        }
+    }
+
+    // Plain JSON, or a JSON string written by an earlier release through Redisson's default codec (Kryo or
+    // JBoss Marshalling): a short binary prefix followed by the JSON text, read from the first '{' that parses.
+    // A prefix byte can itself be '{' (e.g. a length of 123), hence the retry.
+    private QueueJob decodeLegacy(byte[] bytes) throws IOException {
+        IOException failure = null;
+        for (int offset = 0; offset < Math.min(bytes.length, LEGACY_PREFIX_LIMIT); offset++) {
+            if (bytes[offset] != '{') {
+                continue;
+            }
+            try (JsonParser parser = jsonMapper.getFactory().createParser(bytes, offset, bytes.length - offset)) {
+                JsonNode node = jsonMapper.readTree(parser);
+                if (node != null && node.isObject()) {
+                    return decodeLegacyJson(node);
+                }
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        throw new IllegalArgumentException("Unrecognized job encoding");
+    }
+
+    private QueueJob decode(byte[] bytes, ObjectMapper mapper) throws IOException {
+        QueueJob job = new QueueJob();
+        JsonNode deferredPayload = null;
+
+        try (JsonParser parser = mapper.createParser(bytes, HEADER_LENGTH, bytes.length - HEADER_LENGTH)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IllegalArgumentException("Job is not an object");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+                switch (field) {
+                    case "id" -> job.setId(parser.getValueAsString());
+                    case "jobType" -> job.setJobType(parser.getValueAsString());
+                    case "retryCount" -> job.setRetryCount(parser.getValueAsInt());
+                    case "maxRetries" -> job.setMaxRetries(parser.getValueAsInt());
+                    case "createdAt" -> job.setCreatedAt(readTime(parser));
+                    case "scheduledAt" -> job.setScheduledAt(readTime(parser));
+                    case "errorMessage" -> job.setErrorMessage(parser.getValueAsString());
+                    case "queueName" -> job.setQueueName(parser.getValueAsString());
+                    case "failedAt" -> job.setFailedAt(readTime(parser));
+                    case "dedupKey" -> job.setDedupKey(parser.getValueAsString());
+                    case "dedupToken" -> job.setDedupToken(parser.getValueAsString());
+                    case "payload" -> {
+                        // jobType is written first, so the payload type is normally known by now
+                        Class<? extends JobPayload> type = jobRegistry.payloadType(job.getJobType());
+                        if (type != null) {
+                            job.setPayload(mapper.readValue(parser, type));
+                        } else {
+                            deferredPayload = mapper.readTree(parser);
+                        }
+                    }
+                    default -> parser.skipChildren();
+                }
+            }
+        }
+
+        if (deferredPayload != null) {
+            resolvePayload(job, deferredPayload, mapper);
+        }
+        return job;
+    }
+
+    // Earlier releases wrote QueueJob through the application's mapper (spring.jackson SNAKE_CASE), so metadata
+    // keys are snake_case; the payload was a map, so its keys were written as given (camelCase)
+    private QueueJob decodeLegacyJson(JsonNode node) throws IOException {
+        QueueJob job = new QueueJob();
+        job.setId(legacyField(node, "id", "id").asText(job.getId()));
+        job.setJobType(legacyField(node, "job_type", "jobType").asText(null));
+        job.setRetryCount(legacyField(node, "retry_count", "retryCount").asInt(0));
+        job.setMaxRetries(legacyField(node, "max_retries", "maxRetries").asInt(job.getMaxRetries()));
+        job.setCreatedAt(legacyTime(legacyField(node, "created_at", "createdAt")));
+        job.setScheduledAt(legacyTime(legacyField(node, "scheduled_at", "scheduledAt")));
+        job.setErrorMessage(legacyField(node, "error_message", "errorMessage").asText(null));
+        job.setQueueName(legacyField(node, "queue_name", "queueName").asText(null));
+        job.setFailedAt(legacyTime(legacyField(node, "failed_at", "failedAt")));
+        if (node.hasNonNull("payload")) {
+            resolvePayload(job, node.get("payload"), jsonMapper);
+        }
+        return job;
+    }
+
+    private static JsonNode legacyField(JsonNode node, String snakeCase, String camelCase) {
+        JsonNode value = node.get(snakeCase);
+        return value != null && !value.isNull() ? value : node.path(camelCase);
+    }
+
+    private void resolvePayload(QueueJob job, JsonNode payload, ObjectMapper mapper) throws IOException {
+        Class<? extends JobPayload> type = jobRegistry.payloadType(job.getJobType());
+        if (type != null) {
+            job.setPayload(mapper.treeToValue(payload, type));
+        } else {
+            job.setRawPayload(payload);
+        }
+    }
+
+    private LocalDateTime legacyTime(JsonNode node) {
+        return node.isMissingNode() || node.isNull() ? null : jsonMapper.convertValue(node, LocalDateTime.class);
+    }
+
+    private static void writeTime(JsonGenerator generator, String field, LocalDateTime time) throws IOException {
+        if (time != null) {
+            generator.writeNumberField(field, time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+        }
+    }
+
+    private static LocalDateTime readTime(JsonParser parser) throws IOException {
+        if (parser.currentToken() == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(parser.getLongValue()), ZoneId.systemDefault());
+    }
+
+    private ObjectMapper mapperFor(Format format) {
+        return switch (format) {
+            case JSON -> jsonMapper;
+            case SMILE -> smileMapper;
+            case CBOR -> cborMapper;
+        };
+    }
+
+    private static ObjectMapper configure(ObjectMapper mapper) {
+        return mapper.findAndRegisterModules()
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    }
+
+    private enum Format {
+        JSON(1),
+        SMILE(2),
+        CBOR(3);
+
+        private final byte id;
+
+        Format(int id) {
+            this.id = (byte) id;
+        }
+
+        static Format of(byte id) {
+            for (Format format : values()) {
+                if (format.id == id) {
+                    return format;
+                }
+            }
+            throw new IllegalArgumentException("Unknown job format " + id);
+        }
+    }
+}
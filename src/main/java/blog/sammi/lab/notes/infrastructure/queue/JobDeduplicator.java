@@ -0,0 +1,14 @@
+package blog.sammi.lab.notes.infrastructure.queue;
+
+import java.time.Duration;
+
+// Dedup keys for enqueues, shared by the queue backends and the outbox: dedup:<key> in Valkey
+// (ValkeyJobDeduplicator), or the journal of the embedded backend
+public interface JobDeduplicator {
+
+    // Token to pass to release(), or null when the key is already held within its window
+    String claim(String dedupKey, Duration window);
+
+    // Frees the key once the job it guarded is done or was never enqueued, so the next attempt is not swallowed
+    void release(String dedupKey, String token);
+}
@@ -0,0 +1,335 @@
+package blog.sammi.lab.notes.infrastructure.queue;
+
+import blog.sammi.lab.notes.domain.job.JobPayload;
+import blog.sammi.lab.notes.domain.service.JobProcessor;
+import blog.sammi.lab.notes.domain.service.RetryPolicy;
+import blog.sammi.lab.notes.infrastructure.config.StructuredLogger;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Runs one job through its processor, with retry scheduling and dead-lettering; shared by all queue backends
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class JobExecutor {
+
+    private final DeadLetterStore deadLetterStore;
+    private final JobDeduplicator jobDeduplicator;
+    private final JobCodec jobCodec;
+    private final JobRegistry jobRegistry;
+    private final StructuredLogger structuredLogger;
+    private final RetryScheduler retryScheduler;
+    private final QueueMetrics queueMetrics;
+
+    // Dead letter reason for retries shed by the retry budget; these can be replayed once the downstream recovers
+    private static final String RETRY_SHED = "Retry budget exhausted";
+
+    // Throws when a retry or dead letter cannot be written: the caller must then leave the job
+    // unacknowledged, so the lease reaper, XAUTOCLAIM or journal replay delivers it again
+    public void execute(byte[] encoded, String queueName) {
+        QueueJob job;
+        try {
+            job = jobCodec.decode(encoded);
+        } catch (Exception e) {
+            log.error("Failed to decode job on queue: {}", queueName, e);
+            moveUnreadableToDeadLetter(List.of(encoded));
+            return;
+        }
+
+        JobProcessor<?> processor = jobRegistry.processor(job.getJobType());
+
+        if (processor == null) {
+            log.error("No processor found for job type: {}", job.getJobType());
+            moveToDeadLetter(job, queueName, "No processor found");
+            return;
+        }
+
+        if (job.getRetryCount() == 0) {
+            retryScheduler.recordFirstAttempt(queueName);
+        }
+
+        queueMetrics.recordStart(queueName, job);
+        long startTime = System.currentTimeMillis();
+
+        try {
+            process(processor, job.getPayload());
+
+            long duration = System.currentTimeMillis() - startTime;
+            queueMetrics.recordProcessed(queueName, job.getJobType(), duration, true);
+            structuredLogger.business("JOB_PROCESSED", "SUCCESS")
+                    .with("jobId", job.getId())
+                    .with("jobType", job.getJobType())
+                    .with("queueName", queueName)
+                    .with("duration", duration)
+                    .log();
+
+            log.info("Job processed successfully: {} in {}ms", job.getId(), duration);
+            releaseDedupKey(job);
+
+        } catch (Exception e) {
+            queueMetrics.recordProcessed(queueName, job.getJobType(), System.currentTimeMillis() - startTime, false);
+            handleJobFailure(job, processor, queueName, e);
+        }
+    }
+
+    // Batch mode: a processor that supports batches gets all of its jobs in one processBatch call, the
+    // others run concurrently on virtual threads. Retries and dead letters are written together at the end;
+    // if they cannot be written this throws and the whole batch must stay unacknowledged.
+    public void executeBatch(List<byte[]> encodedJobs, String queueName) {
+        List<PendingRetry> retries = Collections.synchronizedList(new ArrayList<>());
+        List<QueueJob> deadLetters = Collections.synchronizedList(new ArrayList<>());
+        List<byte[]> unreadable = new ArrayList<>();
+        Map<JobProcessor<?>, List<QueueJob>> jobsByProcessor = new LinkedHashMap<>();
+
+        for (byte[] encoded : encodedJobs) {
+            QueueJob job;
+            try {
+                job = jobCodec.decode(encoded);
+            } catch (Exception e) {
+                log.error("Failed to decode job on queue: {}", queueName, e);
+                unreadable.add(encoded);
+                continue;
+            }
+
+            JobProcessor<?> processor = jobRegistry.processor(job.getJobType());
+            if (processor == null) {
+                log.error("No processor found for job type: {}", job.getJobType());
+                job.setErrorMessage("No processor found");
+                deadLetters.add(job);
+                continue;
+            }
+            if (job.getRetryCount() == 0) {
+                retryScheduler.recordFirstAttempt(queueName);
+            }
+            queueMetrics.recordStart(queueName, job);
+            jobsByProcessor.computeIfAbsent(processor, key -> new ArrayList<>()).add(job);
+        }
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            jobsByProcessor.forEach((processor, jobs) -> {
+                if (processor.supportsBatch()) {
+                    executor.submit(() -> runBatch(processor, jobs, queueName, retries, deadLetters));
+                } else {
+                    jobs.forEach(job -> executor.submit(() -> runBatch(processor, List.of(job), queueName, retries, deadLetters)));
+                }
+            });
+        }
+
+        if (!unreadable.isEmpty()) {
+            moveUnreadableToDeadLetter(unreadable);
+        }
+        flushFailures(queueName, retries, deadLetters);
+    }
+
+    private void runBatch(JobProcessor<?> processor, List<QueueJob> jobs, String queueName,
+                          List<PendingRetry> retries, List<QueueJob> deadLetters) {
+        long startTime = System.currentTimeMillis();
+        Map<Integer, Exception> failures;
+        try {
+            failures = processBatch(processor, jobs);
+        } catch (Exception e) {
+            failures = new HashMap<>();
+            for (int i = 0; i < jobs.size(); i++) {
+                failures.put(i, e);
+            }
+        }
+        long duration = System.currentTimeMillis() - startTime;
+
+        for (int i = 0; i < jobs.size(); i++) {
+            QueueJob job = jobs.get(i);
+            Exception failure = failures.get(i);
+            queueMetrics.recordProcessed(queueName, job.getJobType(), duration, failure == null);
+            if (failure == null) {
+                structuredLogger.business("JOB_PROCESSED", "SUCCESS")
+                        .with("jobId", job.getId())
+                        .with("jobType", job.getJobType())
+                        .with("queueName", queueName)
+                        .with("duration", duration)
+                        .with("batchSize", jobs.size())
+                        .log();
+                releaseDedupKey(job);
+                continue;
+            }
+
+            RetryPolicy policy = recordFailure(job, processor, failure);
+            if (!job.canRetry()) {
+                deadLetters.add(job);
+                continue;
+            }
+            try {
+                retries.add(new PendingRetry(job, new RetryScheduler.Retry(jobCodec.encode(job), job.getRetryCount(), policy)));
+            } catch (Exception e) {
+                job.setErrorMessage("Failed to schedule retry: " + e.getMessage());
+                deadLetters.add(job);
+            }
+        }
+        log.info("Processed batch of {} {} jobs in {}ms ({} failed)", jobs.size(), processor.getJobType(), duration, failures.size());
+    }
+
+    // Retries that are shed by the budget or cannot be scheduled are dead-lettered; a failed dead letter
+    // write propagates
+    private void flushFailures(String queueName, List<PendingRetry> retries, List<QueueJob> deadLetters) {
+        if (!retries.isEmpty()) {
+            try {
+                List<RetryScheduler.Retry> shed = retryScheduler.scheduleAll(queueName,
+                        retries.stream().map(PendingRetry::retry).toList());
+                for (PendingRetry retry : retries) {
+                    if (shed.contains(retry.retry())) {
+                        retry.job().setErrorMessage(RETRY_SHED);
+                        deadLetters.add(retry.job());
+                    } else {
+                        queueMetrics.recordRetry(queueName, retry.job().getJobType());
+                    }
+                }
+                if (shed.size() < retries.size()) {
+                    log.warn("Scheduled {} retries on queue: {}", retries.size() - shed.size(), queueName);
+                }
+            } catch (RuntimeException e) {
+                log.error("Failed to schedule {} retries on queue: {}", retries.size(), queueName, e);
+                for (PendingRetry retry : retries) {
+                    retry.job().setErrorMessage("Failed to schedule retry: " + e.getMessage());
+                    deadLetters.add(retry.job());
+                }
+            }
+        }
+        if (!deadLetters.isEmpty()) {
+            moveAllToDeadLetter(deadLetters, queueName);
+        }
+    }
+
+    // One write for the whole batch
+    private void moveAllToDeadLetter(List<QueueJob> jobs, String queueName) {
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            List<byte[]> encoded = new ArrayList<>(jobs.size());
+            for (QueueJob job : jobs) {
+                job.setQueueName(queueName);
+                job.setFailedAt(now);
+                encoded.add(jobCodec.encode(job));
+            }
+            deadLetterStore.addAll(encoded);
+        } catch (RuntimeException e) {
+            log.error("Failed to move {} jobs to dead letter queue", jobs.size(), e);
+            throw e;
+        }
+
+        for (QueueJob job : jobs) {
+            releaseDedupKey(job);
+            queueMetrics.recordDeadLetter(queueName, job.getJobType());
+            structuredLogger.business("JOB_DEAD_LETTER", "FAILED")
+                    .with("jobId", job.getId())
+                    .with("jobType", job.getJobType())
+                    .with("reason", job.getErrorMessage())
+                    .log();
+        }
+    }
+
+    // Kept byte-for-byte so an operator can inspect them; the admin API skips entries it cannot decode
+    private void moveUnreadableToDeadLetter(List<byte[]> encoded) {
+        try {
+            deadLetterStore.addAll(encoded);
+        } catch (RuntimeException e) {
+            log.error("Failed to move {} unreadable jobs to dead letter queue", encoded.size(), e);
+            throw e;
+        }
+    }
+
+    private void handleJobFailure(QueueJob job, JobProcessor<?> processor, String queueName, Exception e) {
+        RetryPolicy policy = recordFailure(job, processor, e);
+
+        if (job.canRetry()) {
+            scheduleRetry(job, queueName, policy);
+        } else {
+            moveToDeadLetter(job, queueName, e.getMessage());
+            log.error("Job exhausted retries, moved to dead letter: {}", job.getId());
+        }
+    }
+
+    private RetryPolicy recordFailure(QueueJob job, JobProcessor<?> processor, Exception e) {
+        RetryPolicy policy = processor.getRetryPolicy();
+        job.setMaxRetries(policy.maxRetries());
+        job.incrementRetry();
+        job.setErrorMessage(e.getMessage());
+
+        structuredLogger.error("JOB_PROCESSING_FAILED", e)
+                .with("jobId", job.getId())
+                .with("jobType", job.getJobType())
+                .with("retryCount", job.getRetryCount())
+                .with("maxRetries", job.getMaxRetries())
+                .log();
+        return policy;
+    }
+
+    private void scheduleRetry(QueueJob job, String queueName, RetryPolicy policy) {
+        Optional<Duration> delay;
+        try {
+            delay = retryScheduler.schedule(queueName, jobCodec.encode(job), job.getRetryCount(), policy);
+        } catch (Exception e) {
+            log.error("Failed to schedule retry for job: {}", job.getId(), e);
+            moveToDeadLetter(job, queueName, "Failed to schedule retry: " + e.getMessage());
+            return;
+        }
+
+        if (delay.isEmpty()) {
+            moveToDeadLetter(job, queueName, RETRY_SHED);
+            return;
+        }
+        queueMetrics.recordRetry(queueName, job.getJobType());
+        log.warn("Job failed, scheduling retry {}/{} in {}ms: {}",
+            job.getRetryCount(), job.getMaxRetries(), delay.get().toMillis(), job.getId());
+    }
+
+    private void moveToDeadLetter(QueueJob job, String queueName, String reason) {
+        try {
+            job.setErrorMessage(reason);
+            job.setQueueName(queueName);
+            job.setFailedAt(LocalDateTime.now());
+            deadLetterStore.addAll(List.of(jobCodec.encode(job)));
+        } catch (RuntimeException e) {
+            log.error("Failed to move job to dead letter queue: {}", job.getId(), e);
+            throw e;
+        }
+
+        releaseDedupKey(job);
+        queueMetrics.recordDeadLetter(queueName, job.getJobType());
+        structuredLogger.business("JOB_DEAD_LETTER", "FAILED")
+                .with("jobId", job.getId())
+                .with("jobType", job.getJobType())
+                .with("reason", reason)
+                .log();
+    }
+
+    // The key coalesced repeats only while the job was pending; once it is done, the next request enqueues again.
+    // A pending retry keeps it.
+    private void releaseDedupKey(QueueJob job) {
+        if (job.getDedupKey() != null && job.getDedupToken() != null) {
+            jobDeduplicator.release(job.getDedupKey(), job.getDedupToken());
+        }
+    }
+
+    // The job is kept alongside its encoded retry so it can be dead-lettered without decoding it again
+    private record PendingRetry(QueueJob job, RetryScheduler.Retry retry) {}
+
+    // The codec decoded the payload into processor.getPayloadType(), so the casts cannot fail
+    private static <P extends JobPayload> void process(JobProcessor<P> processor, JobPayload payload) throws Exception {
+        processor.process(processor.getPayloadType().cast(payload));
+    }
+
+    private static <P extends JobPayload> Map<Integer, Exception> processBatch(JobProcessor<P> processor, List<QueueJob> jobs) {
+        Class<P> payloadType = processor.getPayloadType();
+        return processor.processBatch(jobs.stream().map(job -> payloadType.cast(job.getPayload())).toList());
+    }
+}
@@ -0,0 +1,38 @@
+package blog.sammi.lab.notes.infrastructure.queue;
+
+import blog.sammi.lab.notes.domain.job.JobPayload;
+import blog.sammi.lab.notes.domain.service.JobProcessor;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Job type -> processor, built once at startup; dispatch is a single hash lookup
+@Component
+public class JobRegistry {
+
+    private final Map<String, JobProcessor<?>> processors;
+
+    public JobRegistry(List<JobProcessor<?>> jobProcessors) {
+        Map<String, JobProcessor<?>> byType = new HashMap<>();
+        for (JobProcessor<?> processor : jobProcessors) {
+            JobProcessor<?> existing = byType.putIfAbsent(processor.getJobType(), processor);
+            if (existing != null) {
+                throw new IllegalStateException("Job type " + processor.getJobType() + " is handled by both "
+                        + existing.getClass().getSimpleName() + " and " + processor.getClass().getSimpleName());
+            }
+        }
+        this.processors = Map.copyOf(byType);
+    }
+
+    public JobProcessor<?> processor(String jobType) {
+        return jobType == null ? null : processors.get(jobType);
+    }
+
+    // Null for job types this node does not know
+    public Class<? extends JobPayload> payloadType(String jobType) {
+        JobProcessor<?> processor = processor(jobType);
+        return processor == null ? null : processor.getPayloadType();
+    }
+}
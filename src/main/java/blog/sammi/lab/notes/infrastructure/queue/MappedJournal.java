@@ -0,0 +1,307 @@
+package blog.sammi.lab.notes.infrastructure.queue;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only job journal in fixed-size, memory-mapped segment files ({@code segment-<id>.log}).
+ * <p>
+ * Record: {@code [int length][int crc32c][byte type][long sequence]} followed, for ENQUEUE, by
+ * {@code [long dueAtMs][short queueLength][queue][job]}. ACK records carry only the sequence.
+ * Replay stops at the first zero length or checksum mismatch, which drops a torn tail after a crash.
+ * <p>
+ * Compaction only ever deletes the oldest segment: live jobs still in it are first re-appended to the
+ * active segment under the same sequence, so an ACK can never outlive the ENQUEUE it cancels.
+ * A crash in between leaves both copies, which replay collapses by sequence.
+ * Not thread-safe on its own; {@link EmbeddedQueueService} serializes access.
+ */
+@Slf4j
+final class MappedJournal implements Closeable {
+
+    private static final byte ENQUEUE = 1;
+    private static final byte ACK = 2;
+    private static final int FRAME_HEADER = 8;
+    private static final int ACK_BODY = 1 + 8;
+    private static final int ENQUEUE_BODY_FIXED = 1 + 8 + 8 + 2;
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String LOCK_FILE = "journal.lock";
+
+    private final Path directory;
+    private final int segmentSize;
+    private final boolean sync;
+    private final double compactLiveRatio;
+
+    private final TreeMap<Long, Segment> segments = new TreeMap<>();
+    // Segment holding the newest copy of each live (un-acked) job
+    private final Map<Long, Segment> locations = new HashMap<>();
+    private FileChannel lockChannel;
+    private Segment active;
+    private long nextSequence = 1;
+
+    MappedJournal(Path directory, int segmentSize, boolean sync, double compactLiveRatio) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.sync = sync;
+        this.compactLiveRatio = compactLiveRatio;
+    }
+
+    // Maps every segment and returns the live jobs in sequence order
+    Collection<Entry> open() throws IOException {
+        Files.createDirectories(directory);
+        lockChannel = FileChannel.open(directory.resolve(LOCK_FILE), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        FileLock lock = lockChannel.tryLock();
+        if (lock == null) {
+            lockChannel.close();
+            throw new IllegalStateException("Queue journal " + directory + " is in use by another process");
+        }
+
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(directory)) {
+            files = listing.filter(MappedJournal::isSegment).sorted().toList();
+        }
+
+        TreeMap<Long, Entry> live = new TreeMap<>();
+        for (Path file : files) {
+            Segment segment = map(file, segmentId(file));
+            segments.put(segment.id, segment);
+            replay(segment, live);
+        }
+        for (Segment segment : locations.values()) {
+            segment.live++;
+        }
+
+        active = segments.isEmpty() ? roll() : segments.lastEntry().getValue();
+        log.info("Journal opened: {} segment(s), {} live job(s), next sequence {}", segments.size(), live.size(), nextSequence);
+        return live.values();
+    }
+
+    long append(String queueName, long dueAtMs, byte[] job) throws IOException {
+        byte[] queue = queueName.getBytes(StandardCharsets.UTF_8);
+        int bodyLength = ENQUEUE_BODY_FIXED + queue.length + job.length;
+        if (FRAME_HEADER + bodyLength > segmentSize) {
+            throw new IllegalArgumentException("Job of " + job.length + " bytes does not fit in a journal segment");
+        }
+
+        long sequence = nextSequence++;
+        ByteBuffer body = ByteBuffer.allocate(bodyLength)
+                .put(ENQUEUE).putLong(sequence).putLong(dueAtMs)
+                .putShort((short) queue.length).put(queue).put(job)
+                .flip();
+        write(body);
+        active.enqueued++;
+        active.live++;
+        locations.put(sequence, active);
+        return sequence;
+    }
+
+    // The job stays live when the ACK cannot be written, so the caller can deliver it again
+    void ack(long sequence) throws IOException {
+        Segment segment = locations.get(sequence);
+        if (segment == null) {
+            return;
+        }
+        write(ByteBuffer.allocate(ACK_BODY).put(ACK).putLong(sequence).flip());
+        locations.remove(sequence);
+        segment.live--;
+    }
+
+    boolean isLive(long sequence) {
+        return locations.containsKey(sequence);
+    }
+
+    // Deletes drained segments from the head of the log, moving a few stragglers forward when needed
+    int compact() throws IOException {
+        int removed = 0;
+        while (segments.size() > 1) {
+            Segment oldest = segments.firstEntry().getValue();
+            if (oldest == active || (oldest.live > 0 && oldest.live > oldest.enqueued * compactLiveRatio)) {
+                break;
+            }
+            if (oldest.live > 0) {
+                relocateLive(oldest);
+                active.buffer.force();
+            }
+            try {
+                Files.delete(oldest.file);
+            } catch (IOException e) {
+                log.warn("Failed to delete journal segment: {}", oldest.file, e);
+                break;
+            }
+            segments.remove(oldest.id);
+            oldest.channel.close();
+            removed++;
+        }
+        return removed;
+    }
+
+    int segmentCount() {
+        return segments.size();
+    }
+
+    void force() {
+        active.buffer.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (active != null) {
+            active.buffer.force();
+        }
+        for (Segment segment : segments.values()) {
+            segment.channel.close();
+        }
+        segments.clear();
+        if (lockChannel != null) {
+            // Releases the file lock
+            lockChannel.close();
+        }
+    }
+
+    private void relocateLive(Segment oldest) throws IOException {
+        ByteBuffer buffer = oldest.buffer.duplicate();
+        buffer.position(0);
+        while (buffer.remaining() >= FRAME_HEADER) {
+            int start = buffer.position();
+            int length = buffer.getInt();
+            if (length <= 0 || length > buffer.remaining() - 4) {
+                break;
+            }
+            buffer.getInt();
+            ByteBuffer body = buffer.slice(buffer.position(), length);
+            buffer.position(buffer.position() + length);
+
+            long sequence = body.getLong(1);
+            if (body.get(0) == ENQUEUE && locations.get(sequence) == oldest) {
+                write(buffer.slice(start + FRAME_HEADER, length));
+                oldest.live--;
+                active.enqueued++;
+                active.live++;
+                locations.put(sequence, active);
+            }
+        }
+    }
+
+    private void write(ByteBuffer body) throws IOException {
+        int length = body.remaining();
+        if (active.position + FRAME_HEADER + length > active.buffer.capacity()) {
+            active.buffer.force();
+            active = roll();
+        }
+
+        CRC32C crc = new CRC32C();
+        crc.update(body.duplicate());
+
+        int start = active.position;
+        MappedByteBuffer buffer = active.buffer;
+        buffer.putInt(start + 4, (int) crc.getValue());
+        buffer.put(start + FRAME_HEADER, body, body.position(), length);
+        // Length last: a record is visible to replay only once it is complete
+        buffer.putInt(start, length);
+        active.position = start + FRAME_HEADER + length;
+
+        if (sync) {
+            buffer.force(start, FRAME_HEADER + length);
+        }
+    }
+
+    private void replay(Segment segment, TreeMap<Long, Entry> live) {
+        ByteBuffer buffer = segment.buffer.duplicate();
+        buffer.position(0);
+        while (buffer.remaining() >= FRAME_HEADER) {
+            int start = buffer.position();
+            int length = buffer.getInt();
+            if (length <= 0 || length > buffer.remaining() - 4) {
+                break;
+            }
+            int checksum = buffer.getInt();
+            ByteBuffer body = buffer.slice(buffer.position(), length);
+            CRC32C crc = new CRC32C();
+            crc.update(body.duplicate());
+            if ((int) crc.getValue() != checksum) {
+                log.warn("Journal segment {} has a torn record at offset {}; ignoring the rest", segment.id, start);
+                break;
+            }
+            buffer.position(buffer.position() + length);
+            segment.position = buffer.position();
+
+            byte type = body.get();
+            long sequence = body.getLong();
+            nextSequence = Math.max(nextSequence, sequence + 1);
+            if (type == ENQUEUE) {
+                long dueAtMs = body.getLong();
+                byte[] queue = new byte[body.getShort()];
+                body.get(queue);
+                byte[] job = new byte[body.remaining()];
+                body.get(job);
+                segment.enqueued++;
+                locations.put(sequence, segment);
+                live.put(sequence, new Entry(sequence, new String(queue, StandardCharsets.UTF_8), dueAtMs, job));
+            } else if (type == ACK) {
+                locations.remove(sequence);
+                live.remove(sequence);
+            }
+        }
+    }
+
+    private Segment roll() throws IOException {
+        long id = segments.isEmpty() ? 0 : segments.lastKey() + 1;
+        Segment segment = map(directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, id, SEGMENT_SUFFIX)), id);
+        segments.put(id, segment);
+        return segment;
+    }
+
+    private Segment map(Path file, long id) throws IOException {
+        FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        // Segments written with a larger segment size keep their length
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(segmentSize, channel.size()));
+        return new Segment(id, file, channel, buffer);
+    }
+
+    private static boolean isSegment(Path file) {
+        String name = file.getFileName().toString();
+        return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+    }
+
+    private static long segmentId(Path file) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    record Entry(long sequence, String queueName, long dueAtMs, byte[] job) {}
+
+    private static final class Segment {
+        private final long id;
+        private final Path file;
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+        private int position;
+        private int enqueued;
+        private int live;
+
+        private Segment(long id, Path file, FileChannel channel, MappedByteBuffer buffer) {
+            this.id = id;
+            this.file = file;
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+    }
+}
@@ -0,0 +1,241 @@
+package blog.sammi.lab.notes.infrastructure.queue;
+
+import blog.sammi.lab.notes.domain.entity.OutboxJob;
+import blog.sammi.lab.notes.domain.job.JobPayload;
+import blog.sammi.lab.notes.domain.repository.OutboxJobRepository;
+import blog.sammi.lab.notes.domain.service.QueueService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Moves committed outbox rows onto the queue. Each batch is locked with {@code FOR UPDATE SKIP LOCKED},
+ * so several app nodes can relay concurrently, enqueued with one backend call per queue and job type,
+ * and marked sent in the same transaction. A crash between enqueue and commit re-sends the batch
+ * (at-least-once, like the queue itself).
+ * <p>
+ * Rows that fail to enqueue count an attempt and sort behind fresh rows, and a batch with failures backs the
+ * relay off, so a Valkey outage neither blocks newer rows nor turns the relay into a tight loop over the same
+ * ones. Rows whose payload cannot be built (unknown job type) are parked ({@code parked_at}) for an operator.
+ */
+@Component
+@Slf4j
+public class OutboxRelay {
+
+    private final OutboxJobRepository outboxJobRepository;
+    private final QueueService queueService;
+    private final JobRegistry jobRegistry;
+    private final JobDeduplicator jobDeduplicator;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final long pollIntervalMs;
+    private final long retentionMs;
+
+    private final Semaphore wakeUps = new Semaphore(0);
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private Thread relayThread;
+    private long lastCleanup;
+
+    public OutboxRelay(
+            OutboxJobRepository outboxJobRepository,
+            QueueService queueService,
+            JobRegistry jobRegistry,
+            JobDeduplicator jobDeduplicator,
+            ObjectMapper objectMapper,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.queue.outbox.batch-size:100}") int batchSize,
+            @Value("${app.queue.outbox.poll-interval-ms:1000}") long pollIntervalMs,
+            @Value("${app.queue.outbox.retention-ms:86400000}") long retentionMs) {
+        this.outboxJobRepository = outboxJobRepository;
+        this.queueService = queueService;
+        this.jobRegistry = jobRegistry;
+        this.jobDeduplicator = jobDeduplicator;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.pollIntervalMs = pollIntervalMs;
+        this.retentionMs = retentionMs;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (running.compareAndSet(false, true)) {
+            relayThread = Thread.ofVirtual().name("outbox-relay").start(this::run);
+            log.info("Outbox relay started (batch size {}, poll interval {}ms)", batchSize, pollIntervalMs);
+        }
+    }
+
+    // Called after a transaction that wrote outbox rows commits
+    public void wakeUp() {
+        wakeUps.release();
+    }
+
+    private void run() {
+        ErrorBackoff backoff = new ErrorBackoff();
+        while (running.get()) {
+            try {
+                wakeUps.tryAcquire(pollIntervalMs, TimeUnit.MILLISECONDS);
+                wakeUps.drainPermits();
+
+                // Keep going while full batches are sent without failures
+                Relayed relayed;
+                do {
+                    relayed = relayBatch();
+                } while (running.get() && relayed.failed() == 0 && relayed.done() == batchSize);
+
+                if (relayed.failed() > 0) {
+                    if (!backoff.pause()) {
+                        break;
+                    }
+                } else {
+                    backoff.reset();
+                }
+                cleanupSentRows();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                log.error("Outbox relay failed", e);
+                if (!backoff.pause()) {
+                    break;
+                }
+            }
+        }
+    }
+
+    private Relayed relayBatch() {
+        Relayed relayed = transactionTemplate.execute(status -> {
+            List<OutboxJob> pending = outboxJobRepository.lockPending(batchSize);
+            if (pending.isEmpty()) {
+                return new Relayed(0, 0);
+            }
+
+            Map<String, List<OutboxJob>> groups = new LinkedHashMap<>();
+            Map<UUID, JobPayload> payloads = new HashMap<>();
+            List<UUID> sent = new ArrayList<>(pending.size());
+            int parked = 0;
+            for (OutboxJob job : pending) {
+                try {
+                    payloads.put(job.getId(), toPayload(job));
+                } catch (RuntimeException e) {
+                    park(job, e);
+                    parked++;
+                    continue;
+                }
+                if (job.getDelaySeconds() > 0 || job.getDedupKey() != null) {
+                    send(job, payloads.get(job.getId()), sent);
+                } else {
+                    groups.computeIfAbsent(job.getQueueName() + "\n" + job.getJobType(), key -> new ArrayList<>())
+                            .add(job);
+                }
+            }
+            groups.values().forEach(group -> sendAll(group, payloads, sent));
+
+            if (!sent.isEmpty()) {
+                outboxJobRepository.markSent(sent, LocalDateTime.now());
+            }
+            return new Relayed(sent.size() + parked, pending.size() - sent.size() - parked);
+        });
+        return relayed != null ? relayed : new Relayed(0, 0);
+    }
+
+    // `done` counts rows sent or parked, `failed` rows left pending after an enqueue error
+    private record Relayed(int done, int failed) {}
+
+    private void send(OutboxJob job, JobPayload payload, List<UUID> sent) {
+        try {
+            if (job.getDedupKey() != null) {
+                queueService.enqueueClaimed(job.getQueueName(), payload, job.getDelaySeconds(),
+                        job.getDedupKey(), job.getDedupToken());
+            } else {
+                queueService.enqueue(job.getQueueName(), payload, job.getDelaySeconds());
+            }
+            sent.add(job.getId());
+        } catch (Exception e) {
+            recordFailure(List.of(job), e);
+        }
+    }
+
+    private void sendAll(List<OutboxJob> group, Map<UUID, JobPayload> payloads, List<UUID> sent) {
+        OutboxJob first = group.get(0);
+        try {
+            queueService.enqueueAll(first.getQueueName(), group.stream().map(job -> payloads.get(job.getId())).toList());
+            group.forEach(job -> sent.add(job.getId()));
+        } catch (Exception e) {
+            recordFailure(group, e);
+        }
+    }
+
+    private JobPayload toPayload(OutboxJob job) {
+        Class<? extends JobPayload> payloadType = jobRegistry.payloadType(job.getJobType());
+        if (payloadType == null) {
+            throw new IllegalStateException("No processor registered for job type " + job.getJobType());
+        }
+        return objectMapper.convertValue(job.getPayload(), payloadType);
+    }
+
+    // Enqueue failures (Valkey down) are transient: the rows stay pending behind fresh ones and are retried later
+    private void recordFailure(List<OutboxJob> jobs, Exception e) {
+        log.warn("Failed to relay {} outbox job(s) to queue: {}", jobs.size(), jobs.get(0).getQueueName(), e);
+        for (OutboxJob job : jobs) {
+            job.setAttempts(job.getAttempts() + 1);
+            job.setLastError(e.getMessage());
+        }
+    }
+
+    // A row whose payload cannot be built will never relay; it is parked so it stops taking up batches
+    private void park(OutboxJob job, Exception e) {
+        log.error("Parking outbox job {} ({}): {}", job.getId(), job.getJobType(), e.getMessage());
+        job.setAttempts(job.getAttempts() + 1);
+        job.setLastError(e.getMessage());
+        job.setParkedAt(LocalDateTime.now());
+        if (job.getDedupKey() != null) {
+            jobDeduplicator.release(job.getDedupKey(), job.getDedupToken());
+        }
+    }
+
+    private void cleanupSentRows() {
+        long now = System.currentTimeMillis();
+        if (now - lastCleanup < retentionMs / 24) {
+            return;
+        }
+        lastCleanup = now;
+        Integer deleted = transactionTemplate.execute(status ->
+                outboxJobRepository.deleteSentBefore(LocalDateTime.now().minus(Duration.ofMillis(retentionMs))));
+        if (deleted != null && deleted > 0) {
+            log.info("Deleted {} relayed outbox rows", deleted);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (running.compareAndSet(true, false) && relayThread != null) {
+            relayThread.interrupt();
+            try {
+                relayThread.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            log.info("Outbox relay stopped");
+        }
+    }
+}
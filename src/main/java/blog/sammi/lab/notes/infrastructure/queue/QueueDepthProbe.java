@@ -0,0 +1,10 @@
+package blog.sammi.lab.notes.infrastructure.queue;
+
+// Backend-specific view of one queue, sampled periodically by QueueMetrics
+public interface QueueDepthProbe {
+
+    Snapshot sample(String queueName);
+
+    // oldestReadyAtMs is 0 when nothing is waiting
+    record Snapshot(long ready, long inFlight, long oldestReadyAtMs) {}
+}
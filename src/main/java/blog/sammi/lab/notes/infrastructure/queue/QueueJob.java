@@ -1,21 +1,30 @@
 package blog.sammi.lab.notes.infrastructure.queue;
 
+import blog.sammi.lab.notes.domain.job.JobPayload;
+import com.fasterxml.jackson.databind.JsonNode;
 import lombok.Data;
 
 import java.time.LocalDateTime;
-import java.util.Map;
 import java.util.UUID;
 
 @Data
 public class QueueJob {
     private String id;
     private String jobType;
-    private Map<String, Object> payload;
+    private JobPayload payload;
+    // Payload of a job type this node has no processor for; kept as-is so it survives dead-lettering
+    private JsonNode rawPayload;
     private int retryCount;
     private int maxRetries;
     private LocalDateTime createdAt;
     private LocalDateTime scheduledAt;
     private String errorMessage;
+    // Origin queue and failure time, set when the job is dead-lettered
+    private String queueName;
+    private LocalDateTime failedAt;
+    // Dedup key that coalesces repeats while this job is pending, released once it is done (see JobDeduplicator)
+    private String dedupKey;
+    private String dedupToken;
     
     public QueueJob() {
         this.id = UUID.randomUUID().toString();
@@ -24,9 +33,9 @@ public class QueueJob {
         this.maxRetries = 3;
     }
     
-    public QueueJob(String jobType, Map<String, Object> payload) {
+    public QueueJob(JobPayload payload) {
         this();
-        this.jobType = jobType;
+        this.jobType = payload.jobType();
         this.payload = payload;
         this.scheduledAt = LocalDateTime.now();
     }
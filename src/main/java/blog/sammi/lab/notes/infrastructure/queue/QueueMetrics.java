@@ -0,0 +1,193 @@
+package blog.sammi.lab.notes.infrastructure.queue;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Queue telemetry, tagged by queue (and job type where it applies):
+ * <ul>
+ *   <li>{@code queue.depth} (state = ready / in_flight / delayed) and {@code queue.oldest.age}, sampled every
+ *       {@code app.queue.metrics.sample-interval-ms} so a scrape never touches Valkey; every node reports the same
+ *       values, so aggregate with max, not sum</li>
+ *   <li>{@code queue.job.wait}: enqueue (or due time) to start of the first attempt</li>
+ *   <li>{@code queue.job.duration} (outcome = success / failure): processing time; its count is the throughput</li>
+ *   <li>{@code queue.job.retries}, {@code queue.job.dead_lettered} and the {@code queue.dead_letter.size} gauge</li>
+ *   <li>{@code queue.job.lost}: entries acknowledged without a job to run (malformed or deleted while pending)</li>
+ * </ul>
+ */
+@Component
+@Slf4j
+public class QueueMetrics {
+
+    private final MeterRegistry meterRegistry;
+    private final QueueDepthProbe queueDepthProbe;
+    private final RetryScheduler retryScheduler;
+    private final DeadLetterStore deadLetterStore;
+    private final String workers;
+    private final long sampleIntervalMs;
+
+    private final Map<String, JobMeters> jobMeters = new ConcurrentHashMap<>();
+    private final Map<String, DepthGauges> depthGauges = new ConcurrentHashMap<>();
+    private final AtomicLong deadLetterSize = new AtomicLong();
+    private ScheduledExecutorService sampler;
+
+    public QueueMetrics(
+            MeterRegistry meterRegistry,
+            QueueDepthProbe queueDepthProbe,
+            RetryScheduler retryScheduler,
+            DeadLetterStore deadLetterStore,
+            @Value("${app.queue.workers:default:1,email:2,notifications:1}") String workers,
+            @Value("${app.queue.metrics.sample-interval-ms:15000}") long sampleIntervalMs) {
+        this.meterRegistry = meterRegistry;
+        this.queueDepthProbe = queueDepthProbe;
+        this.retryScheduler = retryScheduler;
+        this.deadLetterStore = deadLetterStore;
+        this.workers = workers;
+        this.sampleIntervalMs = sampleIntervalMs;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startSampling() {
+        QueueWorker.parseWorkers(workers).keySet().forEach(queueName ->
+                depthGauges.computeIfAbsent(queueName, this::registerDepthGauges));
+        Gauge.builder("queue.dead_letter.size", deadLetterSize, AtomicLong::get)
+                .description("Jobs in the dead letter queue")
+                .register(meterRegistry);
+
+        sampler = Executors.newSingleThreadScheduledExecutor(Thread.ofVirtual().name("queue-metrics").factory());
+        sampler.scheduleWithFixedDelay(this::sample, 0, sampleIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    // First attempts only; a retry's wait would mostly be its backoff
+    public void recordStart(String queueName, QueueJob job) {
+        if (job.getRetryCount() == 0 && job.getScheduledAt() != null) {
+            Duration wait = Duration.between(job.getScheduledAt(), LocalDateTime.now());
+            meters(queueName, job.getJobType()).waitTime().record(wait.isNegative() ? Duration.ZERO : wait);
+        }
+    }
+
+    public void recordProcessed(String queueName, String jobType, long durationMs, boolean success) {
+        JobMeters meters = meters(queueName, jobType);
+        (success ? meters.success() : meters.failure()).record(durationMs, TimeUnit.MILLISECONDS);
+    }
+
+    public void recordRetry(String queueName, String jobType) {
+        meters(queueName, jobType).retries().increment();
+    }
+
+    public void recordDeadLetter(String queueName, String jobType) {
+        meters(queueName, jobType).deadLettered().increment();
+    }
+
+    private void sample() {
+        depthGauges.forEach((queueName, gauges) -> {
+            try {
+                QueueDepthProbe.Snapshot snapshot = queueDepthProbe.sample(queueName);
+                gauges.ready().set(snapshot.ready());
+                gauges.inFlight().set(snapshot.inFlight());
+                gauges.delayed().set(retryScheduler.delayedCount(queueName));
+                gauges.oldestAgeMs().set(snapshot.oldestReadyAtMs() > 0
+                        ? Math.max(0, System.currentTimeMillis() - snapshot.oldestReadyAtMs())
+                        : 0);
+            } catch (Exception e) {
+                log.warn("Failed to sample queue: {}", queueName, e);
+            }
+        });
+        try {
+            deadLetterSize.set(deadLetterStore.size());
+        } catch (Exception e) {
+            log.warn("Failed to sample dead letter queue", e);
+        }
+    }
+
+    private DepthGauges registerDepthGauges(String queueName) {
+        DepthGauges gauges = new DepthGauges(new AtomicLong(), new AtomicLong(), new AtomicLong(), new AtomicLong());
+        depthGauge(queueName, "ready", gauges.ready());
+        depthGauge(queueName, "in_flight", gauges.inFlight());
+        depthGauge(queueName, "delayed", gauges.delayed());
+        Gauge.builder("queue.oldest.age", gauges.oldestAgeMs(), age -> age.get() / 1000.0)
+                .description("Age of the oldest job waiting to be picked up")
+                .baseUnit("seconds")
+                .tag("queue", queueName)
+                .register(meterRegistry);
+        return gauges;
+    }
+
+    private void depthGauge(String queueName, String state, AtomicLong value) {
+        Gauge.builder("queue.depth", value, AtomicLong::get)
+                .description("Jobs per queue and state")
+                .tag("queue", queueName)
+                .tag("state", state)
+                .register(meterRegistry);
+    }
+
+    private JobMeters meters(String queueName, String jobType) {
+        return jobMeters.computeIfAbsent(queueName + ":" + jobType, key -> new JobMeters(
+                Timer.builder("queue.job.wait")
+                        .description("Time from enqueue (or due time) to the start of the first attempt")
+                        .tag("queue", queueName)
+                        .tag("type", jobType)
+                        .publishPercentileHistogram()
+                        .maximumExpectedValue(Duration.ofHours(1))
+                        .register(meterRegistry),
+                durationTimer(queueName, jobType, "success"),
+                durationTimer(queueName, jobType, "failure"),
+                Counter.builder("queue.job.retries")
+                        .description("Failed attempts scheduled for retry")
+                        .tag("queue", queueName)
+                        .tag("type", jobType)
+                        .register(meterRegistry),
+                Counter.builder("queue.job.dead_lettered")
+                        .description("Jobs moved to the dead letter queue")
+                        .tag("queue", queueName)
+                        .tag("type", jobType)
+                        .register(meterRegistry)));
+    }
+
+    public void recordLost(String queueName, int count) {
+        Counter.builder("queue.job.lost")
+                .description("Queue entries acknowledged without a job to run")
+                .tag("queue", queueName)
+                .register(meterRegistry)
+                .increment(count);
+    }
+
+    private Timer durationTimer(String queueName, String jobType, String outcome) {
+        return Timer.builder("queue.job.duration")
+                .description("Job processing time")
+                .tag("queue", queueName)
+                .tag("type", jobType)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .maximumExpectedValue(Duration.ofMinutes(5))
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (sampler != null) {
+            sampler.shutdownNow();
+        }
+    }
+
+    private record JobMeters(Timer waitTime, Timer success, Timer failure, Counter retries, Counter deadLettered) {}
+
+    private record DepthGauges(AtomicLong ready, AtomicLong inFlight, AtomicLong delayed, AtomicLong oldestAgeMs) {}
+}
@@ -0,0 +1,66 @@
+package blog.sammi.lab.notes.infrastructure.queue;
+
+import org.redisson.api.PendingEntry;
+import org.redisson.api.PendingResult;
+import org.redisson.api.RStream;
+import org.redisson.api.StreamMessageId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Actuator view of a stream's pending entries (ids, owners, idle time, deliveries); payloads are not exposed
+@Component
+@Endpoint(id = "queues")
+@ConditionalOnProperty(prefix = "app.queue", name = "backend", havingValue = "stream")
+public class QueuePendingEndpoint {
+
+    private static final int MAX_ENTRIES = 100;
+
+    private final StreamQueueService streamQueueService;
+    private final String group;
+    private final Set<String> queues;
+
+    public QueuePendingEndpoint(StreamQueueService streamQueueService,
+                                @Value("${app.queue.stream.group:notes-workers}") String group,
+                                @Value("${app.queue.workers:default:1,email:2,notifications:1}") String workers) {
+        this.streamQueueService = streamQueueService;
+        this.group = group;
+        this.queues = QueueWorker.parseWorkers(workers).keySet();
+    }
+
+    // Only configured queues; null answers 404 instead of touching an arbitrary key
+    @ReadOperation
+    public PendingView pending(@Selector String queue) {
+        if (!queues.contains(queue)) {
+            return null;
+        }
+        RStream<String, byte[]> stream = streamQueueService.stream(queue);
+        if (!stream.isExists()) {
+            return new PendingView(queue, group, 0, 0, Map.of(), List.of());
+        }
+
+        PendingResult summary = stream.getPendingInfo(group);
+        List<PendingEntryView> entries = stream.listPending(group, StreamMessageId.MIN, StreamMessageId.MAX, MAX_ENTRIES)
+                .stream()
+                .map(PendingEntryView::of)
+                .toList();
+        return new PendingView(queue, group, stream.size(), summary.getTotal(), summary.getConsumerNames(), entries);
+    }
+
+    public record PendingView(String queue, String group, long length, long pending,
+                              Map<String, Long> pendingByConsumer, List<PendingEntryView> oldest) {}
+
+    public record PendingEntryView(String id, String consumer, long idleMs, long deliveries) {
+        static PendingEntryView of(PendingEntry entry) {
+            return new PendingEntryView(entry.getId().toString(), entry.getConsumerName(),
+                    entry.getIdleTime(), entry.getLastTimeDelivered());
+        }
+    }
+}
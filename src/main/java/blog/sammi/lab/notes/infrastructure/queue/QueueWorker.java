@@ -1,173 +1,195 @@
 package blog.sammi.lab.notes.infrastructure.queue;
 
-import blog.sammi.lab.notes.domain.service.JobProcessor;
-import blog.sammi.lab.notes.infrastructure.config.StructuredLogger;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.redisson.api.RQueue;
-import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
 
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
+// List backend (default): Valkey lists with per-consumer processing lists, see ReliableQueue
 @Component
+@ConditionalOnProperty(prefix = "app.queue", name = "backend", havingValue = "list", matchIfMissing = true)
 @RequiredArgsConstructor
 @Slf4j
 public class QueueWorker {
 
-    private final RedissonClient redissonClient;
-    private final ObjectMapper objectMapper;
-    private final List<JobProcessor> jobProcessors;
-    private final StructuredLogger structuredLogger;
+    private final JobExecutor jobExecutor;
+    private final ReliableQueue reliableQueue;
+    private final ValkeyDelayedJobStore valkeyDelayedJobStore;
+
+    // Comma-separated queue:concurrency pairs, e.g. "default:1,email:4"
+    @Value("${app.queue.workers:default:1,email:2,notifications:1}")
+    private String workers;
+
+    // Queues listed here (queue:size) take and acknowledge jobs in batches of up to `size`
+    @Value("${app.queue.batch-sizes:}")
+    private String batchSizes;
+
+    @Value("${app.queue.poll-timeout-ms:2000}")
+    private long pollTimeoutMs;
+
+    @Value("${app.queue.reaper-interval-ms:30000}")
+    private long reaperIntervalMs;
+
+    private Map<String, Integer> concurrencyByQueue = Map.of();
 
     private final AtomicBoolean running = new AtomicBoolean(false);
     private ExecutorService executorService;
-
-    private static final String QUEUE_PREFIX = "queue:";
-    private static final String RETRY_QUEUE_PREFIX = "retry:";
-    private static final String DEAD_LETTER_QUEUE = "dead_letter";
+    private ScheduledExecutorService reaper;
 
     @EventListener(ApplicationReadyEvent.class)
     public void startWorkers() {
         if (running.compareAndSet(false, true)) {
-            executorService = Executors.newFixedThreadPool(3);
+            executorService = Executors.newVirtualThreadPerTaskExecutor();
+
+            concurrencyByQueue = parseWorkers(workers);
+            reliableQueue.heartbeat(concurrencyByQueue.keySet());
+            Map<String, Integer> batchSizeByQueue = parseWorkers(batchSizes);
+            concurrencyByQueue.forEach((queueName, concurrency) -> {
+                int batchSize = batchSizeByQueue.getOrDefault(queueName, 1);
+                if (batchSize > 1) {
+                    executorService.submit(() -> processQueueInBatches(queueName, concurrency, batchSize));
+                } else {
+                    executorService.submit(() -> processQueue(queueName, concurrency));
+                }
+                executorService.submit(() -> valkeyDelayedJobStore.drain(queueName, pollTimeoutMs, running::get));
+            });
 
-            // Start workers for different queues
-            executorService.submit(() -> processQueue("default"));
-            executorService.submit(() -> processQueue("email"));
-            executorService.submit(() -> processQueue("notifications"));
+            reaper = Executors.newSingleThreadScheduledExecutor(Thread.ofVirtual().name("queue-reaper").factory());
+            reaper.scheduleWithFixedDelay(this::reapExpiredLeases, 0, reaperIntervalMs, TimeUnit.MILLISECONDS);
 
-            log.info("Queue workers started");
+            log.info("Queue workers started: {}", concurrencyByQueue);
         }
     }
 
-    private void processQueue(String queueName) {
-        RQueue<String> queue = redissonClient.getQueue(QUEUE_PREFIX + queueName);
+    // One blocking taker per queue; each job runs on its own virtual thread, at most `concurrency` at a time
+    private void processQueue(String queueName, int concurrency) {
+        Semaphore permits = new Semaphore(concurrency);
+        ErrorBackoff backoff = new ErrorBackoff();
 
         while (running.get()) {
             try {
-                String jobJson = queue.poll();
-                if (jobJson != null) {
-                    processJob(jobJson, queueName);
-                } else {
-                    // Sleep briefly if no jobs available
-                    Thread.sleep(1000);
+                permits.acquire();
+                // Moves the job to this consumer's processing list; the timeout only bounds how long shutdown waits
+                byte[] job = reliableQueue.take(queueName, pollTimeoutMs);
+                backoff.reset();
+                if (job == null) {
+                    permits.release();
+                    continue;
+                }
+                try {
+                    executorService.submit(() -> {
+                        try {
+                            jobExecutor.execute(job, queueName);
+                            reliableQueue.ack(queueName, job);
+                        } catch (Exception e) {
+                            // Not acknowledged (failure write or ack failed): left in flight, the reaper
+                            // requeues it once the lease expires
+                            log.error("Job left unacknowledged on queue: {}", queueName, e);
+                        } finally {
+                            permits.release();
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    // Shutting down: the job stays in flight and is handed back by shutdown()
+                    permits.release();
+                    break;
                 }
             } catch (InterruptedException e) {
                 Thread.currentThread().interrupt();
                 break;
             } catch (Exception e) {
+                permits.release();
                 log.error("Error processing queue: {}", queueName, e);
+                if (!backoff.pause()) {
+                    break;
+                }
             }
         }
     }
 
-    private void processJob(String jobJson, String queueName) {
-        try {
-            QueueJob job = objectMapper.readValue(jobJson, QueueJob.class);
-            JobProcessor processor = findProcessor(job.getJobType());
-
-            if (processor == null) {
-                log.error("No processor found for job type: {}", job.getJobType());
-                moveToDeadLetter(job, "No processor found");
-                return;
-            }
-
-            long startTime = System.currentTimeMillis();
+    // Batch mode: each permit covers a whole batch, which JobExecutor runs concurrently
+    private void processQueueInBatches(String queueName, int concurrency, int batchSize) {
+        Semaphore permits = new Semaphore(concurrency);
+        ErrorBackoff backoff = new ErrorBackoff();
 
+        while (running.get()) {
             try {
-                processor.process(job.getPayload());
-
-                long duration = System.currentTimeMillis() - startTime;
-                Map<String, Object> eventData = new HashMap<>();
-                eventData.put("jobId", job.getId());
-                eventData.put("jobType", job.getJobType());
-                eventData.put("queueName", queueName);
-                eventData.put("duration", duration);
-                structuredLogger.logBusinessEvent("JOB_PROCESSED", "SUCCESS", eventData);
-
-                log.info("Job processed successfully: {} in {}ms", job.getId(), duration);
-
+                permits.acquire();
+                List<byte[]> jobs = reliableQueue.takeBatch(queueName, batchSize, pollTimeoutMs);
+                backoff.reset();
+                if (jobs.isEmpty()) {
+                    permits.release();
+                    continue;
+                }
+                try {
+                    executorService.submit(() -> {
+                        try {
+                            jobExecutor.executeBatch(jobs, queueName);
+                            reliableQueue.ackAll(queueName, jobs);
+                        } catch (Exception e) {
+                            // Left in flight as a whole; the reaper requeues it once the lease expires
+                            log.error("Batch of {} jobs left unacknowledged on queue: {}", jobs.size(), queueName, e);
+                        } finally {
+                            permits.release();
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    permits.release();
+                    break;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
             } catch (Exception e) {
-                handleJobFailure(job, queueName, e);
+                permits.release();
+                log.error("Error processing queue: {}", queueName, e);
+                if (!backoff.pause()) {
+                    break;
+                }
             }
-
-        } catch (Exception e) {
-            log.error("Failed to parse job JSON: {}", jobJson, e);
         }
     }
 
-    private void handleJobFailure(QueueJob job, String queueName, Exception e) {
-        job.incrementRetry();
-        job.setErrorMessage(e.getMessage());
-
-        Map<String, Object> context = new HashMap<>();
-        context.put("jobId", job.getId());
-        context.put("jobType", job.getJobType());
-        context.put("retryCount", job.getRetryCount());
-        context.put("maxRetries", job.getMaxRetries());
-        structuredLogger.logError("JOB_PROCESSING_FAILED", e, context);
-
-        if (job.canRetry()) {
-            // Exponential backoff: 2^retryCount seconds
-            long delaySeconds = (long) Math.pow(2, job.getRetryCount());
-            scheduleRetry(job, queueName, delaySeconds);
-
-            log.warn("Job failed, scheduling retry {}/{} in {}s: {}",
-                job.getRetryCount(), job.getMaxRetries(), delaySeconds, job.getId());
-        } else {
-            moveToDeadLetter(job, e.getMessage());
-            log.error("Job exhausted retries, moved to dead letter: {}", job.getId());
-        }
-    }
-
-    private void scheduleRetry(QueueJob job, String queueName, long delaySeconds) {
+    private void reapExpiredLeases() {
         try {
-            RQueue<String> retryQueue = redissonClient.getQueue(RETRY_QUEUE_PREFIX + queueName);
-            String jobJson = objectMapper.writeValueAsString(job);
-
-            // Schedule retry with delay
-            redissonClient.getDelayedQueue(retryQueue).offer(jobJson, delaySeconds, TimeUnit.SECONDS);
-
+            reliableQueue.heartbeat(concurrencyByQueue.keySet());
+            concurrencyByQueue.keySet().forEach(reliableQueue::reap);
         } catch (Exception e) {
-            log.error("Failed to schedule retry for job: {}", job.getId(), e);
-            moveToDeadLetter(job, "Failed to schedule retry: " + e.getMessage());
+            log.error("Error reaping in-flight jobs", e);
         }
     }
 
-    private void moveToDeadLetter(QueueJob job, String reason) {
-        try {
-            job.setErrorMessage(reason);
-            RQueue<String> deadLetterQueue = redissonClient.getQueue(DEAD_LETTER_QUEUE);
-            String jobJson = objectMapper.writeValueAsString(job);
-            deadLetterQueue.offer(jobJson);
-
-            Map<String, Object> eventData = new HashMap<>();
-            eventData.put("jobId", job.getId());
-            eventData.put("jobType", job.getJobType());
-            eventData.put("reason", reason);
-            structuredLogger.logBusinessEvent("JOB_DEAD_LETTER", "FAILED", eventData);
-
-        } catch (Exception e) {
-            log.error("Failed to move job to dead letter queue: {}", job.getId(), e);
+    static Map<String, Integer> parseWorkers(String spec) {
+        Map<String, Integer> result = new LinkedHashMap<>();
+        for (String entry : spec.split(",")) {
+            String trimmed = entry.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            int separator = trimmed.lastIndexOf(':');
+            String queueName = separator < 0 ? trimmed : trimmed.substring(0, separator).trim();
+            int concurrency = separator < 0 ? 1 : Integer.parseInt(trimmed.substring(separator + 1).trim());
+            if (concurrency < 1) {
+                throw new IllegalArgumentException("Queue concurrency must be at least 1: " + entry);
+            }
+            result.put(queueName, concurrency);
         }
-    }
-
-    private JobProcessor findProcessor(String jobType) {
-        return jobProcessors.stream()
-                .filter(processor -> processor.getJobType().equals(jobType))
-                .findFirst()
-                .orElse(null);
+        return result;
     }
 
     @PreDestroy
@@ -175,6 +197,10 @@ public class QueueWorker {
         if (running.compareAndSet(true, false)) {
             log.info("Shutting down queue workers...");
 
+            if (reaper != null) {
+                reaper.shutdownNow();
+            }
+
             if (executorService != null) {
                 executorService.shutdown();
                 try {
@@ -187,6 +213,18 @@ public class QueueWorker {
                 }
             }
 
+            // Unacknowledged jobs go back to the head of their queue for the next consumer
+            for (String queueName : concurrencyByQueue.keySet()) {
+                try {
+                    int released = reliableQueue.release(queueName);
+                    if (released > 0) {
+                        log.info("Returned {} in-flight jobs to queue: {}", released, queueName);
+                    }
+                } catch (Exception e) {
+                    log.error("Failed to return in-flight jobs to queue: {}", queueName, e);
+                }
+            }
+
             log.info("Queue workers shut down completed");
         }
     }
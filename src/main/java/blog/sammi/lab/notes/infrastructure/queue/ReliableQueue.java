@@ -0,0 +1,262 @@
+package blog.sammi.lab.notes.infrastructure.queue;
+
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RBatch;
+import org.redisson.api.RBlockingDeque;
+import org.redisson.api.RDequeAsync;
+import org.redisson.api.RFuture;
+import org.redisson.api.RList;
+import org.redisson.api.RMap;
+import org.redisson.api.RScript;
+import org.redisson.api.RScriptAsync;
+import org.redisson.api.RSet;
+import org.redisson.api.RedissonClient;
+import org.redisson.api.queue.DequeMoveArgs;
+import org.redisson.client.codec.ByteArrayCodec;
+import org.redisson.client.codec.LongCodec;
+import org.redisson.codec.CompositeCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.time.Duration;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * At-least-once delivery on top of Valkey lists.
+ * <p>
+ * A take atomically moves the job from {@code queue:<name>} to this consumer's processing list
+ * ({@code queue:<name>:processing:<consumer>}, BLMOVE) and records a lease deadline. The job leaves
+ * the processing list only when it is acknowledged. The reaper puts entries back at the head of the
+ * queue when their lease expires or their consumer stops sending heartbeats, so a crashed or
+ * redeployed node loses nothing; a job that outlives its lease may run twice.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.queue", name = "backend", havingValue = "list", matchIfMissing = true)
+@Slf4j
+public class ReliableQueue implements QueueDepthProbe {
+
+    private static final String QUEUE_PREFIX = "queue:";
+    private static final String CONSUMER_HEARTBEAT_PREFIX = "queue:consumer:";
+
+    // KEYS: processing list, leases hash
+    private static final String ACK_SCRIPT =
+            "redis.call('lrem', KEYS[1], 1, ARGV[1]); " +
+            "redis.call('hdel', KEYS[2], ARGV[1]); " +
+            "return 1;";
+
+    // KEYS: processing list, queue, leases hash. Only the caller that removed the entry requeues it.
+    private static final String REQUEUE_SCRIPT =
+            "local removed = redis.call('lrem', KEYS[1], 1, ARGV[1]); " +
+            "if removed > 0 then redis.call('lpush', KEYS[2], ARGV[1]); end " +
+            "redis.call('hdel', KEYS[3], ARGV[1]); " +
+            "return removed;";
+
+    // Leases: encoded job -> deadline (epoch ms)
+    private static final CompositeCodec LEASES_CODEC = new CompositeCodec(ByteArrayCodec.INSTANCE, LongCodec.INSTANCE);
+
+    private final RedissonClient redissonClient;
+    private final JobCodec jobCodec;
+    private final String consumerId;
+    private final long visibilityTimeoutMs;
+    private final long heartbeatTtlMs;
+
+    public ReliableQueue(
+            RedissonClient redissonClient,
+            JobCodec jobCodec,
+            @Value("${app.queue.visibility-timeout-ms:300000}") long visibilityTimeoutMs,
+            @Value("${app.queue.reaper-interval-ms:30000}") long reaperIntervalMs) {
+        this.redissonClient = redissonClient;
+        this.jobCodec = jobCodec;
+        this.consumerId = hostName() + "-" + UUID.randomUUID().toString().substring(0, 8);
+        this.visibilityTimeoutMs = visibilityTimeoutMs;
+        // A consumer is presumed dead after missing three reaper rounds
+        this.heartbeatTtlMs = reaperIntervalMs * 3;
+    }
+
+    public String consumerId() {
+        return consumerId;
+    }
+
+    // Blocks up to timeoutMs; the returned job is in flight until ack or requeue
+    public byte[] take(String queueName, long timeoutMs) {
+        byte[] job = queue(queueName).move(Duration.ofMillis(timeoutMs),
+                DequeMoveArgs.pollFirst().addLastTo(processingKey(queueName, consumerId)));
+        if (job != null) {
+            leases(queueName).fastPut(job, System.currentTimeMillis() + visibilityTimeoutMs);
+        }
+        return job;
+    }
+
+    // One blocking take, then up to max - 1 more moves pipelined in a single round trip and one HSET for all leases
+    public List<byte[]> takeBatch(String queueName, int max, long timeoutMs) {
+        String processingKey = processingKey(queueName, consumerId);
+        byte[] first = queue(queueName).move(Duration.ofMillis(timeoutMs), DequeMoveArgs.pollFirst().addLastTo(processingKey));
+        if (first == null) {
+            return List.of();
+        }
+
+        List<byte[]> jobs = new ArrayList<>(max);
+        jobs.add(first);
+        if (max > 1) {
+            RBatch batch = redissonClient.createBatch();
+            RDequeAsync<byte[]> pipelined = batch.getDeque(QUEUE_PREFIX + queueName, ByteArrayCodec.INSTANCE);
+            List<RFuture<byte[]>> moves = new ArrayList<>(max - 1);
+            for (int i = 1; i < max; i++) {
+                moves.add(pipelined.moveAsync(DequeMoveArgs.pollFirst().addLastTo(processingKey)));
+            }
+            batch.execute();
+            for (RFuture<byte[]> move : moves) {
+                byte[] job = move.toCompletableFuture().getNow(null);
+                if (job != null) {
+                    jobs.add(job);
+                }
+            }
+        }
+
+        long deadline = System.currentTimeMillis() + visibilityTimeoutMs;
+        Map<byte[], Long> leases = new HashMap<>();
+        jobs.forEach(job -> leases.put(job, deadline));
+        leases(queueName).putAll(leases);
+        return jobs;
+    }
+
+    // Pipelined acknowledgement of a whole batch
+    public void ackAll(String queueName, List<byte[]> jobs) {
+        RBatch batch = redissonClient.createBatch();
+        RScriptAsync script = batch.getScript(ByteArrayCodec.INSTANCE);
+        List<Object> keys = List.of(processingKey(queueName, consumerId), leasesKey(queueName));
+        for (byte[] job : jobs) {
+            script.evalAsync(RScript.Mode.READ_WRITE, ACK_SCRIPT, RScript.ReturnType.INTEGER, keys, job);
+        }
+        batch.execute();
+    }
+
+    public void ack(String queueName, byte[] job) {
+        redissonClient.getScript(ByteArrayCodec.INSTANCE).eval(RScript.Mode.READ_WRITE, ACK_SCRIPT, RScript.ReturnType.INTEGER,
+                List.of(processingKey(queueName, consumerId), leasesKey(queueName)), job);
+    }
+
+    public void heartbeat(Collection<String> queueNames) {
+        redissonClient.getBucket(CONSUMER_HEARTBEAT_PREFIX + consumerId)
+                .set(System.currentTimeMillis(), heartbeatTtlMs, TimeUnit.MILLISECONDS);
+        for (String queueName : queueNames) {
+            consumers(queueName).add(consumerId);
+        }
+    }
+
+    // Requeue entries whose lease expired or whose consumer is gone; returns how many were requeued
+    public int reap(String queueName) {
+        long now = System.currentTimeMillis();
+        RMap<byte[], Long> leases = leases(queueName);
+        RSet<String> consumers = consumers(queueName);
+        int requeued = 0;
+
+        for (String consumer : consumers.readAll()) {
+            List<byte[]> inFlight = processing(queueName, consumer).readAll();
+            boolean alive = redissonClient.getBucket(CONSUMER_HEARTBEAT_PREFIX + consumer).isExists();
+
+            if (inFlight.isEmpty()) {
+                if (!alive) {
+                    consumers.remove(consumer);
+                }
+                continue;
+            }
+
+            for (byte[] job : inFlight) {
+                Long deadline = leases.get(job);
+                if (alive && deadline == null) {
+                    // Consumer stopped between the move and the lease write; start the clock now
+                    leases.fastPutIfAbsent(job, now + visibilityTimeoutMs);
+                } else if (!alive || deadline <= now) {
+                    requeued += requeue(queueName, consumer, job);
+                }
+            }
+        }
+
+        if (requeued > 0) {
+            log.warn("Requeued {} expired in-flight jobs on queue: {}", requeued, queueName);
+        }
+        return requeued;
+    }
+
+    // Shutdown: hand this consumer's unacknowledged jobs back, oldest first
+    public int release(String queueName) {
+        List<byte[]> inFlight = processing(queueName, consumerId).readAll();
+        int released = 0;
+        for (int i = inFlight.size() - 1; i >= 0; i--) {
+            released += requeue(queueName, consumerId, inFlight.get(i));
+        }
+        consumers(queueName).remove(consumerId);
+        return released;
+    }
+
+    // LLEN + HLEN + LINDEX 0; the head of the list is the job that has waited longest
+    @Override
+    public Snapshot sample(String queueName) {
+        RBatch batch = redissonClient.createBatch();
+        RDequeAsync<byte[]> queue = batch.getDeque(QUEUE_PREFIX + queueName, ByteArrayCodec.INSTANCE);
+        RFuture<Integer> ready = queue.sizeAsync();
+        RFuture<byte[]> head = queue.peekFirstAsync();
+        RFuture<Integer> inFlight = batch.getMap(leasesKey(queueName), LEASES_CODEC).sizeAsync();
+        batch.execute();
+
+        long oldestReadyAtMs = 0;
+        byte[] headJob = head.toCompletableFuture().getNow(null);
+        if (headJob != null) {
+            try {
+                QueueJob job = jobCodec.decode(headJob);
+                oldestReadyAtMs = job.getScheduledAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+            } catch (Exception e) {
+                log.debug("Unreadable job at the head of queue: {}", queueName, e);
+            }
+        }
+        return new Snapshot(ready.toCompletableFuture().getNow(0), inFlight.toCompletableFuture().getNow(0), oldestReadyAtMs);
+    }
+
+    private int requeue(String queueName, String consumer, byte[] job) {
+        Long removed = redissonClient.getScript(ByteArrayCodec.INSTANCE).eval(RScript.Mode.READ_WRITE, REQUEUE_SCRIPT, RScript.ReturnType.INTEGER,
+                List.of(processingKey(queueName, consumer), QUEUE_PREFIX + queueName, leasesKey(queueName)), job);
+        return removed == null ? 0 : removed.intValue();
+    }
+
+    private RBlockingDeque<byte[]> queue(String queueName) {
+        return redissonClient.getBlockingDeque(QUEUE_PREFIX + queueName, ByteArrayCodec.INSTANCE);
+    }
+
+    private RList<byte[]> processing(String queueName, String consumer) {
+        return redissonClient.getList(processingKey(queueName, consumer), ByteArrayCodec.INSTANCE);
+    }
+
+    private RMap<byte[], Long> leases(String queueName) {
+        return redissonClient.getMap(leasesKey(queueName), LEASES_CODEC);
+    }
+
+    private RSet<String> consumers(String queueName) {
+        return redissonClient.getSet(QUEUE_PREFIX + queueName + ":consumers");
+    }
+
+    private static String processingKey(String queueName, String consumer) {
+        return QUEUE_PREFIX + queueName + ":processing:" + consumer;
+    }
+
+    private static String leasesKey(String queueName) {
+        return QUEUE_PREFIX + queueName + ":leases";
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            return "worker";
+        }
+    }
+}
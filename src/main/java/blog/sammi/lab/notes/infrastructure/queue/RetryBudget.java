@@ -0,0 +1,40 @@
+package blog.sammi.lab.notes.infrastructure.queue;
+
+/**
+ * Per-queue retry budget (token bucket). Every first attempt deposits {@code ratio} tokens and a
+ * trickle of {@code minPerSecond} tokens keeps a floor for low-traffic queues; each retry spends one.
+ * When a downstream is failing everything, retries are capped at roughly ratio × traffic.
+ */
+final class RetryBudget {
+
+    private final double ratio;
+    private final double minPerSecond;
+    private final double capacity;
+
+    private double balance;
+    private long lastRefillNanos;
+
+    RetryBudget(double ratio, double minPerSecond, double capacity) {
+        this.ratio = ratio;
+        this.minPerSecond = minPerSecond;
+        this.capacity = capacity;
+        this.balance = capacity;
+        this.lastRefillNanos = System.nanoTime();
+    }
+
+    synchronized void recordAttempt() {
+        balance = Math.min(capacity, balance + ratio);
+    }
+
+    synchronized boolean tryWithdraw() {
+        long now = System.nanoTime();
+        balance = Math.min(capacity, balance + (now - lastRefillNanos) / 1e9 * minPerSecond);
+        lastRefillNanos = now;
+
+        if (balance < 1) {
+            return false;
+        }
+        balance -= 1;
+        return true;
+    }
+}
@@ -0,0 +1,100 @@
+package blog.sammi.lab.notes.infrastructure.queue;
+
+import blog.sammi.lab.notes.domain.service.RetryPolicy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Retry path for failed jobs: retries wait in the backend's {@link DelayedJobStore} until due, i.e. the
+ * {@code retry:<queue>} delayed queue that {@link ValkeyDelayedJobStore#drain} moves back onto
+ * {@code queue:<queue>}, or the journal of the embedded backend.
+ * A per-queue {@link RetryBudget} stops a failing downstream from turning every job into a
+ * retry storm: retries over budget are shed, and the caller dead-letters them (they can be replayed
+ * once the downstream recovers) instead of piling them up at a later time.
+ * <p>
+ * The stream backend also uses {@code retry:<queue>} to hold delayed jobs until they are due.
+ */
+@Component
+@Slf4j
+public class RetryScheduler {
+
+    static final String RETRY_QUEUE_PREFIX = "retry:";
+
+    private final DelayedJobStore delayedJobStore;
+    private final Map<String, RetryBudget> budgets = new ConcurrentHashMap<>();
+
+    private final double budgetRatio;
+    private final double budgetMinPerSecond;
+    private final double budgetCapacity;
+
+    public RetryScheduler(
+            DelayedJobStore delayedJobStore,
+            @Value("${app.queue.retry.budget-ratio:0.2}") double budgetRatio,
+            @Value("${app.queue.retry.budget-min-per-second:1}") double budgetMinPerSecond,
+            @Value("${app.queue.retry.budget-capacity:50}") double budgetCapacity) {
+        this.delayedJobStore = delayedJobStore;
+        this.budgetRatio = budgetRatio;
+        this.budgetMinPerSecond = budgetMinPerSecond;
+        this.budgetCapacity = budgetCapacity;
+    }
+
+    public void recordFirstAttempt(String queueName) {
+        budget(queueName).recordAttempt();
+    }
+
+    // Returns the delay used, or empty when the retry budget is spent and the retry was shed
+    public Optional<Duration> schedule(String queueName, byte[] job, int attempt, RetryPolicy policy) {
+        if (!budget(queueName).tryWithdraw()) {
+            log.warn("Retry budget exhausted for queue: {}, shedding retry", queueName);
+            return Optional.empty();
+        }
+        Duration delay = policy.delayFor(attempt);
+        delay(queueName, job, delay);
+        return Optional.of(delay);
+    }
+
+    // Schedules the retries the budget allows and returns the ones it shed
+    public List<Retry> scheduleAll(String queueName, List<Retry> retries) {
+        RetryBudget budget = budget(queueName);
+        List<DelayedJobStore.Delayed> delayed = new ArrayList<>(retries.size());
+        List<Retry> shed = new ArrayList<>();
+        for (Retry retry : retries) {
+            if (budget.tryWithdraw()) {
+                delayed.add(new DelayedJobStore.Delayed(retry.job(), retry.policy().delayFor(retry.attempt())));
+            } else {
+                shed.add(retry);
+            }
+        }
+        if (!delayed.isEmpty()) {
+            delayedJobStore.offerAll(queueName, delayed);
+        }
+        if (!shed.isEmpty()) {
+            log.warn("Retry budget exhausted for queue: {}, shedding {} retries", queueName, shed.size());
+        }
+        return shed;
+    }
+
+    public void delay(String queueName, byte[] job, Duration delay) {
+        delayedJobStore.offerAll(queueName, List.of(new DelayedJobStore.Delayed(job, delay)));
+    }
+
+    // Retries and delayed jobs not yet due
+    public long delayedCount(String queueName) {
+        return delayedJobStore.size(queueName);
+    }
+
+    public record Retry(byte[] job, int attempt, RetryPolicy policy) {}
+
+    private RetryBudget budget(String queueName) {
+        return budgets.computeIfAbsent(queueName,
+                name -> new RetryBudget(budgetRatio, budgetMinPerSecond, budgetCapacity));
+    }
+}
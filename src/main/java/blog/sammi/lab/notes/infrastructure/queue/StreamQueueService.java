@@ -0,0 +1,273 @@
+package blog.sammi.lab.notes.infrastructure.queue;
+
+import blog.sammi.lab.notes.domain.job.JobPayload;
+import blog.sammi.lab.notes.domain.service.QueueService;
+import blog.sammi.lab.notes.infrastructure.config.StructuredLogger;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RBatch;
+import org.redisson.api.RScript;
+import org.redisson.api.RStream;
+import org.redisson.api.RStreamAsync;
+import org.redisson.api.RedissonClient;
+import org.redisson.api.StreamMessageId;
+import org.redisson.api.stream.StreamAddArgs;
+import org.redisson.client.codec.ByteArrayCodec;
+import org.redisson.client.codec.StringCodec;
+import org.redisson.codec.CompositeCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Stream backend: each queue is a Valkey stream ({@code stream:<queue>}) consumed by one consumer
+ * group, so every app node reads a disjoint share of the entries. Entries older than
+ * {@code app.queue.stream.retention-ms} are trimmed by {@link #trim}, but only once every group has
+ * acknowledged them; an undelivered or pending entry is never trimmed, however old.
+ */
+@Service
+@ConditionalOnProperty(prefix = "app.queue", name = "backend", havingValue = "stream")
+@Slf4j
+public class StreamQueueService implements QueueService, QueueDepthProbe {
+
+    static final String STREAM_PREFIX = "stream:";
+    static final String JOB_FIELD = "job";
+
+    // KEYS: stream; ARGV: group, max entries counted when the server does not report lag.
+    // Returns {entries not yet delivered to the group, pending entries, ms timestamp of the oldest undelivered entry}
+    private static final String SAMPLE_SCRIPT =
+            "local ok, groups = pcall(redis.call, 'XINFO', 'GROUPS', KEYS[1]); " +
+            "if not ok then return {0, 0, 0}; end " +
+            "for _, g in ipairs(groups) do " +
+            "  local info = {}; " +
+            "  for i = 1, #g, 2 do info[g[i]] = g[i + 1]; end " +
+            "  if info['name'] == ARGV[1] then " +
+            "    local after = '(' .. info['last-delivered-id']; " +
+            "    local head = redis.call('XRANGE', KEYS[1], after, '+', 'COUNT', 1); " +
+            "    local oldest = 0; " +
+            "    if #head > 0 then oldest = tonumber(string.match(head[1][1], '^(%d+)')); end " +
+            "    local lag = info['lag']; " +
+            "    if type(lag) ~= 'number' then lag = #redis.call('XRANGE', KEYS[1], after, '+', 'COUNT', tonumber(ARGV[2])); end " +
+            "    return {lag, info['pending'], oldest}; " +
+            "  end " +
+            "end " +
+            "return {0, 0, 0};";
+    private static final int MAX_COUNTED_ENTRIES = 10000;
+    // KEYS: stream; ARGV: retention cutoff (ms). Trims (MINID ~) below the cutoff and below every group's
+    // acknowledged watermark: its oldest pending entry, or its last delivered one when nothing is pending
+    private static final String TRIM_SCRIPT =
+            "local function before(a, b) " +
+            "  local am, as = string.match(a, '^(%d+)-(%d+)$'); " +
+            "  local bm, bs = string.match(b, '^(%d+)-(%d+)$'); " +
+            "  am, as, bm, bs = tonumber(am), tonumber(as), tonumber(bm), tonumber(bs); " +
+            "  return am < bm or (am == bm and as < bs); " +
+            "end " +
+            "local ok, groups = pcall(redis.call, 'XINFO', 'GROUPS', KEYS[1]); " +
+            "if not ok or #groups == 0 then return 0; end " +
+            "local cutoff = ARGV[1] .. '-0'; " +
+            "for _, g in ipairs(groups) do " +
+            "  local info = {}; " +
+            "  for i = 1, #g, 2 do info[g[i]] = g[i + 1]; end " +
+            "  local watermark = info['last-delivered-id']; " +
+            "  if tonumber(info['pending']) > 0 then " +
+            "    local oldest = redis.call('XPENDING', KEYS[1], info['name'])[2]; " +
+            "    if before(oldest, watermark) then watermark = oldest; end " +
+            "  end " +
+            "  if before(watermark, cutoff) then cutoff = watermark; end " +
+            "end " +
+            "return redis.call('XTRIM', KEYS[1], 'MINID', '~', cutoff);";
+    // Field names as strings, encoded jobs as raw bytes
+    private static final CompositeCodec STREAM_CODEC =
+            new CompositeCodec(StringCodec.INSTANCE, ByteArrayCodec.INSTANCE, ByteArrayCodec.INSTANCE);
+
+    private final RedissonClient redissonClient;
+    private final JobCodec jobCodec;
+    private final StructuredLogger structuredLogger;
+    private final RetryScheduler retryScheduler;
+    private final JobDeduplicator jobDeduplicator;
+    private final String group;
+    private final long retentionMs;
+
+    public StreamQueueService(
+            RedissonClient redissonClient,
+            JobCodec jobCodec,
+            StructuredLogger structuredLogger,
+            RetryScheduler retryScheduler,
+            JobDeduplicator jobDeduplicator,
+            @Value("${app.queue.stream.group:notes-workers}") String group,
+            @Value("${app.queue.stream.retention-ms:86400000}") long retentionMs) {
+        this.redissonClient = redissonClient;
+        this.jobCodec = jobCodec;
+        this.structuredLogger = structuredLogger;
+        this.retryScheduler = retryScheduler;
+        this.jobDeduplicator = jobDeduplicator;
+        this.group = group;
+        this.retentionMs = retentionMs;
+    }
+
+    @Override
+    public void enqueue(String queueName, JobPayload payload) {
+        try {
+            QueueJob job = new QueueJob(payload);
+            StreamMessageId id = append(queueName, jobCodec.encode(job));
+
+            structuredLogger.business("JOB_ENQUEUED", "SUCCESS")
+                    .with("queueName", queueName)
+                    .with("jobType", job.getJobType())
+                    .with("jobId", job.getId())
+                    .with("streamId", id.toString())
+                    .log();
+
+            log.info("Job enqueued: {} to stream: {}", job.getId(), queueName);
+
+        } catch (Exception e) {
+            structuredLogger.error("JOB_ENQUEUE", e)
+                    .with("queueName", queueName)
+                    .with("jobType", payload.jobType())
+                    .log();
+            throw new RuntimeException("Failed to enqueue job", e);
+        }
+    }
+
+    @Override
+    public void enqueue(String queueName, JobPayload payload, long delaySeconds) {
+        try {
+            QueueJob job = new QueueJob(payload);
+            job.setScheduledAt(job.getScheduledAt().plusSeconds(delaySeconds));
+
+            // Streams have no delayed delivery; the job waits in the delayed retry list until due
+            retryScheduler.delay(queueName, jobCodec.encode(job), Duration.ofSeconds(delaySeconds));
+
+            structuredLogger.business("JOB_SCHEDULED", "SUCCESS")
+                    .with("queueName", queueName)
+                    .with("jobType", job.getJobType())
+                    .with("jobId", job.getId())
+                    .with("delaySeconds", delaySeconds)
+                    .log();
+
+            log.info("Job scheduled: {} to stream: {} with delay: {}s", job.getId(), queueName, delaySeconds);
+
+        } catch (Exception e) {
+            structuredLogger.error("JOB_SCHEDULE", e)
+                    .with("queueName", queueName)
+                    .with("jobType", payload.jobType())
+                    .with("delaySeconds", delaySeconds)
+                    .log();
+            throw new RuntimeException("Failed to schedule job", e);
+        }
+    }
+
+    @Override
+    public boolean enqueue(String queueName, JobPayload payload, String dedupKey, Duration window) {
+        String token = jobDeduplicator.claim(dedupKey, window);
+        if (token == null) {
+            structuredLogger.business("JOB_DEDUPLICATED", "SKIPPED")
+                    .with("queueName", queueName)
+                    .with("jobType", payload.jobType())
+                    .with("dedupKey", dedupKey)
+                    .log();
+            return false;
+        }
+        try {
+            enqueueClaimed(queueName, payload, 0, dedupKey, token);
+            return true;
+        } catch (RuntimeException e) {
+            jobDeduplicator.release(dedupKey, token);
+            throw e;
+        }
+    }
+
+    @Override
+    public void enqueueClaimed(String queueName, JobPayload payload, long delaySeconds, String dedupKey, String dedupToken) {
+        try {
+            QueueJob job = new QueueJob(payload);
+            job.setScheduledAt(job.getScheduledAt().plusSeconds(delaySeconds));
+            job.setDedupKey(dedupKey);
+            job.setDedupToken(dedupToken);
+            byte[] encoded = jobCodec.encode(job);
+            if (delaySeconds > 0) {
+                retryScheduler.delay(queueName, encoded, Duration.ofSeconds(delaySeconds));
+            } else {
+                append(queueName, encoded);
+            }
+
+            structuredLogger.business("JOB_ENQUEUED", "SUCCESS")
+                    .with("queueName", queueName)
+                    .with("jobType", job.getJobType())
+                    .with("jobId", job.getId())
+                    .with("dedupKey", dedupKey)
+                    .with("delaySeconds", delaySeconds)
+                    .log();
+
+            log.info("Job enqueued: {} to stream: {} with dedup key: {}", job.getId(), queueName, dedupKey);
+
+        } catch (Exception e) {
+            structuredLogger.error("JOB_ENQUEUE", e)
+                    .with("queueName", queueName)
+                    .with("jobType", payload.jobType())
+                    .with("dedupKey", dedupKey)
+                    .log();
+            throw new RuntimeException("Failed to enqueue job", e);
+        }
+    }
+
+    // All XADDs pipelined in one batch
+    @Override
+    public void enqueueAll(String queueName, List<? extends JobPayload> payloads) {
+        if (payloads.isEmpty()) {
+            return;
+        }
+        try {
+            RBatch batch = redissonClient.createBatch();
+            RStreamAsync<String, byte[]> stream = batch.getStream(STREAM_PREFIX + queueName, STREAM_CODEC);
+            for (JobPayload payload : payloads) {
+                stream.addAsync(StreamAddArgs.entry(JOB_FIELD, jobCodec.encode(new QueueJob(payload))));
+            }
+            batch.execute();
+
+            structuredLogger.business("JOBS_ENQUEUED", "SUCCESS")
+                    .with("queueName", queueName)
+                    .with("count", payloads.size())
+                    .log();
+
+            log.info("{} jobs enqueued to stream: {}", payloads.size(), queueName);
+
+        } catch (Exception e) {
+            structuredLogger.error("JOB_ENQUEUE", e)
+                    .with("queueName", queueName)
+                    .with("count", payloads.size())
+                    .log();
+            throw new RuntimeException("Failed to enqueue jobs", e);
+        }
+    }
+
+    @Override
+    public void scheduleJob(JobPayload payload, long delaySeconds) {
+        enqueue("default", payload, delaySeconds);
+    }
+
+    @Override
+    public Snapshot sample(String queueName) {
+        List<Long> sample = redissonClient.getScript(StringCodec.INSTANCE).eval(RScript.Mode.READ_ONLY, SAMPLE_SCRIPT,
+                RScript.ReturnType.MULTI, List.of(STREAM_PREFIX + queueName), group, String.valueOf(MAX_COUNTED_ENTRIES));
+        return new Snapshot(sample.get(0), sample.get(1), sample.get(2));
+    }
+
+    StreamMessageId append(String queueName, byte[] job) {
+        return stream(queueName).add(StreamAddArgs.entry(JOB_FIELD, job));
+    }
+
+    // Drops acknowledged entries older than the retention; returns how many were removed
+    long trim(String queueName) {
+        Long trimmed = redissonClient.getScript(StringCodec.INSTANCE).eval(RScript.Mode.READ_WRITE, TRIM_SCRIPT,
+                RScript.ReturnType.INTEGER, List.of(STREAM_PREFIX + queueName),
+                String.valueOf(System.currentTimeMillis() - retentionMs));
+        return trimmed == null ? 0 : trimmed;
+    }
+
+    RStream<String, byte[]> stream(String queueName) {
+        return redissonClient.getStream(STREAM_PREFIX + queueName, STREAM_CODEC);
+    }
+}
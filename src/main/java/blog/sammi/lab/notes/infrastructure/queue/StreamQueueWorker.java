@@ -0,0 +1,312 @@
+package blog.sammi.lab.notes.infrastructure.queue;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.AutoClaimResult;
+import org.redisson.api.RStream;
+import org.redisson.api.StreamMessageId;
+import org.redisson.api.stream.StreamCreateGroupArgs;
+import org.redisson.api.stream.StreamReadGroupArgs;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Stream backend consumer. Every node joins the same consumer group, reads batches with
+ * XREADGROUP and acknowledges each entry after processing. Entries left pending by a dead or
+ * stuck consumer are taken over with XAUTOCLAIM once idle for {@code app.queue.visibility-timeout-ms}.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.queue", name = "backend", havingValue = "stream")
+@Slf4j
+public class StreamQueueWorker {
+
+    private final StreamQueueService streamQueueService;
+    private final JobExecutor jobExecutor;
+    private final ValkeyDelayedJobStore valkeyDelayedJobStore;
+    private final QueueMetrics queueMetrics;
+
+    private final String workers;
+    private final String batchSizes;
+    private final String group;
+    private final String consumerName;
+    private final int batchSize;
+    private final long pollTimeoutMs;
+    private final long claimIdleMs;
+    private final long claimIntervalMs;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private final Map<String, Semaphore> permitsByQueue = new ConcurrentHashMap<>();
+    private Map<String, Integer> concurrencyByQueue = Map.of();
+    private Map<String, Integer> batchSizeByQueue = Map.of();
+    private ExecutorService executorService;
+    private ScheduledExecutorService claimer;
+
+    public StreamQueueWorker(
+            StreamQueueService streamQueueService,
+            JobExecutor jobExecutor,
+            ValkeyDelayedJobStore valkeyDelayedJobStore,
+            QueueMetrics queueMetrics,
+            @Value("${app.queue.workers:default:1,email:2,notifications:1}") String workers,
+            @Value("${app.queue.batch-sizes:}") String batchSizes,
+            @Value("${app.queue.stream.group:notes-workers}") String group,
+            @Value("${app.queue.stream.batch-size:16}") int batchSize,
+            @Value("${app.queue.poll-timeout-ms:2000}") long pollTimeoutMs,
+            @Value("${app.queue.visibility-timeout-ms:300000}") long claimIdleMs,
+            @Value("${app.queue.reaper-interval-ms:30000}") long claimIntervalMs) {
+        this.streamQueueService = streamQueueService;
+        this.jobExecutor = jobExecutor;
+        this.valkeyDelayedJobStore = valkeyDelayedJobStore;
+        this.queueMetrics = queueMetrics;
+        this.workers = workers;
+        this.batchSizes = batchSizes;
+        this.group = group;
+        this.consumerName = hostName() + "-" + UUID.randomUUID().toString().substring(0, 8);
+        this.batchSize = batchSize;
+        this.pollTimeoutMs = pollTimeoutMs;
+        this.claimIdleMs = claimIdleMs;
+        this.claimIntervalMs = claimIntervalMs;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startWorkers() {
+        if (running.compareAndSet(false, true)) {
+            executorService = Executors.newVirtualThreadPerTaskExecutor();
+            concurrencyByQueue = QueueWorker.parseWorkers(workers);
+            batchSizeByQueue = QueueWorker.parseWorkers(batchSizes);
+
+            concurrencyByQueue.forEach((queueName, concurrency) -> {
+                ensureGroup(queueName);
+                permitsByQueue.put(queueName, new Semaphore(concurrency));
+                executorService.submit(() -> consume(queueName));
+                executorService.submit(() -> valkeyDelayedJobStore.drainTo(queueName, pollTimeoutMs, running::get,
+                        job -> streamQueueService.append(queueName, job)));
+            });
+
+            claimer = Executors.newSingleThreadScheduledExecutor(Thread.ofVirtual().name("stream-claimer").factory());
+            claimer.scheduleWithFixedDelay(this::claimIdleEntries, 0, claimIntervalMs, TimeUnit.MILLISECONDS);
+
+            log.info("Stream workers started as {} in group {}: {}", consumerName, group, concurrencyByQueue);
+        }
+    }
+
+    private void consume(String queueName) {
+        RStream<String, byte[]> stream = streamQueueService.stream(queueName);
+        Semaphore permits = permitsByQueue.get(queueName);
+        int jobBatchSize = batchSizeByQueue.getOrDefault(queueName, 1);
+        ErrorBackoff backoff = new ErrorBackoff();
+
+        while (running.get()) {
+            try {
+                // Only fetch what can start now, so entries do not sit pending behind a full semaphore;
+                // in batch mode one permit covers a whole read
+                int count = jobBatchSize > 1
+                        ? jobBatchSize
+                        : Math.max(1, Math.min(batchSize, permits.availablePermits()));
+                Map<StreamMessageId, Map<String, byte[]>> batch = stream.readGroup(group, consumerName,
+                        StreamReadGroupArgs.neverDelivered()
+                                .count(count)
+                                .timeout(Duration.ofMillis(pollTimeoutMs)));
+                backoff.reset();
+                if (batch == null || batch.isEmpty()) {
+                    continue;
+                }
+                if (jobBatchSize > 1) {
+                    dispatchBatch(queueName, stream, permits, batch);
+                    continue;
+                }
+                for (Map.Entry<StreamMessageId, Map<String, byte[]>> entry : batch.entrySet()) {
+                    dispatch(queueName, stream, permits, entry.getKey(), entry.getValue());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (RejectedExecutionException e) {
+                // Shutting down; undispatched entries stay pending and are claimed by another consumer
+                break;
+            } catch (Exception e) {
+                log.error("Error reading stream: {}", queueName, e);
+                if (!backoff.pause()) {
+                    break;
+                }
+            }
+        }
+    }
+
+    private void dispatch(String queueName, RStream<String, byte[]> stream, Semaphore permits,
+                          StreamMessageId id, Map<String, byte[]> fields) throws InterruptedException {
+        byte[] job = fields == null ? null : fields.get(StreamQueueService.JOB_FIELD);
+        if (job == null) {
+            // Malformed, or deleted while pending; nothing to run
+            log.warn("Stream entry {} on queue {} has no job, acknowledging it as lost", id, queueName);
+            queueMetrics.recordLost(queueName, 1);
+            stream.ack(group, id);
+            return;
+        }
+
+        permits.acquire();
+        try {
+            executorService.submit(() -> {
+                try {
+                    jobExecutor.execute(job, queueName);
+                    stream.ack(group, id);
+                } catch (Exception e) {
+                    // Not acknowledged (failure write or ack failed): left pending, claimed again once
+                    // idle for the visibility timeout
+                    log.error("Stream entry {} left unacknowledged on queue: {}", id, queueName, e);
+                } finally {
+                    permits.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    // Batch mode: the whole read runs as one JobExecutor batch and is acknowledged with a single XACK
+    private void dispatchBatch(String queueName, RStream<String, byte[]> stream, Semaphore permits,
+                               Map<StreamMessageId, Map<String, byte[]>> batch) throws InterruptedException {
+        StreamMessageId[] ids = batch.keySet().toArray(new StreamMessageId[0]);
+        List<byte[]> jobs = batch.values().stream()
+                .filter(Objects::nonNull)
+                .map(fields -> fields.get(StreamQueueService.JOB_FIELD))
+                .filter(Objects::nonNull)
+                .toList();
+        if (jobs.size() < ids.length) {
+            log.warn("{} stream entries on queue {} have no job, acknowledging them as lost", ids.length - jobs.size(), queueName);
+            queueMetrics.recordLost(queueName, ids.length - jobs.size());
+        }
+
+        permits.acquire();
+        try {
+            executorService.submit(() -> {
+                try {
+                    jobExecutor.executeBatch(jobs, queueName);
+                    stream.ack(group, ids);
+                } catch (Exception e) {
+                    // Left pending as a whole; claimed again once idle for the visibility timeout
+                    log.error("Batch of {} stream entries left unacknowledged on queue: {}", ids.length, queueName, e);
+                } finally {
+                    permits.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    // Walks the whole pending list each tick, `batchSize` entries per XAUTOCLAIM, following the returned
+    // cursor until it wraps to 0-0; dispatch waits for permits, so claims keep pace with processing.
+    // Then trims acknowledged entries past the retention
+    private void claimIdleEntries() {
+        for (String queueName : concurrencyByQueue.keySet()) {
+            try {
+                RStream<String, byte[]> stream = streamQueueService.stream(queueName);
+                Semaphore permits = permitsByQueue.get(queueName);
+                StreamMessageId cursor = StreamMessageId.MIN;
+                do {
+                    AutoClaimResult<String, byte[]> claimed = stream.autoClaim(group, consumerName,
+                            claimIdleMs, TimeUnit.MILLISECONDS, cursor, batchSize);
+                    Map<StreamMessageId, Map<String, byte[]>> entries = claimed.getMessages();
+                    if (!entries.isEmpty()) {
+                        log.warn("Claimed {} idle stream entries on queue: {}", entries.size(), queueName);
+                    }
+                    for (Map.Entry<StreamMessageId, Map<String, byte[]>> entry : entries.entrySet()) {
+                        dispatch(queueName, stream, permits, entry.getKey(), entry.getValue());
+                    }
+                    cursor = claimed.getNextId();
+                } while (running.get() && !isStart(cursor));
+
+                long trimmed = streamQueueService.trim(queueName);
+                if (trimmed > 0) {
+                    log.debug("Trimmed {} acknowledged stream entries on queue: {}", trimmed, queueName);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("Error claiming idle entries on queue: {}", queueName, e);
+            }
+        }
+    }
+
+    private static boolean isStart(StreamMessageId id) {
+        return id == null || (id.getId0() == 0 && id.getId1() == 0);
+    }
+
+    private void ensureGroup(String queueName) {
+        try {
+            streamQueueService.stream(queueName).createGroup(StreamCreateGroupArgs.name(group)
+                    .id(StreamMessageId.ALL)
+                    .makeStream());
+        } catch (RuntimeException e) {
+            if (!isBusyGroup(e)) {
+                throw new IllegalStateException("Failed to create consumer group " + group + " on queue: " + queueName, e);
+            }
+            // Another node (or a previous run) already created it
+            log.debug("Consumer group {} already exists on queue: {}", group, queueName);
+        }
+    }
+
+    private static boolean isBusyGroup(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause.getMessage() != null && cause.getMessage().contains("BUSYGROUP")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (running.compareAndSet(true, false)) {
+            log.info("Shutting down stream workers...");
+
+            if (claimer != null) {
+                claimer.shutdownNow();
+            }
+
+            if (executorService != null) {
+                executorService.shutdown();
+                try {
+                    if (!executorService.awaitTermination(30, TimeUnit.SECONDS)) {
+                        executorService.shutdownNow();
+                    }
+                } catch (InterruptedException e) {
+                    executorService.shutdownNow();
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+            // Unacknowledged entries stay in the group's pending list for another consumer to claim
+            log.info("Stream workers shut down completed");
+        }
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            return "worker";
+        }
+    }
+}
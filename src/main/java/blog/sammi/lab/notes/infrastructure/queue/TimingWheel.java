@@ -0,0 +1,82 @@
+package blog.sammi.lab.notes.infrastructure.queue;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Hashed timing wheel: O(1) schedule and expiry per entry. Entries land in the slot of their due tick;
+ * entries more than one revolution away carry a remaining-rounds count. Precision is one tick.
+ */
+final class TimingWheel<T> {
+
+    private final long tickMs;
+    private final int mask;
+    private final List<List<Timeout<T>>> slots;
+
+    private long currentTick;
+    private int size;
+
+    TimingWheel(long tickMs, int wheelSize, long startMs) {
+        if (Integer.bitCount(wheelSize) != 1) {
+            throw new IllegalArgumentException("Wheel size must be a power of two: " + wheelSize);
+        }
+        this.tickMs = tickMs;
+        this.mask = wheelSize - 1;
+        this.slots = new ArrayList<>(wheelSize);
+        for (int i = 0; i < wheelSize; i++) {
+            slots.add(new ArrayList<>());
+        }
+        this.currentTick = startMs / tickMs;
+    }
+
+    // Entries already due expire on the next advance
+    synchronized void schedule(T value, long dueAtMs) {
+        long dueTick = Math.max(dueAtMs / tickMs, currentTick + 1);
+        long rounds = (dueTick - currentTick - 1) / slots.size();
+        slots.get((int) (dueTick & mask)).add(new Timeout<>(value, rounds));
+        size++;
+    }
+
+    // Moves the wheel up to nowMs, handing every expired entry to the sink (outside the lock)
+    void advance(long nowMs, Consumer<T> expired) {
+        List<T> due = new ArrayList<>();
+        synchronized (this) {
+            long targetTick = nowMs / tickMs;
+            while (currentTick < targetTick) {
+                currentTick++;
+                Iterator<Timeout<T>> slot = slots.get((int) (currentTick & mask)).iterator();
+                while (slot.hasNext()) {
+                    Timeout<T> timeout = slot.next();
+                    if (timeout.rounds > 0) {
+                        timeout.rounds--;
+                    } else {
+                        slot.remove();
+                        due.add(timeout.value);
+                    }
+                }
+            }
+            size -= due.size();
+        }
+        due.forEach(expired);
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    long tickMs() {
+        return tickMs;
+    }
+
+    private static final class Timeout<T> {
+        private final T value;
+        private long rounds;
+
+        private Timeout(T value, long rounds) {
+            this.value = value;
+            this.rounds = rounds;
+        }
+    }
+}
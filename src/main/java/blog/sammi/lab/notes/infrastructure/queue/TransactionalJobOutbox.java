@@ -0,0 +1,92 @@
+package blog.sammi.lab.notes.infrastructure.queue;
+
+import blog.sammi.lab.notes.domain.entity.OutboxJob;
+import blog.sammi.lab.notes.domain.job.JobPayload;
+import blog.sammi.lab.notes.domain.repository.OutboxJobRepository;
+import blog.sammi.lab.notes.domain.service.JobOutbox;
+import blog.sammi.lab.notes.infrastructure.config.StructuredLogger;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Map;
+
+// Writes the job as an outbox row in the caller's transaction; OutboxRelay moves it to the queue
+@Service
+@RequiredArgsConstructor
+public class TransactionalJobOutbox implements JobOutbox {
+
+    private final OutboxJobRepository outboxJobRepository;
+    private final OutboxRelay outboxRelay;
+    private final ObjectMapper objectMapper;
+    private final JobDeduplicator jobDeduplicator;
+    private final StructuredLogger structuredLogger;
+
+    @Override
+    @Transactional
+    public void enqueue(String queueName, JobPayload payload) {
+        enqueue(queueName, payload, 0);
+    }
+
+    @Override
+    @Transactional
+    public void enqueue(String queueName, JobPayload payload, long delaySeconds) {
+        save(queueName, payload, delaySeconds, null, null);
+    }
+
+    private void save(String queueName, JobPayload payload, long delaySeconds, String dedupKey, String dedupToken) {
+        OutboxJob job = new OutboxJob();
+        job.setQueueName(queueName);
+        job.setJobType(payload.jobType());
+        // Stored as JSONB; the relay turns it back into the registered payload type
+        job.setPayload(objectMapper.convertValue(payload, new TypeReference<Map<String, Object>>() {}));
+        job.setDelaySeconds(delaySeconds);
+        job.setDedupKey(dedupKey);
+        job.setDedupToken(dedupToken);
+        outboxJobRepository.save(job);
+
+        // Relay right after commit instead of waiting for the next poll
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    outboxRelay.wakeUp();
+                }
+            });
+        }
+    }
+
+    // The key is claimed right away, so concurrent requests coalesce before either commits; the relayed job
+    // carries it and frees it once processed
+    @Override
+    @Transactional
+    public boolean enqueue(String queueName, JobPayload payload, String dedupKey, Duration window) {
+        String token = jobDeduplicator.claim(dedupKey, window);
+        if (token == null) {
+            structuredLogger.business("JOB_DEDUPLICATED", "SKIPPED")
+                    .with("queueName", queueName)
+                    .with("jobType", payload.jobType())
+                    .with("dedupKey", dedupKey)
+                    .log();
+            return false;
+        }
+
+        save(queueName, payload, 0, dedupKey, token);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        jobDeduplicator.release(dedupKey, token);
+                    }
+                }
+            });
+        }
+        return true;
+    }
+}
@@ -0,0 +1,228 @@
+package blog.sammi.lab.notes.infrastructure.queue;
+
+import blog.sammi.lab.notes.domain.service.DeadLetterQueue;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.BatchOptions;
+import org.redisson.api.RBatch;
+import org.redisson.api.RList;
+import org.redisson.api.RListAsync;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.ByteArrayCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongConsumer;
+
+/**
+ * Dead letter list ({@code dead_letter}) browsing, replay and purge.
+ * <p>
+ * Workers only ever append to the list, so positions of existing entries are stable. Replay and purge
+ * overwrite each matching entry with a tombstone (LSET) and drop all tombstones with a single LREM at
+ * the end, instead of one O(n) LREM per entry. Only one replay or purge runs at a time across nodes.
+ * Replayed jobs go to {@code retry:<queue>}, which the list and stream backends drain into the live queue.
+ * The embedded backend keeps its dead letters in its journal instead ({@link EmbeddedDeadLetterQueue}).
+ */
+@Component
+@ConditionalOnExpression("'${app.queue.backend:list}' != 'embedded'")
+@Slf4j
+public class ValkeyDeadLetterQueue implements DeadLetterQueue, DeadLetterStore {
+
+    static final String DEAD_LETTER_QUEUE = "dead_letter";
+    private static final byte[] TOMBSTONE = "__dead_letter_removed__".getBytes(StandardCharsets.UTF_8);
+    private static final String LOCK_KEY = "dead_letter:lock";
+    private static final String FALLBACK_QUEUE = "default";
+    private static final int SCAN_CHUNK = 500;
+    // Upper bound on entries read per browse request when the filter is selective
+    private static final int MAX_SCAN_PER_PAGE = 20000;
+
+    private final RedissonClient redissonClient;
+    private final JobCodec jobCodec;
+    private final int replayBatchSize;
+    private final long replayIntervalMs;
+
+    public ValkeyDeadLetterQueue(
+            RedissonClient redissonClient,
+            JobCodec jobCodec,
+            @Value("${app.queue.dead-letter.replay-batch-size:200}") int replayBatchSize,
+            @Value("${app.queue.dead-letter.replay-interval-ms:1000}") long replayIntervalMs) {
+        this.redissonClient = redissonClient;
+        this.jobCodec = jobCodec;
+        this.replayBatchSize = replayBatchSize;
+        this.replayIntervalMs = replayIntervalMs;
+    }
+
+    // One RPUSH for the whole batch
+    @Override
+    public void addAll(List<byte[]> jobs) {
+        deadLetters().addAll(jobs);
+    }
+
+    @Override
+    public long size() {
+        return deadLetters().size();
+    }
+
+    @Override
+    public Page browse(Filter filter, long cursor, int limit) {
+        RList<byte[]> list = deadLetters();
+        int size = list.size();
+        int position = (int) Math.max(0, cursor);
+        int scanned = 0;
+        List<Entry> entries = new ArrayList<>(limit);
+
+        while (position < size && entries.size() < limit && scanned < MAX_SCAN_PER_PAGE) {
+            List<byte[]> chunk = list.range(position, Math.min(position + SCAN_CHUNK, size) - 1);
+            if (chunk.isEmpty()) {
+                break;
+            }
+            for (byte[] encoded : chunk) {
+                position++;
+                scanned++;
+                Entry entry = toEntry(encoded);
+                if (entry != null && filter.matches(entry)) {
+                    entries.add(entry);
+                    if (entries.size() == limit) {
+                        break;
+                    }
+                }
+            }
+        }
+        return new Page(entries, position < size ? (long) position : null);
+    }
+
+    @Override
+    public long replay(Filter filter, LongConsumer progress) {
+        return removeMatching(filter, replayBatchSize, replayIntervalMs, progress, true);
+    }
+
+    @Override
+    public long purge(Filter filter) {
+        return removeMatching(filter, SCAN_CHUNK, 0, removed -> {}, false);
+    }
+
+    private long removeMatching(Filter filter, int batchSize, long pauseMs, LongConsumer progress, boolean replay) {
+        RLock lock = redissonClient.getLock(LOCK_KEY);
+        if (!lock.tryLock()) {
+            throw new IllegalStateException("Another dead letter replay or purge is running");
+        }
+        try {
+            RList<byte[]> list = deadLetters();
+            List<Match> pending = new ArrayList<>(batchSize);
+            long removed = 0;
+            int position = 0;
+            int size = list.size();
+
+            while (position < size) {
+                List<byte[]> chunk = list.range(position, Math.min(position + SCAN_CHUNK, size) - 1);
+                if (chunk.isEmpty()) {
+                    break;
+                }
+                for (byte[] encoded : chunk) {
+                    int index = position++;
+                    QueueJob job = parse(encoded);
+                    if (job == null || !filter.matches(toEntry(job))) {
+                        continue;
+                    }
+                    pending.add(new Match(index, job));
+                    if (pending.size() == batchSize) {
+                        removed += flush(pending, replay);
+                        progress.accept(removed);
+                        pause(pauseMs);
+                    }
+                }
+            }
+            removed += flush(pending, replay);
+            progress.accept(removed);
+
+            // One O(n) pass for the whole run; also clears tombstones left by an interrupted run
+            list.removeAll(List.of(TOMBSTONE));
+            log.info("Dead letter {} finished: {} entries", replay ? "replay" : "purge", removed);
+            return removed;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Tombstones and requeues are applied atomically, so a crash never replays an entry that is still listed
+    private int flush(List<Match> matches, boolean replay) {
+        if (matches.isEmpty()) {
+            return 0;
+        }
+        RBatch batch = redissonClient.createBatch(replay
+                ? BatchOptions.defaults().executionMode(BatchOptions.ExecutionMode.IN_MEMORY_ATOMIC)
+                : BatchOptions.defaults());
+        RListAsync<byte[]> list = batch.getList(DEAD_LETTER_QUEUE, ByteArrayCodec.INSTANCE);
+        for (Match match : matches) {
+            list.fastSetAsync(match.index(), TOMBSTONE);
+            if (replay) {
+                QueueJob job = match.job();
+                String queueName = job.getQueueName() != null ? job.getQueueName() : FALLBACK_QUEUE;
+                batch.<byte[]>getQueue(RetryScheduler.RETRY_QUEUE_PREFIX + queueName, ByteArrayCodec.INSTANCE)
+                        .offerAsync(toReplayJob(job));
+            }
+        }
+        batch.execute();
+        int flushed = matches.size();
+        matches.clear();
+        return flushed;
+    }
+
+    // A replayed job starts over with a fresh retry count
+    private byte[] toReplayJob(QueueJob job) {
+        job.setRetryCount(0);
+        job.setErrorMessage(null);
+        job.setFailedAt(null);
+        job.setScheduledAt(LocalDateTime.now());
+        return jobCodec.encode(job);
+    }
+
+    private Entry toEntry(byte[] encoded) {
+        QueueJob job = parse(encoded);
+        return job == null ? null : toEntry(job);
+    }
+
+    private static Entry toEntry(QueueJob job) {
+        return new Entry(job.getId(), job.getJobType(), job.getQueueName(), job.getErrorMessage(),
+                job.getRetryCount(), job.getCreatedAt(),
+                // Entries written before failedAt existed fall back to creation time
+                job.getFailedAt() != null ? job.getFailedAt() : job.getCreatedAt());
+    }
+
+    private QueueJob parse(byte[] encoded) {
+        if (Arrays.equals(TOMBSTONE, encoded)) {
+            return null;
+        }
+        try {
+            return jobCodec.decode(encoded);
+        } catch (Exception e) {
+            log.debug("Skipping unreadable dead letter entry", e);
+            return null;
+        }
+    }
+
+    private static void pause(long pauseMs) {
+        if (pauseMs <= 0) {
+            return;
+        }
+        try {
+            TimeUnit.MILLISECONDS.sleep(pauseMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while replaying dead letters", e);
+        }
+    }
+
+    private RList<byte[]> deadLetters() {
+        return redissonClient.getList(DEAD_LETTER_QUEUE, ByteArrayCodec.INSTANCE);
+    }
+
+    private record Match(int index, QueueJob job) {}
+}
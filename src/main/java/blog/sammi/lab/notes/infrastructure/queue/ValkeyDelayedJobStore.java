@@ -0,0 +1,123 @@
+package blog.sammi.lab.notes.infrastructure.queue;
+
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RBlockingDeque;
+import org.redisson.api.RDelayedQueue;
+import org.redisson.api.RFuture;
+import org.redisson.api.RedissonClient;
+import org.redisson.api.queue.DequeMoveArgs;
+import org.redisson.client.codec.ByteArrayCodec;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+// retry:<queue> delayed queues; drain / drainTo move due entries to the live queue. Not used by the embedded backend.
+@Component
+@ConditionalOnExpression("'${app.queue.backend:list}' != 'embedded'")
+@Slf4j
+public class ValkeyDelayedJobStore implements DelayedJobStore {
+
+    private static final String QUEUE_PREFIX = "queue:";
+
+    private final RedissonClient redissonClient;
+    private final Map<String, RDelayedQueue<byte[]>> delayedQueues = new ConcurrentHashMap<>();
+
+    public ValkeyDelayedJobStore(RedissonClient redissonClient) {
+        this.redissonClient = redissonClient;
+    }
+
+    // Issues every offer before waiting on any, so a batch of retries costs about one round trip
+    @Override
+    public void offerAll(String queueName, List<Delayed> jobs) {
+        RDelayedQueue<byte[]> delayed = delayedQueue(queueName);
+        List<RFuture<Void>> offers = new ArrayList<>(jobs.size());
+        for (Delayed job : jobs) {
+            offers.add(delayed.offerAsync(job.job(), job.delay().toMillis(), TimeUnit.MILLISECONDS));
+        }
+        offers.forEach(offer -> offer.toCompletableFuture().join());
+    }
+
+    @Override
+    public long size(String queueName) {
+        return delayedQueue(queueName).size();
+    }
+
+    // Moves due retries onto queue:<queue> (BLMOVE, so nothing is lost in between).
+    // Runs until `running` turns false; the timeout only bounds how long shutdown waits
+    public void drain(String queueName, long pollTimeoutMs, BooleanSupplier running) {
+        delayedQueue(queueName);
+        RBlockingDeque<byte[]> retries = retries(queueName);
+        ErrorBackoff backoff = new ErrorBackoff();
+
+        while (running.getAsBoolean()) {
+            try {
+                retries.move(Duration.ofMillis(pollTimeoutMs), DequeMoveArgs.pollFirst().addLastTo(QUEUE_PREFIX + queueName));
+                backoff.reset();
+            } catch (Exception e) {
+                if (Thread.currentThread().isInterrupted()) {
+                    return;
+                }
+                log.error("Error draining retry queue: {}", queueName, e);
+                if (!backoff.pause()) {
+                    return;
+                }
+            }
+        }
+    }
+
+    // For backends that are not Valkey lists: due entries are popped and handed to the sink.
+    // A failed hand-off is pushed back; only a crash between pop and hand-off can lose an entry.
+    public void drainTo(String queueName, long pollTimeoutMs, BooleanSupplier running, Consumer<byte[]> sink) {
+        delayedQueue(queueName);
+        RBlockingDeque<byte[]> retries = retries(queueName);
+        ErrorBackoff backoff = new ErrorBackoff();
+
+        while (running.getAsBoolean()) {
+            byte[] job = null;
+            try {
+                job = retries.pollFirst(pollTimeoutMs, TimeUnit.MILLISECONDS);
+                if (job != null) {
+                    sink.accept(job);
+                }
+                backoff.reset();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("Error draining retry queue: {}", queueName, e);
+                if (job != null) {
+                    pushBack(retries, job, queueName);
+                }
+                if (!backoff.pause()) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private static void pushBack(RBlockingDeque<byte[]> retries, byte[] job, String queueName) {
+        try {
+            retries.addFirst(job);
+        } catch (Exception e) {
+            log.error("Lost a due job on retry queue: {}", queueName, e);
+        }
+    }
+
+    private RBlockingDeque<byte[]> retries(String queueName) {
+        return redissonClient.getBlockingDeque(RetryScheduler.RETRY_QUEUE_PREFIX + queueName, ByteArrayCodec.INSTANCE);
+    }
+
+    // Creating the delayed queue also (re)starts the transfer of due entries after a restart
+    private RDelayedQueue<byte[]> delayedQueue(String queueName) {
+        return delayedQueues.computeIfAbsent(queueName, name -> redissonClient.getDelayedQueue(
+                redissonClient.getQueue(RetryScheduler.RETRY_QUEUE_PREFIX + name, ByteArrayCodec.INSTANCE)));
+    }
+}
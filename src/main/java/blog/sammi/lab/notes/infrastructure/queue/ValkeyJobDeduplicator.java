@@ -0,0 +1,52 @@
+package blog.sammi.lab.notes.infrastructure.queue;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RBucket;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * Dedup keys for enqueues: {@code dedup:<key>} is set with SET NX PX for the window, holding a random
+ * token so only the claimant can release it; the guarded job releases it once processed. Used by the list and stream backends and the outbox.
+ * Valkey errors count as a successful claim, so an outage never drops jobs (it only stops coalescing).
+ */
+@Component
+@ConditionalOnExpression("'${app.queue.backend:list}' != 'embedded'")
+@RequiredArgsConstructor
+@Slf4j
+public class ValkeyJobDeduplicator implements JobDeduplicator {
+
+    private static final String DEDUP_PREFIX = "dedup:";
+
+    private final RedissonClient redissonClient;
+
+    @Override
+    public String claim(String dedupKey, Duration window) {
+        String token = UUID.randomUUID().toString();
+        try {
+            return bucket(dedupKey).setIfAbsent(token, window) ? token : null;
+        } catch (Exception e) {
+            log.warn("Dedup key unavailable, enqueueing without it: {}", dedupKey, e);
+            return token;
+        }
+    }
+
+    @Override
+    public void release(String dedupKey, String token) {
+        try {
+            bucket(dedupKey).compareAndSet(token, null);
+        } catch (Exception e) {
+            log.warn("Failed to release dedup key: {}", dedupKey, e);
+        }
+    }
+
+    private RBucket<String> bucket(String dedupKey) {
+        return redissonClient.getBucket(DEDUP_PREFIX + dedupKey, StringCodec.INSTANCE);
+    }
+}
@@ -1,90 +1,176 @@
 package blog.sammi.lab.notes.infrastructure.queue;
 
+import blog.sammi.lab.notes.domain.job.JobPayload;
 import blog.sammi.lab.notes.domain.service.QueueService;
 import blog.sammi.lab.notes.infrastructure.config.StructuredLogger;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.redisson.api.RDelayedQueue;
 import org.redisson.api.RQueue;
 import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.ByteArrayCodec;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 @Service
+@ConditionalOnProperty(prefix = "app.queue", name = "backend", havingValue = "list", matchIfMissing = true)
 @RequiredArgsConstructor
 @Slf4j
 public class ValkeyQueueService implements QueueService {
     
     private final RedissonClient redissonClient;
-    private final ObjectMapper objectMapper;
+    private final JobCodec jobCodec;
     private final StructuredLogger structuredLogger;
+    private final JobDeduplicator jobDeduplicator;
     
     private static final String QUEUE_PREFIX = "queue:";
     private static final String DELAYED_QUEUE_PREFIX = "delayed:";
     
     @Override
-    public void enqueue(String queueName, String jobType, Map<String, Object> payload) {
+    public void enqueue(String queueName, JobPayload payload) {
         try {
-            QueueJob job = new QueueJob(jobType, payload);
-            RQueue<String> queue = redissonClient.getQueue(QUEUE_PREFIX + queueName);
+            QueueJob job = new QueueJob(payload);
+            queue(queueName).offer(jobCodec.encode(job));
             
-            String jobJson = objectMapper.writeValueAsString(job);
-            queue.offer(jobJson);
-            
-            Map<String, Object> eventData = new HashMap<>();
-            eventData.put("queueName", queueName);
-            eventData.put("jobType", jobType);
-            eventData.put("jobId", job.getId());
-            structuredLogger.logBusinessEvent("JOB_ENQUEUED", "SUCCESS", eventData);
+            structuredLogger.business("JOB_ENQUEUED", "SUCCESS")
+                    .with("queueName", queueName)
+                    .with("jobType", job.getJobType())
+                    .with("jobId", job.getId())
+                    .log();
             
             log.info("Job enqueued: {} to queue: {}", job.getId(), queueName);
             
         } catch (Exception e) {
-            Map<String, Object> context = new HashMap<>();
-            context.put("queueName", queueName);
-            context.put("jobType", jobType);
-            structuredLogger.logError("JOB_ENQUEUE", e, context);
+            structuredLogger.error("JOB_ENQUEUE", e)
+                    .with("queueName", queueName)
+                    .with("jobType", payload.jobType())
+                    .log();
             throw new RuntimeException("Failed to enqueue job", e);
         }
     }
     
     @Override
-    public void enqueue(String queueName, String jobType, Map<String, Object> payload, long delaySeconds) {
+    public void enqueue(String queueName, JobPayload payload, long delaySeconds) {
         try {
-            QueueJob job = new QueueJob(jobType, payload);
+            QueueJob job = new QueueJob(payload);
             job.setScheduledAt(job.getScheduledAt().plusSeconds(delaySeconds));
             
-            RQueue<String> queue = redissonClient.getQueue(QUEUE_PREFIX + queueName);
-            RDelayedQueue<String> delayedQueue = redissonClient.getDelayedQueue(queue);
-            
-            String jobJson = objectMapper.writeValueAsString(job);
-            delayedQueue.offer(jobJson, delaySeconds, TimeUnit.SECONDS);
+            RDelayedQueue<byte[]> delayedQueue = redissonClient.getDelayedQueue(queue(queueName));
+            delayedQueue.offer(jobCodec.encode(job), delaySeconds, TimeUnit.SECONDS);
             
-            Map<String, Object> eventData = new HashMap<>();
-            eventData.put("queueName", queueName);
-            eventData.put("jobType", jobType);
-            eventData.put("jobId", job.getId());
-            eventData.put("delaySeconds", delaySeconds);
-            structuredLogger.logBusinessEvent("JOB_SCHEDULED", "SUCCESS", eventData);
+            structuredLogger.business("JOB_SCHEDULED", "SUCCESS")
+                    .with("queueName", queueName)
+                    .with("jobType", job.getJobType())
+                    .with("jobId", job.getId())
+                    .with("delaySeconds", delaySeconds)
+                    .log();
             
             log.info("Job scheduled: {} to queue: {} with delay: {}s", job.getId(), queueName, delaySeconds);
             
         } catch (Exception e) {
-            Map<String, Object> context = new HashMap<>();
-            context.put("queueName", queueName);
-            context.put("jobType", jobType);
-            context.put("delaySeconds", delaySeconds);
-            structuredLogger.logError("JOB_SCHEDULE", e, context);
+            structuredLogger.error("JOB_SCHEDULE", e)
+                    .with("queueName", queueName)
+                    .with("jobType", payload.jobType())
+                    .with("delaySeconds", delaySeconds)
+                    .log();
             throw new RuntimeException("Failed to schedule job", e);
         }
     }
     
     @Override
-    public void scheduleJob(String jobType, Map<String, Object> payload, long delaySeconds) {
-        enqueue("default", jobType, payload, delaySeconds);
+    public boolean enqueue(String queueName, JobPayload payload, String dedupKey, Duration window) {
+        String token = jobDeduplicator.claim(dedupKey, window);
+        if (token == null) {
+            structuredLogger.business("JOB_DEDUPLICATED", "SKIPPED")
+                    .with("queueName", queueName)
+                    .with("jobType", payload.jobType())
+                    .with("dedupKey", dedupKey)
+                    .log();
+            return false;
+        }
+        try {
+            enqueueClaimed(queueName, payload, 0, dedupKey, token);
+            return true;
+        } catch (RuntimeException e) {
+            jobDeduplicator.release(dedupKey, token);
+            throw e;
+        }
+    }
+
+    @Override
+    public void enqueueClaimed(String queueName, JobPayload payload, long delaySeconds, String dedupKey, String dedupToken) {
+        try {
+            QueueJob job = new QueueJob(payload);
+            job.setScheduledAt(job.getScheduledAt().plusSeconds(delaySeconds));
+            job.setDedupKey(dedupKey);
+            job.setDedupToken(dedupToken);
+            byte[] encoded = jobCodec.encode(job);
+            if (delaySeconds > 0) {
+                redissonClient.getDelayedQueue(queue(queueName)).offer(encoded, delaySeconds, TimeUnit.SECONDS);
+            } else {
+                queue(queueName).offer(encoded);
+            }
+
+            structuredLogger.business("JOB_ENQUEUED", "SUCCESS")
+                    .with("queueName", queueName)
+                    .with("jobType", job.getJobType())
+                    .with("jobId", job.getId())
+                    .with("dedupKey", dedupKey)
+                    .with("delaySeconds", delaySeconds)
+                    .log();
+
+            log.info("Job enqueued: {} to queue: {} with dedup key: {}", job.getId(), queueName, dedupKey);
+
+        } catch (Exception e) {
+            structuredLogger.error("JOB_ENQUEUE", e)
+                    .with("queueName", queueName)
+                    .with("jobType", payload.jobType())
+                    .with("dedupKey", dedupKey)
+                    .log();
+            throw new RuntimeException("Failed to enqueue job", e);
+        }
+    }
+
+    // Single RPUSH for the whole batch
+    @Override
+    public void enqueueAll(String queueName, List<? extends JobPayload> payloads) {
+        if (payloads.isEmpty()) {
+            return;
+        }
+        try {
+            List<byte[]> jobs = new ArrayList<>(payloads.size());
+            for (JobPayload payload : payloads) {
+                jobs.add(jobCodec.encode(new QueueJob(payload)));
+            }
+            queue(queueName).addAll(jobs);
+
+            structuredLogger.business("JOBS_ENQUEUED", "SUCCESS")
+                    .with("queueName", queueName)
+                    .with("count", jobs.size())
+                    .log();
+
+            log.info("{} jobs enqueued to queue: {}", jobs.size(), queueName);
+
+        } catch (Exception e) {
+            structuredLogger.error("JOB_ENQUEUE", e)
+                    .with("queueName", queueName)
+                    .with("count", payloads.size())
+                    .log();
+            throw new RuntimeException("Failed to enqueue jobs", e);
+        }
+    }
+
+    @Override
+    public void scheduleJob(JobPayload payload, long delaySeconds) {
+        enqueue("default", payload, delaySeconds);
+    }
+    
+    private RQueue<byte[]> queue(String queueName) {
+        return redissonClient.getQueue(QUEUE_PREFIX + queueName, ByteArrayCodec.INSTANCE);
     }
 }
@@ -1,47 +1,165 @@
 package blog.sammi.lab.notes.infrastructure.queue.processors;
 
+import blog.sammi.lab.notes.domain.entity.User;
+import blog.sammi.lab.notes.domain.job.EmailJob;
+import blog.sammi.lab.notes.domain.repository.UserRepository;
 import blog.sammi.lab.notes.domain.service.EmailService;
 import blog.sammi.lab.notes.domain.service.JobProcessor;
+import blog.sammi.lab.notes.infrastructure.config.StructuredLogger;
+import blog.sammi.lab.notes.infrastructure.email.EmailThrottle;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 @Component
 @RequiredArgsConstructor
 @Slf4j
-public class EmailJobProcessor implements JobProcessor {
+public class EmailJobProcessor implements JobProcessor<EmailJob> {
     
     private final EmailService emailService;
+    private final EmailThrottle emailThrottle;
+    private final UserRepository userRepository;
+    private final StructuredLogger structuredLogger;
     
     @Override
-    public void process(Map<String, Object> payload) throws Exception {
-        String type = (String) payload.get("type");
-        String to = (String) payload.get("to");
-        String otpCode = (String) payload.get("otpCode");
+    public void process(EmailJob payload) throws Exception {
+        validate(payload);
+        if (isCode(payload) && !isCurrent(payload, currentUsers(List.of(payload)))) {
+            logDropped("EMAIL_COALESCED", payload);
+            return;
+        }
+        if (!isCode(payload) && !emailThrottle.tryAcquireRecipient(payload.to())) {
+            logDropped("EMAIL_THROTTLED", payload);
+            return;
+        }
+        emailThrottle.awaitGlobal();
         
-        if (to == null || otpCode == null) {
-            throw new IllegalArgumentException("Missing required email parameters");
+        switch (payload.type()) {
+            case OTP_VERIFICATION -> emailService.sendOtpEmail(payload.to(), payload.otpCode());
+            case PASSWORD_RESET -> emailService.sendPasswordResetEmail(payload.to(), payload.otpCode());
+            case NOTIFICATION_DIGEST -> emailService.sendNotificationDigest(payload.to(), payload.notifications());
         }
         
-        switch (type) {
-            case "OTP_VERIFICATION":
-                emailService.sendOtpEmail(to, otpCode);
-                break;
-            case "PASSWORD_RESET":
-                emailService.sendPasswordResetEmail(to, otpCode);
-                break;
-            default:
-                throw new IllegalArgumentException("Unknown email type: " + type);
+        log.info("Email sent successfully: {} to {}", payload.type(), payload.to());
+    }
+    
+    @Override
+    public boolean supportsBatch() {
+        return true;
+    }
+    
+    // Pipeline: validate, drop OTP and reset emails whose code is no longer the one stored for the user (a newer
+    // request superseded it) along with repeats of the same code, drop digests to recipients over their allowance,
+    // pace against the global rate, then send the rest over pooled SMTP sessions. Codes are rate limited when
+    // they are requested, so an issued code is never throttled here. Dropped emails count as done, not failed.
+    @Override
+    public Map<Integer, Exception> processBatch(List<EmailJob> payloads) {
+        Map<Integer, Exception> failures = new HashMap<>();
+        List<EmailJob> codes = new ArrayList<>();
+        for (int i = 0; i < payloads.size(); i++) {
+            try {
+                validate(payloads.get(i));
+                if (isCode(payloads.get(i))) {
+                    codes.add(payloads.get(i));
+                }
+            } catch (IllegalArgumentException e) {
+                failures.put(i, e);
+            }
+        }
+        Map<String, User> users = codes.isEmpty() ? Map.of() : currentUsers(codes);
+        
+        Set<String> sent = new HashSet<>();
+        List<EmailJob> sendable = new ArrayList<>(payloads.size());
+        List<Integer> indexes = new ArrayList<>(payloads.size());
+        for (int i = 0; i < payloads.size(); i++) {
+            EmailJob payload = payloads.get(i);
+            if (failures.containsKey(i)) {
+                continue;
+            }
+            if (isCode(payload)) {
+                if (!isCurrent(payload, users) || !sent.add(payload.type() + ":" + payload.to())) {
+                    logDropped("EMAIL_COALESCED", payload);
+                    continue;
+                }
+            } else if (!emailThrottle.tryAcquireRecipient(payload.to())) {
+                logDropped("EMAIL_THROTTLED", payload);
+                continue;
+            }
+            try {
+                emailThrottle.awaitGlobal();
+            } catch (InterruptedException e) {
+                // Shutting down: nothing more is sent, the unsent emails are retried
+                Thread.currentThread().interrupt();
+                indexes.forEach(index -> failures.put(index, e));
+                for (int rest = i; rest < payloads.size(); rest++) {
+                    failures.putIfAbsent(rest, e);
+                }
+                return failures;
+            }
+            sendable.add(payload);
+            indexes.add(i);
         }
         
-        log.info("Email sent successfully: {} to {}", type, to);
+        if (!sendable.isEmpty()) {
+            emailService.sendAll(sendable).forEach((position, e) -> failures.put(indexes.get(position), e));
+        }
+        return failures;
+    }
+    
+    private static boolean isCode(EmailJob payload) {
+        return payload.type() != EmailJob.Type.NOTIFICATION_DIGEST;
+    }
+    
+    // One query for every recipient of a code email in the batch
+    private Map<String, User> currentUsers(List<EmailJob> codes) {
+        Map<String, User> users = new HashMap<>();
+        for (User user : userRepository.findByEmailIn(codes.stream().map(EmailJob::to).distinct().toList())) {
+            users.put(user.getEmail(), user);
+        }
+        return users;
+    }
+    
+    // Only the code stored for the user is still valid; an older one was replaced by a later request
+    private static boolean isCurrent(EmailJob payload, Map<String, User> users) {
+        User user = users.get(payload.to());
+        if (user == null) {
+            return false;
+        }
+        String current = payload.type() == EmailJob.Type.OTP_VERIFICATION ? user.getOtpCode() : user.getResetToken();
+        return payload.otpCode().equals(current);
+    }
+    
+    private void logDropped(String event, EmailJob payload) {
+        structuredLogger.business(event, "SKIPPED")
+                .with("type", payload.type())
+                .with("to", payload.to())
+                .log();
+    }
+    
+    private static void validate(EmailJob payload) {
+        boolean complete = payload.type() == EmailJob.Type.NOTIFICATION_DIGEST
+                ? payload.notifications() != null && !payload.notifications().isEmpty()
+                : payload.otpCode() != null;
+        if (payload.type() == null || payload.to() == null || !complete) {
+            throw new IllegalArgumentException("Missing required email parameters");
+        }
     }
     
     @Override
     public String getJobType() {
-        return "EMAIL";
+        return EmailJob.JOB_TYPE;
+    }
+    
+    @Override
+    public Class<EmailJob> getPayloadType() {
+        return EmailJob.class;
     }
     
     @Override
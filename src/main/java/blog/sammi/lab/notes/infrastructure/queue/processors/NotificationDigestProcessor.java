@@ -0,0 +1,79 @@
+package blog.sammi.lab.notes.infrastructure.queue.processors;
+
+import blog.sammi.lab.notes.domain.entity.User;
+import blog.sammi.lab.notes.domain.job.EmailJob;
+import blog.sammi.lab.notes.domain.job.NotificationDigestJob;
+import blog.sammi.lab.notes.domain.job.NotificationJob;
+import blog.sammi.lab.notes.domain.repository.UserRepository;
+import blog.sammi.lab.notes.domain.service.JobProcessor;
+import blog.sammi.lab.notes.domain.service.QueueService;
+import blog.sammi.lab.notes.infrastructure.config.StructuredLogger;
+import blog.sammi.lab.notes.infrastructure.notification.NotificationDigestBuffer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+// Sends everything buffered for a user as one digest email, then closes (or, with newer events, reopens) the window
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class NotificationDigestProcessor implements JobProcessor<NotificationDigestJob> {
+    
+    private final NotificationDigestBuffer digestBuffer;
+    private final UserRepository userRepository;
+    private final StructuredLogger structuredLogger;
+    // Lazy: queue services depend on the job registry, which is built from the processors
+    private final ObjectProvider<QueueService> queueService;
+    
+    @Value("${app.notifications.digest-max-items:50}")
+    private int maxItems;
+    
+    // The email is enqueued before the events are trimmed: a crash in between sends the digest twice
+    // rather than losing it
+    @Override
+    public void process(NotificationDigestJob payload) throws Exception {
+        NotificationDigestBuffer.Pending pending = digestBuffer.pending(payload.userId());
+        List<NotificationJob> events = pending.events();
+        
+        User user = userRepository.findById(payload.userId()).orElse(null);
+        if (events.isEmpty()) {
+            log.debug("No pending notifications for user: {}", payload.userId());
+        } else if (user == null || !user.isActive() || !user.isVerified()) {
+            log.info("Dropping {} notifications for missing or inactive user: {}", events.size(), payload.userId());
+        } else {
+            if (events.size() > maxItems) {
+                log.warn("Digest for user {} truncated to the newest {} of {} notifications", payload.userId(), maxItems, events.size());
+                events = events.subList(events.size() - maxItems, events.size());
+            }
+            queueService.getObject().enqueue("email", EmailJob.notificationDigest(user.getEmail(), List.copyOf(events)));
+            
+            structuredLogger.business("NOTIFICATION_DIGEST", "QUEUED")
+                    .with("userId", payload.userId())
+                    .with("notifications", events.size())
+                    .log();
+        }
+        
+        if (digestBuffer.trim(payload.userId(), pending.entries())) {
+            queueService.getObject().enqueue(NotificationJobProcessor.QUEUE, payload, digestBuffer.window().toSeconds());
+        }
+    }
+    
+    @Override
+    public String getJobType() {
+        return NotificationDigestJob.JOB_TYPE;
+    }
+    
+    @Override
+    public Class<NotificationDigestJob> getPayloadType() {
+        return NotificationDigestJob.class;
+    }
+    
+    @Override
+    public int getMaxRetries() {
+        return 3;
+    }
+}
@@ -0,0 +1,102 @@
+package blog.sammi.lab.notes.infrastructure.queue.processors;
+
+import blog.sammi.lab.notes.domain.job.NotificationDigestJob;
+import blog.sammi.lab.notes.domain.job.NotificationJob;
+import blog.sammi.lab.notes.domain.service.JobProcessor;
+import blog.sammi.lab.notes.domain.service.QueueService;
+import blog.sammi.lab.notes.infrastructure.notification.NotificationDigestBuffer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Buffers events per user; the first event of a window schedules the user's digest one window later
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class NotificationJobProcessor implements JobProcessor<NotificationJob> {
+    
+    static final String QUEUE = "notifications";
+    
+    private final NotificationDigestBuffer digestBuffer;
+    // Lazy: queue services depend on the job registry, which is built from the processors
+    private final ObjectProvider<QueueService> queueService;
+    
+    @Override
+    public void process(NotificationJob payload) throws Exception {
+        Exception failure = processBatch(List.of(payload)).get(0);
+        if (failure != null) {
+            throw failure;
+        }
+    }
+    
+    @Override
+    public boolean supportsBatch() {
+        return true;
+    }
+    
+    // All events go to Valkey in one round trip. A retried event is appended again and dropped as a
+    // duplicate when the digest is read.
+    @Override
+    public Map<Integer, Exception> processBatch(List<NotificationJob> payloads) {
+        Map<Integer, Exception> failures = new HashMap<>();
+        List<NotificationJob> valid = new ArrayList<>(payloads.size());
+        List<Integer> indexes = new ArrayList<>(payloads.size());
+        for (int i = 0; i < payloads.size(); i++) {
+            NotificationJob payload = payloads.get(i);
+            if (payload.eventId() == null || payload.userId() == null || payload.type() == null) {
+                failures.put(i, new IllegalArgumentException("Missing required notification parameters"));
+                continue;
+            }
+            valid.add(payload);
+            indexes.add(i);
+        }
+        if (valid.isEmpty()) {
+            return failures;
+        }
+        
+        List<Boolean> opened;
+        try {
+            opened = digestBuffer.appendAll(valid);
+        } catch (Exception e) {
+            indexes.forEach(index -> failures.put(index, e));
+            return failures;
+        }
+        
+        for (int i = 0; i < valid.size(); i++) {
+            if (!opened.get(i)) {
+                continue;
+            }
+            NotificationJob payload = valid.get(i);
+            try {
+                queueService.getObject().enqueue(QUEUE, new NotificationDigestJob(payload.userId()),
+                        digestBuffer.window().toSeconds());
+            } catch (Exception e) {
+                log.error("Failed to schedule notification digest for user: {}", payload.userId(), e);
+                digestBuffer.closeWindow(payload.userId());
+                failures.put(indexes.get(i), e);
+            }
+        }
+        return failures;
+    }
+    
+    @Override
+    public String getJobType() {
+        return NotificationJob.JOB_TYPE;
+    }
+    
+    @Override
+    public Class<NotificationJob> getPayloadType() {
+        return NotificationJob.class;
+    }
+    
+    @Override
+    public int getMaxRetries() {
+        return 3;
+    }
+}
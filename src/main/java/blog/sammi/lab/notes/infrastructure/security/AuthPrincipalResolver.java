@@ -0,0 +1,110 @@
+package blog.sammi.lab.notes.infrastructure.security;
+
+import blog.sammi.lab.notes.domain.entity.User;
+import blog.sammi.lab.notes.domain.repository.UserRepository;
+import blog.sammi.lab.notes.domain.service.AuthPrincipalCache;
+import blog.sammi.lab.notes.domain.service.CacheService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Resolves the principal for an already verified JWT without a database round trip per request.
+ * <p>
+ * {@code cache} mode keeps a short-lived snapshot of the account flags keyed by subject; {@code claims}
+ * mode trusts the signed subject outright, so deactivation only takes effect when the token expires.
+ * Password login keeps using {@link CustomUserDetailsService}, which always reads the database.
+ */
+@Service
+@Slf4j
+public class AuthPrincipalResolver implements AuthPrincipalCache {
+
+    private static final String PRINCIPAL_CACHE_PREFIX = "auth:principal:";
+
+    private final UserRepository userRepository;
+    private final CacheService cacheService;
+    private final PrincipalMode mode;
+    private final int ttlSeconds;
+    private final Set<String> adminUsernames;
+
+    public AuthPrincipalResolver(
+            UserRepository userRepository,
+            CacheService cacheService,
+            @Value("${app.security.principal.mode:cache}") String mode,
+            @Value("${app.security.principal.ttl-seconds:60}") int ttlSeconds,
+            @Value("${app.security.admin-usernames:}") Set<String> adminUsernames) {
+        this.userRepository = userRepository;
+        this.cacheService = cacheService;
+        this.mode = PrincipalMode.valueOf(mode.toUpperCase());
+        this.ttlSeconds = ttlSeconds;
+        this.adminUsernames = adminUsernames;
+    }
+
+    public UserDetails loadPrincipal(String subject) {
+        if (mode == PrincipalMode.CLAIMS) {
+            return toUserDetails(new CachedPrincipal(subject, true, true));
+        }
+
+        CachedPrincipal principal = cacheService.getOrLoad(PRINCIPAL_CACHE_PREFIX + subject, CachedPrincipal.class, ttlSeconds,
+                        () -> userRepository.findByUsernameOrEmail(subject, subject)
+                                .map(user -> new CachedPrincipal(user.getUsername(), user.isActive(), user.isVerified())))
+                .orElseThrow(() -> new UsernameNotFoundException("User not found: " + subject));
+        return toUserDetails(principal);
+    }
+
+    @Override
+    public void evict(User user) {
+        // Evict after commit so a concurrent request cannot re-cache the pre-change state
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evictNow(user.getUsername(), user.getEmail());
+                }
+            });
+        } else {
+            evictNow(user.getUsername(), user.getEmail());
+        }
+    }
+
+    private void evictNow(String username, String email) {
+        // Tokens carry the username, but the lookup also accepts email subjects
+        cacheService.delete(PRINCIPAL_CACHE_PREFIX + username);
+        cacheService.delete(PRINCIPAL_CACHE_PREFIX + email);
+        log.debug("Auth principal cache evicted for user: {}", username);
+    }
+
+    // No password hash: JWT requests never check credentials, so the cache never holds one
+    private UserDetails toUserDetails(CachedPrincipal principal) {
+        List<GrantedAuthority> authorities = new ArrayList<>();
+        if (adminUsernames.contains(principal.username())) {
+            authorities.add(new SimpleGrantedAuthority("ROLE_ADMIN"));
+        }
+        return org.springframework.security.core.userdetails.User.builder()
+                .username(principal.username())
+                .password("")
+                .authorities(authorities)
+                .accountExpired(false)
+                .accountLocked(!principal.active())
+                .credentialsExpired(false)
+                .disabled(!principal.verified())
+                .build();
+    }
+
+    private enum PrincipalMode {
+        CACHE,
+        CLAIMS
+    }
+
+    record CachedPrincipal(String username, boolean active, boolean verified) {}
+}
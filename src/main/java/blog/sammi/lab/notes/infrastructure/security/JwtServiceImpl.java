@@ -1,23 +1,56 @@
 package blog.sammi.lab.notes.infrastructure.security;
 
 import blog.sammi.lab.notes.domain.service.JwtService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
-import java.util.function.Function;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * HS256 tokens signed with {@code app.jwt.secret}. The key and parser are built once; recently
+ * verified tokens are kept in a bounded cache keyed by the token's SHA-256 digest, each entry
+ * expiring no later than the token's own {@code exp}.
+ */
 @Service
+@Slf4j
 public class JwtServiceImpl implements JwtService {
-    @Value("${app.jwt.secret}")
-    private String secret;
-    
-    @Value("${app.jwt.expiration-ms}")
-    private Long expirationMs;
+
+    private final SecretKey signingKey;
+    private final JwtParser parser;
+    private final long expirationMs;
+    private final Cache<String, VerifiedToken> verifiedTokens;
+
+    public JwtServiceImpl(
+            @Value("${app.jwt.secret}") String secret,
+            @Value("${app.jwt.expiration-ms}") long expirationMs,
+            @Value("${app.jwt.verified-cache.max-size:10000}") long verifiedCacheMaxSize,
+            @Value("${app.jwt.verified-cache.max-ttl-seconds:300}") long verifiedCacheMaxTtlSeconds) {
+        this.signingKey = Keys.hmacShaKeyFor(secret.getBytes());
+        this.parser = Jwts.parser()
+                .verifyWith(signingKey)
+                .build();
+        this.expirationMs = expirationMs;
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(verifiedCacheMaxSize)
+                .expireAfter(new TokenExpiry(TimeUnit.SECONDS.toNanos(verifiedCacheMaxTtlSeconds)))
+                .build();
+    }
 
     @Override
     public String generateToken(String username) {
@@ -25,31 +58,46 @@ public class JwtServiceImpl implements JwtService {
                 .subject(username)
                 .issuedAt(new Date())
                 .expiration(new Date(System.currentTimeMillis() + expirationMs))
-                .signWith(getSigningKey())
+                .signWith(signingKey)
                 .compact();
     }
 
     @Override
-    public String extractUsername(String token) {
-        return extractClaim(token, Claims::getSubject);
-    }
+    public Optional<VerifiedToken> verify(String token) {
+        String digest = digest(token);
+        VerifiedToken cached = verifiedTokens.getIfPresent(digest);
+        if (cached != null) {
+            // Entries expire with the token, but the clock is checked again in case of a late eviction
+            if (isExpired(cached)) {
+                verifiedTokens.invalidate(digest);
+                return Optional.empty();
+            }
+            return Optional.of(cached);
+        }
 
-    @Override
-    public Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+        try {
+            // The parser rejects bad signatures and expired tokens
+            Claims claims = parser.parseSignedClaims(token).getPayload();
+            VerifiedToken verified = new VerifiedToken(claims.getSubject(), claims.getExpiration());
+            if (verified.subject() == null || verified.expiration() == null) {
+                return Optional.empty();
+            }
+            verifiedTokens.put(digest, verified);
+            return Optional.of(verified);
+        } catch (JwtException | IllegalArgumentException e) {
+            log.debug("Rejected JWT: {}", e.getMessage());
+            return Optional.empty();
+        }
     }
 
-    public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
-        return claimsResolver.apply(claims);
+    @Override
+    public String extractUsername(String token) {
+        return parse(token).getSubject();
     }
 
-    private Claims extractAllClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+    @Override
+    public Date extractExpiration(String token) {
+        return parse(token).getExpiration();
     }
 
     @Override
@@ -59,11 +107,44 @@ public class JwtServiceImpl implements JwtService {
 
     @Override
     public boolean validateToken(String token, String username) {
-        final String extractedUsername = extractUsername(token);
-        return (extractedUsername.equals(username) && !isTokenExpired(token));
+        return verify(token)
+                .map(verified -> verified.subject().equals(username))
+                .orElse(false);
+    }
+
+    private Claims parse(String token) {
+        return parser.parseSignedClaims(token).getPayload();
+    }
+
+    private static boolean isExpired(VerifiedToken token) {
+        return token.expiration().getTime() <= System.currentTimeMillis();
     }
 
-    private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(secret.getBytes());
+    // Digest keys keep raw bearer tokens out of the cache
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private record TokenExpiry(long maxTtlNanos) implements Expiry<String, VerifiedToken> {
+        @Override
+        public long expireAfterCreate(String key, VerifiedToken token, long currentTime) {
+            long remaining = TimeUnit.MILLISECONDS.toNanos(token.expiration().getTime() - System.currentTimeMillis());
+            return Math.max(0, Math.min(maxTtlNanos, remaining));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, VerifiedToken token, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, token, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, VerifiedToken token, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
     }
 }
@@ -0,0 +1,122 @@
+package blog.sammi.lab.notes.presentation.controller;
+
+import blog.sammi.lab.notes.application.dto.CursorPage;
+import blog.sammi.lab.notes.application.dto.DeadLetterQuery;
+import blog.sammi.lab.notes.application.dto.DeadLetterReplay;
+import blog.sammi.lab.notes.application.usecase.DeadLetterUseCase;
+import blog.sammi.lab.notes.domain.service.DeadLetterQueue;
+import blog.sammi.lab.notes.presentation.dto.ApiResponse;
+import blog.sammi.lab.notes.presentation.dto.Meta;
+import blog.sammi.lab.notes.presentation.dto.ReplayDeadLettersRequestDto;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+@RestController
+@RequestMapping(value = "/api/admin/dead-letters", produces = MediaType.APPLICATION_JSON_VALUE)
+@RequiredArgsConstructor
+@Tag(name = "Dead Letters", description = "Dead letter queue administration (admin only)")
+@SecurityRequirement(name = "bearerAuth")
+public class DeadLetterController {
+    
+    private final DeadLetterUseCase deadLetterUseCase;
+    
+    @GetMapping
+    @Operation(summary = "Browse dead letters", description = "Cursor-paginated dead letter entries, oldest failure first, with optional filters")
+    @ApiResponses(value = {
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Dead letters retrieved successfully"),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "403", description = "Not an admin")
+    })
+    public ResponseEntity<ApiResponse<List<DeadLetterQueue.Entry>>> browse(
+            @Parameter(description = "Filter by job type") @RequestParam(required = false) String jobType,
+            @Parameter(description = "Filter by origin queue") @RequestParam(required = false) String queue,
+            @Parameter(description = "Filter by error text (case-insensitive substring)") @RequestParam(required = false) String error,
+            @Parameter(description = "Only entries that failed before this time")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime failedBefore,
+            @Parameter(description = "Only entries that failed after this time")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime failedAfter,
+            @Parameter(description = "Cursor from meta.next_cursor") @RequestParam(required = false) String cursor,
+            @Parameter(description = "Page size (max 200)") @RequestParam(defaultValue = "50") int size) {
+        
+        DeadLetterQuery query = DeadLetterQuery.builder()
+                .jobType(jobType)
+                .queueName(queue)
+                .error(error)
+                .failedBefore(failedBefore)
+                .failedAfter(failedAfter)
+                .cursor(cursor)
+                .size(size)
+                .build();
+        
+        CursorPage<DeadLetterQueue.Entry> entries = deadLetterUseCase.browse(query);
+        
+        return ResponseEntity.ok(ApiResponse.successWithMeta(
+                entries.content(),
+                Meta.withCursor(entries.nextCursor())
+        ));
+    }
+    
+    @PostMapping(value = "/replay", consumes = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(summary = "Replay dead letters", description = "Send selected or filtered entries back to their origin queue in throttled batches")
+    @ApiResponses(value = {
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "202", description = "Replay started"),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "400", description = "No filter given without all=true"),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "403", description = "Not an admin")
+    })
+    public ResponseEntity<ApiResponse<DeadLetterReplay>> replay(@RequestBody ReplayDeadLettersRequestDto requestDto) {
+        
+        DeadLetterQuery query = DeadLetterQuery.builder()
+                .jobIds(requestDto.jobIds())
+                .jobType(requestDto.jobType())
+                .queueName(requestDto.queue())
+                .error(requestDto.error())
+                .failedBefore(requestDto.failedBefore())
+                .failedAfter(requestDto.failedAfter())
+                .build();
+        
+        DeadLetterReplay replay = deadLetterUseCase.startReplay(query, requestDto.all());
+        
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(ApiResponse.success("Replay dead letter dimulai", replay));
+    }
+    
+    @GetMapping("/replay/{replayId}")
+    @Operation(summary = "Get replay progress", description = "Progress of a replay started on the node serving this request")
+    @ApiResponses(value = {
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Replay found"),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "404", description = "Replay not found")
+    })
+    public ResponseEntity<ApiResponse<DeadLetterReplay>> getReplay(
+            @Parameter(description = "Replay ID") @PathVariable UUID replayId) {
+        
+        return ResponseEntity.ok(ApiResponse.success("Replay ditemukan", deadLetterUseCase.getReplay(replayId)));
+    }
+    
+    @DeleteMapping
+    @Operation(summary = "Purge dead letters", description = "Delete entries that failed more than olderThanHours ago (default: configured retention)")
+    @ApiResponses(value = {
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Dead letters purged"),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "403", description = "Not an admin"),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "409", description = "Another replay or purge is running")
+    })
+    public ResponseEntity<ApiResponse<Map<String, Long>>> purge(
+            @Parameter(description = "Retention in hours") @RequestParam(required = false) Integer olderThanHours) {
+        
+        long purged = deadLetterUseCase.purge(olderThanHours);
+        
+        return ResponseEntity.ok(ApiResponse.success("Dead letter berhasil dibersihkan", Map.of("purged", purged)));
+    }
+}
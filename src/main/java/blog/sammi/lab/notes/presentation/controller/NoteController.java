@@ -6,6 +6,7 @@ import blog.sammi.lab.notes.presentation.dto.ApiResponse;
 import blog.sammi.lab.notes.presentation.dto.CreateNoteRequestDto;
 import blog.sammi.lab.notes.presentation.dto.Meta;
 import blog.sammi.lab.notes.presentation.dto.NoteDto;
+import blog.sammi.lab.notes.presentation.dto.NoteSummaryDto;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
@@ -15,6 +16,7 @@ import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableDefault;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
@@ -77,6 +79,7 @@ public class NoteController {
             @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
             @Parameter(description = "Filter by end date") @RequestParam(required = false) 
             @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+            @Parameter(description = "Keyset cursor from meta.next_cursor; send an empty value to start cursor paging") @RequestParam(required = false) String cursor,
             @PageableDefault(size = 10, sort = "updatedAt,desc") Pageable pageable,
             @AuthenticationPrincipal UserDetails userDetails) {
         
@@ -89,9 +92,18 @@ public class NoteController {
                 .tagIds(tagIds)
                 .startDate(startDate)
                 .endDate(endDate)
+                .cursor(cursor)
                 .pageable(pageable)
                 .build();
         
+        if (cursor != null) {
+            CursorPage<NoteDto> notes = noteUseCase.scrollNotes(request);
+            return ResponseEntity.ok(ApiResponse.successWithMeta(
+                    notes.content(),
+                    Meta.withCursor(notes.nextCursor())
+            ));
+        }
+        
         Page<NoteDto> notes = noteUseCase.getNotes(request);
         
         return ResponseEntity.ok(ApiResponse.successWithMeta(
@@ -100,14 +112,52 @@ public class NoteController {
         ));
     }
     
+    @GetMapping("/summaries")
+    @Operation(summary = "Get note summaries", description = "Get paginated note list with content previews and word counts instead of full content")
+    @ApiResponses(value = {
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Note summaries retrieved successfully")
+    })
+    public ResponseEntity<ApiResponse<List<NoteSummaryDto>>> getNoteSummaries(
+            @Parameter(description = "Filter by category ID") @RequestParam(required = false) UUID categoryId,
+            @Parameter(description = "Filter by tag IDs") @RequestParam(required = false) List<UUID> tagIds,
+            @Parameter(description = "Filter by start date") @RequestParam(required = false) 
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+            @Parameter(description = "Filter by end date") @RequestParam(required = false) 
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+            @PageableDefault(size = 10, sort = "updatedAt", direction = Sort.Direction.DESC) Pageable pageable,
+            @AuthenticationPrincipal UserDetails userDetails) {
+        
+        UUID userId = UUID.fromString(userDetails.getUsername());
+        
+        GetNotesRequest request = GetNotesRequest.builder()
+                .userId(userId)
+                .categoryId(categoryId)
+                .tagIds(tagIds)
+                .startDate(startDate)
+                .endDate(endDate)
+                .pageable(pageable)
+                .build();
+        
+        Page<NoteSummaryDto> notes = noteUseCase.getNoteSummaries(request);
+        
+        return ResponseEntity.ok(ApiResponse.successWithMeta(
+                notes.getContent(),
+                Meta.withPagination(notes)
+        ));
+    }
+    
     @GetMapping("/search")
-    @Operation(summary = "Search notes", description = "Full-text search in notes using PostgreSQL FTS")
+    @Operation(summary = "Search notes", description = "Full-text search in notes using PostgreSQL FTS. " +
+            "RANKED mode orders by relevance and supports \"phrases\", or, -exclusions and prefix* terms; " +
+            "CONTAINS mode falls back to plain substring matching")
     @ApiResponses(value = {
         @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Search completed successfully"),
         @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "400", description = "Search query is required")
     })
     public ResponseEntity<ApiResponse<List<NoteDto>>> searchNotes(
             @Parameter(description = "Search query", required = true) @RequestParam String query,
+            @Parameter(description = "Search mode") @RequestParam(defaultValue = "RANKED") SearchMode mode,
+            @Parameter(description = "Keyset cursor from meta.next_cursor; send an empty value to start cursor paging") @RequestParam(required = false) String cursor,
             @PageableDefault(size = 10) Pageable pageable,
             @AuthenticationPrincipal UserDetails userDetails) {
         
@@ -116,9 +166,19 @@ public class NoteController {
         SearchNotesRequest request = SearchNotesRequest.builder()
                 .userId(userId)
                 .query(query)
+                .mode(mode)
+                .cursor(cursor)
                 .pageable(pageable)
                 .build();
         
+        if (cursor != null) {
+            CursorPage<NoteDto> notes = noteUseCase.scrollSearchNotes(request);
+            return ResponseEntity.ok(ApiResponse.successWithMeta(
+                    notes.content(),
+                    Meta.withCursor(notes.nextCursor())
+            ));
+        }
+        
         Page<NoteDto> notes = noteUseCase.searchNotes(request);
         
         return ResponseEntity.ok(ApiResponse.successWithMeta(
@@ -135,6 +195,7 @@ public class NoteController {
     })
     public ResponseEntity<ApiResponse<List<NoteDto>>> getNotesByCategory(
             @Parameter(description = "Category ID") @PathVariable UUID categoryId,
+            @Parameter(description = "Keyset cursor from meta.next_cursor; send an empty value to start cursor paging") @RequestParam(required = false) String cursor,
             @PageableDefault(size = 10, sort = "updatedAt,desc") Pageable pageable,
             @AuthenticationPrincipal UserDetails userDetails) {
         
@@ -143,9 +204,18 @@ public class NoteController {
         GetNotesByRequest request = GetNotesByRequest.builder()
                 .userId(userId)
                 .categoryId(categoryId)
+                .cursor(cursor)
                 .pageable(pageable)
                 .build();
         
+        if (cursor != null) {
+            CursorPage<NoteDto> notes = noteUseCase.scrollNotesByCategory(request);
+            return ResponseEntity.ok(ApiResponse.successWithMeta(
+                    notes.content(),
+                    Meta.withCursor(notes.nextCursor())
+            ));
+        }
+        
         Page<NoteDto> notes = noteUseCase.getNotesByCategory(request);
         
         return ResponseEntity.ok(ApiResponse.successWithMeta(
@@ -162,6 +232,7 @@ public class NoteController {
     })
     public ResponseEntity<ApiResponse<List<NoteDto>>> getNotesByTag(
             @Parameter(description = "Tag ID") @PathVariable UUID tagId,
+            @Parameter(description = "Keyset cursor from meta.next_cursor; send an empty value to start cursor paging") @RequestParam(required = false) String cursor,
             @PageableDefault(size = 10, sort = "updatedAt,desc") Pageable pageable,
             @AuthenticationPrincipal UserDetails userDetails) {
         
@@ -170,9 +241,18 @@ public class NoteController {
         GetNotesByRequest request = GetNotesByRequest.builder()
                 .userId(userId)
                 .tagId(tagId)
+                .cursor(cursor)
                 .pageable(pageable)
                 .build();
         
+        if (cursor != null) {
+            CursorPage<NoteDto> notes = noteUseCase.scrollNotesByTag(request);
+            return ResponseEntity.ok(ApiResponse.successWithMeta(
+                    notes.content(),
+                    Meta.withCursor(notes.nextCursor())
+            ));
+        }
+        
         Page<NoteDto> notes = noteUseCase.getNotesByTag(request);
         
         return ResponseEntity.ok(ApiResponse.successWithMeta(
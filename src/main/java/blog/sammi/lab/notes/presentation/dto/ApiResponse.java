@@ -151,6 +151,9 @@ public class ApiResponse<T> {
         if (meta.getPagination() != null) {
             metaMap.put("pagination", meta.getPagination());
         }
+        if (meta.getNextCursor() != null) {
+            metaMap.put("next_cursor", meta.getNextCursor());
+        }
         if (meta.getTimestamp() != null) {
             metaMap.put("timestamp", meta.getTimestamp());
         }
@@ -41,6 +41,7 @@ public enum ErrorCode {
     INSUFFICIENT_PERMISSIONS("INSUFFICIENT_PERMISSIONS", "Izin tidak mencukupi"),
     OPERATION_NOT_ALLOWED("OPERATION_NOT_ALLOWED", "Operasi tidak diizinkan"),
     DUPLICATE_RESOURCE("DUPLICATE_RESOURCE", "Resource sudah ada"),
+    OPERATION_IN_PROGRESS("OPERATION_IN_PROGRESS", "Operasi lain sedang berjalan"),
     
     // System Errors
     INTERNAL_SERVER_ERROR("INTERNAL_SERVER_ERROR", "Terjadi kesalahan sistem"),
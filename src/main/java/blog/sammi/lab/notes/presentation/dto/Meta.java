@@ -22,6 +22,9 @@ public class Meta {
     @Schema(description = "Pagination information")
     private Pagination pagination;
     
+    @Schema(description = "Opaque cursor for the next page when using keyset pagination; absent on the last page")
+    private String nextCursor;
+    
     @Schema(description = "Response timestamp")
     private LocalDateTime timestamp;
     
@@ -39,6 +42,13 @@ public class Meta {
                 .build();
     }
     
+    public static Meta withCursor(String nextCursor) {
+        return Meta.builder()
+                .nextCursor(nextCursor)
+                .timestamp(LocalDateTime.now())
+                .build();
+    }
+    
     public static Meta withTimestamp() {
         return Meta.builder()
                 .timestamp(LocalDateTime.now())
@@ -0,0 +1,37 @@
+package blog.sammi.lab.notes.presentation.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@Schema(description = "Lightweight note representation for lists")
+public record NoteSummaryDto(
+    @Schema(description = "Note ID")
+    UUID id,
+    
+    @Schema(description = "Note title", example = "My Important Note")
+    String title,
+    
+    @Schema(description = "First 280 characters of the content with whitespace collapsed", example = "This is the content of my note...")
+    String preview,
+    
+    @Schema(description = "Number of words in the full content", example = "42")
+    int wordCount,
+    
+    @Schema(description = "User ID who owns this note")
+    UUID userId,
+    
+    @Schema(description = "Category ID")
+    UUID categoryId,
+    
+    @Schema(description = "Tag IDs")
+    List<UUID> tagIds,
+    
+    @Schema(description = "Creation timestamp")
+    LocalDateTime createdAt,
+    
+    @Schema(description = "Last update timestamp")
+    LocalDateTime updatedAt
+) {}
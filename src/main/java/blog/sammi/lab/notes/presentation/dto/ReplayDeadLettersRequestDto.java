@@ -0,0 +1,30 @@
+package blog.sammi.lab.notes.presentation.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.time.LocalDateTime;
+import java.util.Set;
+
+@Schema(description = "Replay dead letter entries selected by id or by filter")
+public record ReplayDeadLettersRequestDto(
+    @Schema(description = "Job IDs to replay")
+    Set<String> jobIds,
+    
+    @Schema(description = "Only entries of this job type", example = "EMAIL")
+    String jobType,
+    
+    @Schema(description = "Only entries from this origin queue", example = "email")
+    String queue,
+    
+    @Schema(description = "Only entries whose error contains this text (case-insensitive)", example = "SMTP")
+    String error,
+    
+    @Schema(description = "Only entries that failed before this time")
+    LocalDateTime failedBefore,
+    
+    @Schema(description = "Only entries that failed after this time")
+    LocalDateTime failedAfter,
+    
+    @Schema(description = "Required to replay every entry when no filter is given", example = "false")
+    boolean all
+) {}
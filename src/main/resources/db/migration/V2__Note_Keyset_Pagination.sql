@@ -0,0 +1,10 @@
+-- Keyset (cursor) pagination over notes ordered by (updated_at DESC, id DESC)
+
+-- Cursor comparisons need a total order, so updated_at can no longer be NULL
+UPDATE notes SET updated_at = created_at WHERE updated_at IS NULL;
+ALTER TABLE notes ALTER COLUMN updated_at SET DEFAULT CURRENT_TIMESTAMP;
+ALTER TABLE notes ALTER COLUMN updated_at SET NOT NULL;
+
+-- Indexes matching the cursor predicate and sort order
+CREATE INDEX idx_notes_user_updated_id ON notes(user_id, updated_at DESC, id DESC);
+CREATE INDEX idx_notes_category_updated_id ON notes(category_id, updated_at DESC, id DESC);
@@ -0,0 +1,11 @@
+-- Precomputed list data so note lists never need to read (or detoast) the full content
+
+ALTER TABLE notes
+    ADD COLUMN preview TEXT
+        GENERATED ALWAYS AS (regexp_replace(left(content, 280), '\s+', ' ', 'g')) STORED;
+
+ALTER TABLE notes
+    ADD COLUMN word_count INTEGER
+        GENERATED ALWAYS AS (
+            COALESCE(array_length(regexp_split_to_array(NULLIF(btrim(content, E' \t\r\n'), ''), '\s+'), 1), 0)
+        ) STORED;
@@ -0,0 +1,17 @@
+-- Jobs recorded in the same transaction as the data they refer to; relayed to the queue after commit
+
+CREATE TABLE job_outbox (
+    id UUID PRIMARY KEY DEFAULT gen_random_uuid(),
+    queue_name VARCHAR(100) NOT NULL,
+    job_type VARCHAR(100) NOT NULL,
+    payload JSONB NOT NULL,
+    delay_seconds BIGINT NOT NULL DEFAULT 0,
+    attempts INTEGER NOT NULL DEFAULT 0,
+    last_error TEXT,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    sent_at TIMESTAMP
+);
+
+-- The relay only ever scans unsent rows, oldest first
+CREATE INDEX idx_job_outbox_pending ON job_outbox(created_at) WHERE sent_at IS NULL;
+CREATE INDEX idx_job_outbox_sent_at ON job_outbox(sent_at) WHERE sent_at IS NOT NULL;
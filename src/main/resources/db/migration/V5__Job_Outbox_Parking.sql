@@ -0,0 +1,7 @@
+-- Rows that can never be relayed (e.g. unknown job type) are parked instead of being retried forever
+
+ALTER TABLE job_outbox ADD COLUMN parked_at TIMESTAMP;
+
+-- Pending rows are taken fewest attempts first, so rows that keep failing sort behind fresh ones
+DROP INDEX idx_job_outbox_pending;
+CREATE INDEX idx_job_outbox_pending ON job_outbox(attempts, created_at) WHERE sent_at IS NULL AND parked_at IS NULL;
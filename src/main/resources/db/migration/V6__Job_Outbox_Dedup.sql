@@ -0,0 +1,4 @@
+-- Dedup key claimed when the row was written; the relayed job carries it and frees it once processed
+
+ALTER TABLE job_outbox ADD COLUMN dedup_key VARCHAR(255);
+ALTER TABLE job_outbox ADD COLUMN dedup_token VARCHAR(36);
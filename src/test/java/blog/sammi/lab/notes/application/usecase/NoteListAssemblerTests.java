@@ -0,0 +1,130 @@
+package blog.sammi.lab.notes.application.usecase;
+
+import blog.sammi.lab.notes.application.mapper.CategoryMapperImpl;
+import blog.sammi.lab.notes.application.mapper.NoteMapperImpl;
+import blog.sammi.lab.notes.application.mapper.TagMapperImpl;
+import blog.sammi.lab.notes.domain.entity.Category;
+import blog.sammi.lab.notes.domain.entity.Note;
+import blog.sammi.lab.notes.domain.entity.Tag;
+import blog.sammi.lab.notes.domain.entity.User;
+import blog.sammi.lab.notes.domain.repository.NoteRepository;
+import blog.sammi.lab.notes.infrastructure.config.JpaAuditingConfig;
+import blog.sammi.lab.notes.presentation.dto.NoteDto;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers
+@Import({
+    NoteListAssembler.class,
+    NoteMapperImpl.class,
+    CategoryMapperImpl.class,
+    TagMapperImpl.class,
+    JpaAuditingConfig.class
+})
+class NoteListAssemblerTests {
+
+    // Page query + count query + tag links + category counts + categories + tag counts
+    private static final long STATEMENTS_PER_PAGE = 6;
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:17-alpine");
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private NoteRepository noteRepository;
+
+    @Autowired
+    private NoteListAssembler noteListAssembler;
+
+    private UUID userId;
+
+    @BeforeEach
+    void setUp() {
+        User user = new User();
+        user.setUsername("reader");
+        user.setEmail("reader@example.com");
+        user.setPassword("secret");
+        entityManager.persist(user);
+        userId = user.getId();
+
+        List<Category> categories = List.of(category(user, "Work"), category(user, "Home"));
+        List<Tag> tags = List.of(tag(user, "a"), tag(user, "b"), tag(user, "c"));
+
+        for (int i = 0; i < 60; i++) {
+            Note note = new Note();
+            note.setTitle("Note " + i);
+            note.setContent("Content " + i);
+            note.setUser(user);
+            note.setCategory(categories.get(i % categories.size()));
+            note.getTags().add(tags.get(i % tags.size()));
+            note.getTags().add(tags.get((i + 1) % tags.size()));
+            entityManager.persist(note);
+        }
+
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {5, 20, 50})
+    void hydratesPageWithConstantStatementCount(int pageSize) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        Page<Note> notes = noteRepository.findByUserId(userId,
+                PageRequest.of(0, pageSize, Sort.by(Sort.Direction.DESC, "updatedAt")));
+        List<NoteDto> dtos = noteListAssembler.toDtoPage(notes).getContent();
+
+        assertThat(dtos).hasSize(pageSize);
+        assertThat(dtos).allSatisfy(dto -> {
+            assertThat(dto.category()).isNotNull();
+            assertThat(dto.category().noteCount()).isEqualTo(30L);
+            assertThat(dto.tags()).hasSize(2);
+            assertThat(dto.tags()).allSatisfy(tag -> assertThat(tag.noteCount()).isEqualTo(40L));
+        });
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(STATEMENTS_PER_PAGE);
+    }
+
+    private Category category(User user, String name) {
+        Category category = new Category();
+        category.setName(name);
+        category.setUser(user);
+        return entityManager.persist(category);
+    }
+
+    private Tag tag(User user, String name) {
+        Tag tag = new Tag();
+        tag.setName(name);
+        tag.setUser(user);
+        return entityManager.persist(tag);
+    }
+}
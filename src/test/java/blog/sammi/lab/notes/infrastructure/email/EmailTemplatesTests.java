@@ -0,0 +1,126 @@
+package blog.sammi.lab.notes.infrastructure.email;
+
+import blog.sammi.lab.notes.domain.job.EmailJob;
+import jakarta.mail.Session;
+import jakarta.mail.internet.InternetAddress;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.thymeleaf.TemplateEngine;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.templatemode.TemplateMode;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Properties;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EmailTemplatesTests {
+
+    private static final String FROM = "notes@example.com";
+
+    private final Session session = Session.getInstance(new Properties());
+    private TemplateEngine templateEngine;
+    private EmailTemplates emailTemplates;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        ClassLoaderTemplateResolver resolver = new ClassLoaderTemplateResolver();
+        resolver.setPrefix("templates/");
+        resolver.setSuffix(".html");
+        resolver.setTemplateMode(TemplateMode.HTML);
+        resolver.setCharacterEncoding("UTF-8");
+        templateEngine = new TemplateEngine();
+        templateEngine.setTemplateResolver(resolver);
+        emailTemplates = new EmailTemplates(templateEngine, FROM);
+    }
+
+    @Test
+    void rendersTheSameHtmlAsThymeleaf() {
+        assertThat(render(EmailJob.otpVerification("a@example.com", "482915")))
+                .isEqualTo(thymeleaf("otp-email", "otpCode", "482915"));
+        assertThat(render(EmailJob.passwordReset("a@example.com", "73<&>\"'")))
+                .isEqualTo(thymeleaf("password-reset-email", "resetCode", "73<&>\"'"));
+    }
+
+    @Test
+    void buildsSinglePartHtmlMessage() throws Exception {
+        MimeMessage message = emailTemplates.populate(new MimeMessage(session), EmailJob.otpVerification("a@example.com", "482915"));
+        message.saveChanges();
+
+        assertThat(message.getContentType()).isEqualTo("text/html; charset=UTF-8");
+        assertThat(message.getSubject()).isEqualTo("Verify Your Account - Notes App");
+        assertThat(((InternetAddress) message.getFrom()[0]).getPersonal()).isEqualTo("Notes App");
+        assertThat(message.getAllRecipients()).extracting(Object::toString).containsExactly("a@example.com");
+        assertThat(message.getContent()).isEqualTo(thymeleaf("otp-email", "otpCode", "482915"));
+    }
+
+    // mvn test -Dtest=EmailTemplatesTests -Dbenchmark=true
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void benchmarkAgainstThymeleaf() throws Exception {
+        int warmup = 20_000;
+        int iterations = 50_000;
+
+        for (int i = 0; i < warmup; i++) {
+            thymeleafMessage(i).writeTo(OutputStream.nullOutputStream());
+            precompiledMessage(i).writeTo(OutputStream.nullOutputStream());
+        }
+
+        long thymeleafNanos = time(iterations, true);
+        long precompiledNanos = time(iterations, false);
+
+        System.out.printf("Thymeleaf + MimeMessageHelper: %,d ns/email%n", thymeleafNanos / iterations);
+        System.out.printf("Precompiled template:          %,d ns/email%n", precompiledNanos / iterations);
+    }
+
+    private long time(int iterations, boolean thymeleaf) throws Exception {
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            MimeMessage message = thymeleaf ? thymeleafMessage(i) : precompiledMessage(i);
+            message.writeTo(OutputStream.nullOutputStream());
+        }
+        return System.nanoTime() - start;
+    }
+
+    // The path EmailServiceImpl took before templates were precompiled
+    private MimeMessage thymeleafMessage(int i) throws Exception {
+        Context context = new Context();
+        context.setVariable("otpCode", code(i));
+        String html = templateEngine.process("otp-email", context);
+
+        MimeMessage message = new MimeMessage(session);
+        MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
+        helper.setFrom(FROM, "Notes App");
+        helper.setTo("user" + i + "@example.com");
+        helper.setSubject("Verify Your Account - Notes App");
+        helper.setText(html, true);
+        message.saveChanges();
+        return message;
+    }
+
+    private MimeMessage precompiledMessage(int i) throws Exception {
+        MimeMessage message = emailTemplates.populate(
+                new MimeMessage(session), EmailJob.otpVerification("user" + i + "@example.com", code(i)));
+        message.saveChanges();
+        return message;
+    }
+
+    private static String code(int i) {
+        return String.format("%06d", i % 1_000_000);
+    }
+
+    private String render(EmailJob email) {
+        return new String(emailTemplates.renderBody(email), StandardCharsets.UTF_8);
+    }
+
+    private String thymeleaf(String template, String variable, String value) {
+        Context context = new Context();
+        context.setVariable(variable, value);
+        return templateEngine.process(template, context);
+    }
+}
@@ -0,0 +1,109 @@
+package blog.sammi.lab.notes.infrastructure.email;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Minimal in-process SMTP server for tests: EHLO, AUTH PLAIN, MAIL/RCPT/DATA, RSET, NOOP and QUIT, no TLS.
+ * Recipients containing "reject" get a 550; {@code dropAfterMessages} closes a connection after that many messages.
+ */
+class SmtpStandIn implements AutoCloseable {
+
+    final AtomicInteger connections = new AtomicInteger();
+    final AtomicInteger authentications = new AtomicInteger();
+    final AtomicInteger delivered = new AtomicInteger();
+    final AtomicInteger maxConcurrentConnections = new AtomicInteger();
+
+    private final AtomicInteger openConnections = new AtomicInteger();
+    private final ServerSocket serverSocket;
+    private final int dropAfterMessages;
+
+    SmtpStandIn(int dropAfterMessages) throws IOException {
+        this.dropAfterMessages = dropAfterMessages;
+        this.serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        Thread.ofVirtual().name("smtp-stand-in").start(this::accept);
+    }
+
+    int port() {
+        return serverSocket.getLocalPort();
+    }
+
+    private void accept() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                connections.incrementAndGet();
+                maxConcurrentConnections.accumulateAndGet(openConnections.incrementAndGet(), Math::max);
+                Thread.ofVirtual().start(() -> serve(socket));
+            } catch (IOException e) {
+                return;
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (socket) {
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.ISO_8859_1));
+            OutputStream out = socket.getOutputStream();
+            int messages = 0;
+            reply(out, "220 stand-in ESMTP");
+
+            String line;
+            while ((line = in.readLine()) != null) {
+                String command = line.toUpperCase();
+                if (command.startsWith("EHLO")) {
+                    reply(out, "250-stand-in\r\n250-AUTH PLAIN\r\n250 8BITMIME");
+                } else if (command.startsWith("HELO")) {
+                    reply(out, "250 stand-in");
+                } else if (command.equals("AUTH PLAIN")) {
+                    reply(out, "334 ");
+                    in.readLine();
+                    authentications.incrementAndGet();
+                    reply(out, "235 2.7.0 Authenticated");
+                } else if (command.startsWith("AUTH PLAIN ")) {
+                    authentications.incrementAndGet();
+                    reply(out, "235 2.7.0 Authenticated");
+                } else if (command.startsWith("RCPT TO")) {
+                    reply(out, command.contains("REJECT") ? "550 5.1.1 No such user" : "250 OK");
+                } else if (command.equals("DATA")) {
+                    reply(out, "354 End data with <CR><LF>.<CR><LF>");
+                    while ((line = in.readLine()) != null && !line.equals(".")) {
+                        // Message body is discarded
+                    }
+                    delivered.incrementAndGet();
+                    reply(out, "250 OK");
+                    if (++messages == dropAfterMessages) {
+                        return;
+                    }
+                } else if (command.equals("QUIT")) {
+                    reply(out, "221 Bye");
+                    return;
+                } else {
+                    // MAIL FROM, RSET, NOOP
+                    reply(out, "250 OK");
+                }
+            }
+        } catch (IOException e) {
+            // Client went away
+        } finally {
+            openConnections.decrementAndGet();
+        }
+    }
+
+    private static void reply(OutputStream out, String response) throws IOException {
+        out.write((response + "\r\n").getBytes(StandardCharsets.ISO_8859_1));
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+    }
+}
@@ -0,0 +1,121 @@
+package blog.sammi.lab.notes.infrastructure.email;
+
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.mail.javamail.MimeMessageHelper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SmtpTransportPoolTests {
+
+    private SmtpStandIn server;
+    private SmtpTransportPool pool;
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (pool != null) {
+            pool.shutdown();
+        }
+        if (server != null) {
+            server.close();
+        }
+    }
+
+    @Test
+    void sendsBatchesOverOneAuthenticatedConnection() throws Exception {
+        start(0, 2);
+
+        assertThat(pool.sendAll(messages(20))).isEmpty();
+        assertThat(pool.sendAll(messages(5))).isEmpty();
+
+        assertThat(server.delivered).hasValue(25);
+        assertThat(server.connections).hasValue(1);
+        assertThat(server.authentications).hasValue(1);
+    }
+
+    @Test
+    void rejectedRecipientFailsOnlyItsOwnMessage() throws Exception {
+        start(0, 1);
+        List<MimeMessage> messages = List.of(
+                message("first@example.com"), message("reject@example.com"), message("third@example.com"));
+
+        Map<Integer, Exception> failures = pool.sendAll(messages);
+
+        assertThat(failures).containsOnlyKeys(1);
+        assertThat(server.delivered).hasValue(2);
+        assertThat(server.connections).hasValue(1);
+    }
+
+    @Test
+    void reconnectsWhenTheServerDropsTheConnection() throws Exception {
+        start(3, 1);
+
+        assertThat(pool.sendAll(messages(7))).isEmpty();
+
+        assertThat(server.delivered).hasValue(7);
+        assertThat(server.connections).hasValue(3);
+    }
+
+    @Test
+    void capsConcurrentSessions() throws Exception {
+        start(0, 2);
+
+        List<Future<Map<Integer, Exception>>> results = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 8; i++) {
+                List<MimeMessage> batch = messages(5);
+                results.add(executor.submit(() -> pool.sendAll(batch)));
+            }
+        }
+
+        for (Future<Map<Integer, Exception>> result : results) {
+            assertThat(result.get()).isEmpty();
+        }
+        assertThat(server.delivered).hasValue(40);
+        assertThat(server.maxConcurrentConnections.get()).isLessThanOrEqualTo(2);
+    }
+
+    private void start(int dropAfterMessages, int maxSessions) throws Exception {
+        server = new SmtpStandIn(dropAfterMessages);
+
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("127.0.0.1");
+        mailSender.setPort(server.port());
+        mailSender.setUsername("notes");
+        mailSender.setPassword("secret");
+        Properties properties = new Properties();
+        properties.put("mail.smtp.auth", "true");
+        properties.put("mail.smtp.starttls.enable", "false");
+        mailSender.setJavaMailProperties(properties);
+
+        pool = new SmtpTransportPool(mailSender, maxSessions, 100, 60000, 5000, 5000);
+    }
+
+    private List<MimeMessage> messages(int count) throws Exception {
+        List<MimeMessage> messages = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            messages.add(message("user" + i + "@example.com"));
+        }
+        return messages;
+    }
+
+    private MimeMessage message(String to) throws Exception {
+        MimeMessage message = pool.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, false, "UTF-8");
+        helper.setFrom("notes@example.com");
+        helper.setTo(to);
+        helper.setSubject("Test");
+        helper.setText("Hello");
+        return message;
+    }
+}
@@ -0,0 +1,200 @@
+package blog.sammi.lab.notes.infrastructure.queue;
+
+import blog.sammi.lab.notes.domain.job.EmailJob;
+import blog.sammi.lab.notes.domain.service.JobProcessor;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JobCodecTests {
+
+    // What the previous release wrote: QueueJob through Spring's mapper (SNAKE_CASE, ISO dates) with a map payload
+    private static final String LEGACY_JSON = """
+            {"id":"job-1","job_type":"EMAIL","payload":{"otpCode":"123456","to":"user@example.com","type":"OTP_VERIFICATION"},\
+            "retry_count":2,"max_retries":5,"created_at":"2024-03-01T10:15:30","scheduled_at":"2024-03-01T10:16:00.123456",\
+            "error_message":null}""";
+
+    private static final String LEGACY_DEAD_LETTER_JSON = """
+            {"id":"job-2","job_type":"EMAIL","payload":{"otpCode":"654321","to":"user@example.com","type":"OTP_VERIFICATION"},\
+            "retry_count":3,"max_retries":3,"created_at":"2024-03-01T10:15:30","scheduled_at":"2024-03-01T10:16:00",\
+            "error_message":"SMTP unavailable"}""";
+
+    @ParameterizedTest
+    @ValueSource(strings = {"json", "smile", "cbor"})
+    void roundTripsEveryFormat(String format) {
+        JobCodec codec = codec(format);
+        QueueJob job = new QueueJob(EmailJob.passwordReset("user@example.com", "reset-token"));
+        job.setRetryCount(1);
+        job.setCreatedAt(job.getCreatedAt().truncatedTo(ChronoUnit.MILLIS));
+        job.setScheduledAt(job.getScheduledAt().truncatedTo(ChronoUnit.MILLIS));
+        job.setErrorMessage("SMTP unavailable");
+        job.setDedupKey("email:reset:1");
+        job.setDedupToken("token");
+
+        byte[] encoded = codec.encode(job);
+        QueueJob decoded = codec.decode(encoded);
+
+        assertThat(encoded[2]).isEqualTo(JobCodec.VERSION);
+        assertThat(decoded).isEqualTo(job);
+    }
+
+    @Test
+    void decodesEveryFormatWhateverItWrites() {
+        QueueJob job = new QueueJob(EmailJob.otpVerification("user@example.com", "654321"));
+
+        QueueJob decoded = codec("json").decode(codec("cbor").encode(job));
+
+        assertThat(decoded.getPayload()).isEqualTo(job.getPayload());
+    }
+
+    @Test
+    void decodesPayloadIntoRegisteredRecord() {
+        QueueJob decoded = codec("smile").decode(
+                codec("smile").encode(new QueueJob(EmailJob.otpVerification("user@example.com", "123456"))));
+
+        assertThat(decoded.getPayload()).isInstanceOf(EmailJob.class);
+        assertThat((EmailJob) decoded.getPayload())
+                .isEqualTo(EmailJob.otpVerification("user@example.com", "123456"));
+        assertThat(decoded.getRawPayload()).isNull();
+    }
+
+    @Test
+    void keepsPayloadOfUnknownJobTypeRaw() {
+        JobCodec writer = codec("smile");
+        JobCodec reader = new JobCodec(new JobRegistry(List.of()), "smile");
+
+        QueueJob decoded = reader.decode(writer.encode(new QueueJob(EmailJob.otpVerification("user@example.com", "1"))));
+
+        assertThat(decoded.getPayload()).isNull();
+        assertThat(decoded.getRawPayload().path("otpCode").asText()).isEqualTo("1");
+        assertThat(writer.decode(writer.encode(decoded)).getPayload())
+                .isEqualTo(EmailJob.otpVerification("user@example.com", "1"));
+    }
+
+    @Test
+    void decodesLegacyPlainJson() {
+        QueueJob decoded = codec("smile").decode(LEGACY_JSON.getBytes(StandardCharsets.UTF_8));
+
+        assertLegacyJob(decoded);
+    }
+
+    @Test
+    void decodesLegacyDeadLetter() {
+        QueueJob decoded = codec("smile").decode(LEGACY_DEAD_LETTER_JSON.getBytes(StandardCharsets.UTF_8));
+
+        assertThat(decoded.getJobType()).isEqualTo(EmailJob.JOB_TYPE);
+        assertThat(decoded.getRetryCount()).isEqualTo(3);
+        assertThat(decoded.getErrorMessage()).isEqualTo("SMTP unavailable");
+        assertThat(decoded.getPayload()).isEqualTo(EmailJob.otpVerification("user@example.com", "654321"));
+    }
+
+    @Test
+    void keepsRawPayloadBindableAcrossFormats() {
+        JobCodec writer = codec("smile");
+        JobCodec relay = new JobCodec(new JobRegistry(List.of()), "json");
+
+        QueueJob raw = relay.decode(writer.encode(new QueueJob(EmailJob.otpVerification("user@example.com", "1"))));
+
+        assertThat(writer.decode(relay.encode(raw)).getPayload())
+                .isEqualTo(EmailJob.otpVerification("user@example.com", "1"));
+    }
+
+    @Test
+    void decodesLegacyStringFromRedissonCodec() {
+        // Kryo's layout for a string: class id, then a varint of length + 1 flagged as UTF-8, then the text
+        byte[] json = LEGACY_JSON.getBytes(StandardCharsets.UTF_8);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(3);
+        int length = json.length + 1;
+        out.write(0x80 | 0x40 | (length & 0x3F));
+        out.write(length >>> 6);
+        out.writeBytes(json);
+
+        assertLegacyJob(codec("smile").decode(out.toByteArray()));
+    }
+
+    @Test
+    void skipsPrefixByteThatLooksLikeJson() {
+        byte[] json = LEGACY_JSON.getBytes(StandardCharsets.UTF_8);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(0);
+        out.write('{');
+        out.writeBytes(json);
+
+        assertLegacyJob(codec("smile").decode(out.toByteArray()));
+    }
+
+    @Test
+    void rejectsUnknownVersion() {
+        byte[] encoded = codec("smile").encode(new QueueJob(EmailJob.otpVerification("user@example.com", "1")));
+        encoded[2] = 9;
+
+        assertThatThrownBy(() -> codec("smile").decode(encoded))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("version");
+    }
+
+    @Test
+    void rejectsUnknownFormat() {
+        byte[] encoded = codec("smile").encode(new QueueJob(EmailJob.otpVerification("user@example.com", "1")));
+        encoded[3] = 42;
+
+        assertThatThrownBy(() -> codec("smile").decode(encoded))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("format");
+    }
+
+    @Test
+    void rejectsBytesThatAreNoJob() {
+        assertThatThrownBy(() -> codec("smile").decode("not a job".getBytes(StandardCharsets.UTF_8)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> codec("smile").decode("{\"id\":".getBytes(StandardCharsets.UTF_8)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static void assertLegacyJob(QueueJob job) {
+        assertThat(job.getId()).isEqualTo("job-1");
+        assertThat(job.getJobType()).isEqualTo(EmailJob.JOB_TYPE);
+        assertThat(job.getRetryCount()).isEqualTo(2);
+        assertThat(job.getMaxRetries()).isEqualTo(5);
+        assertThat(job.getCreatedAt()).isEqualTo(LocalDateTime.of(2024, 3, 1, 10, 15, 30));
+        assertThat(job.getScheduledAt()).isEqualTo(LocalDateTime.of(2024, 3, 1, 10, 16, 0, 123456000));
+        assertThat(job.getErrorMessage()).isNull();
+        assertThat(job.getPayload()).isEqualTo(EmailJob.otpVerification("user@example.com", "123456"));
+    }
+
+    private static JobCodec codec(String format) {
+        return new JobCodec(new JobRegistry(List.of(new EmailStub())), format);
+    }
+
+    private static final class EmailStub implements JobProcessor<EmailJob> {
+
+        @Override
+        public void process(EmailJob payload) {
+        }
+
+        @Override
+        public String getJobType() {
+            return EmailJob.JOB_TYPE;
+        }
+
+        @Override
+        public Class<EmailJob> getPayloadType() {
+            return EmailJob.class;
+        }
+
+        @Override
+        public int getMaxRetries() {
+            return 3;
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package blog.sammi.lab.notes.infrastructure.queue;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MappedJournalTests {
+
+    private static final String QUEUE = "email";
+    private static final int JOB_SIZE = 100;
+    // [int length][int crc][byte type][long sequence][long dueAtMs][short queueLength][queue][job]
+    private static final int RECORD_SIZE = 8 + 1 + 8 + 8 + 2 + QUEUE.length() + JOB_SIZE;
+    // Three records per segment
+    private static final int SEGMENT_SIZE = 512;
+
+    @TempDir
+    Path directory;
+
+    private MappedJournal journal;
+
+    @AfterEach
+    void tearDown() throws IOException {
+        if (journal != null) {
+            journal.close();
+        }
+    }
+
+    @Test
+    void replaysUnacknowledgedJobsInSequenceOrder() throws IOException {
+        reopen();
+        long first = journal.append(QUEUE, 1000, job(1));
+        long second = journal.append("default", 2000, job(2));
+        long third = journal.append(QUEUE, 3000, job(3));
+        journal.ack(second);
+
+        List<MappedJournal.Entry> live = reopen();
+
+        assertThat(live).extracting(MappedJournal.Entry::sequence).containsExactly(first, third);
+        assertThat(live.get(0).queueName()).isEqualTo(QUEUE);
+        assertThat(live.get(0).dueAtMs()).isEqualTo(1000);
+        assertThat(live.get(1).job()).isEqualTo(job(3));
+        assertThat(journal.append(QUEUE, 0, job(4))).isGreaterThan(third);
+    }
+
+    @Test
+    void dropsRecordWithCorruptChecksumAndAppendsAfterTheLastGoodOne() throws IOException {
+        reopen();
+        journal.append(QUEUE, 0, job(1));
+        journal.append(QUEUE, 0, job(2));
+        journal.append(QUEUE, 0, job(3));
+        journal.close();
+        corrupt(segment(0), 2L * RECORD_SIZE + 40, new byte[] {(byte) 0xFF});
+
+        List<MappedJournal.Entry> live = reopen();
+        assertThat(live).extracting(MappedJournal.Entry::job).containsExactly(job(1), job(2));
+
+        journal.append(QUEUE, 0, job(9));
+        assertThat(reopen()).extracting(MappedJournal.Entry::job).containsExactly(job(1), job(2), job(9));
+    }
+
+    @Test
+    void stopsAtTruncatedTail() throws IOException {
+        reopen();
+        journal.append(QUEUE, 0, job(1));
+        journal.append(QUEUE, 0, job(2));
+        journal.close();
+        // A length that runs past the end of the segment, as left by a torn write
+        corrupt(segment(0), 2L * RECORD_SIZE, ByteBuffer.allocate(4).putInt(SEGMENT_SIZE).array());
+
+        assertThat(reopen()).extracting(MappedJournal.Entry::job).containsExactly(job(1), job(2));
+    }
+
+    @Test
+    void compactionKeepsLiveJobs() throws IOException {
+        reopen();
+        List<Long> sequences = new ArrayList<>();
+        for (int i = 1; i <= 9; i++) {
+            sequences.add(journal.append(QUEUE, 0, job(i)));
+        }
+        assertThat(journal.segmentCount()).isEqualTo(3);
+        // Segment 0 keeps one of three jobs, segment 1 none
+        for (int i : new int[] {0, 1, 3, 4, 5}) {
+            journal.ack(sequences.get(i));
+        }
+
+        assertThat(journal.compact()).isEqualTo(2);
+        assertThat(segment(0).toFile()).doesNotExist();
+        assertThat(segment(1).toFile()).doesNotExist();
+
+        List<MappedJournal.Entry> live = reopen();
+        assertThat(live).extracting(MappedJournal.Entry::sequence)
+                .containsExactly(sequences.get(2), sequences.get(6), sequences.get(7), sequences.get(8));
+        assertThat(live.get(0).job()).isEqualTo(job(3));
+    }
+
+    @Test
+    void collapsesCopiesLeftByCrashDuringCompaction() throws IOException {
+        reopen();
+        List<Long> sequences = new ArrayList<>();
+        for (int i = 1; i <= 6; i++) {
+            sequences.add(journal.append(QUEUE, 0, job(i)));
+        }
+        journal.ack(sequences.get(0));
+        journal.ack(sequences.get(1));
+        byte[] oldest = Files.readAllBytes(segment(0));
+        assertThat(journal.compact()).isEqualTo(1);
+        journal.close();
+        // As if the process died after the live job was moved forward but before the segment was deleted
+        Files.write(segment(0), oldest);
+
+        List<MappedJournal.Entry> live = reopen();
+        assertThat(live).extracting(MappedJournal.Entry::sequence)
+                .containsExactly(sequences.get(2), sequences.get(3), sequences.get(4), sequences.get(5));
+        assertThat(live.get(0).job()).isEqualTo(job(3));
+    }
+
+    private List<MappedJournal.Entry> reopen() throws IOException {
+        if (journal != null) {
+            journal.close();
+        }
+        journal = new MappedJournal(directory, SEGMENT_SIZE, false, 0.5);
+        return new ArrayList<>(journal.open());
+    }
+
+    private Path segment(long id) {
+        return directory.resolve(String.format("segment-%020d.log", id));
+    }
+
+    private static void corrupt(Path file, long offset, byte[] bytes) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(bytes), offset);
+        }
+    }
+
+    private static byte[] job(int id) {
+        byte[] job = new byte[JOB_SIZE];
+        Arrays.fill(job, (byte) id);
+        return job;
+    }
+}
@@ -0,0 +1,66 @@
+package blog.sammi.lab.notes.infrastructure.queue;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TimingWheelTests {
+
+    @Test
+    void expiresEntriesInDueOrder() {
+        TimingWheel<String> wheel = new TimingWheel<>(10, 8, 0);
+        wheel.schedule("c", 50);
+        wheel.schedule("a", 20);
+        wheel.schedule("b", 30);
+        wheel.schedule("a2", 25);
+
+        assertThat(advance(wheel, 100)).containsExactly("a", "a2", "b", "c");
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void keepsEntriesUntilTheirDueTick() {
+        TimingWheel<String> wheel = new TimingWheel<>(10, 8, 0);
+        wheel.schedule("later", 40);
+
+        assertThat(advance(wheel, 39)).isEmpty();
+        assertThat(wheel.size()).isEqualTo(1);
+        assertThat(advance(wheel, 40)).containsExactly("later");
+    }
+
+    @Test
+    void waitsOutFullRevolutions() {
+        TimingWheel<String> wheel = new TimingWheel<>(10, 8, 0);
+        // Tick 20 shares a slot with ticks 4 and 12
+        wheel.schedule("far", 200);
+        wheel.schedule("near", 40);
+
+        assertThat(advance(wheel, 100)).containsExactly("near");
+        assertThat(advance(wheel, 199)).isEmpty();
+        assertThat(advance(wheel, 200)).containsExactly("far");
+    }
+
+    @Test
+    void expiresOverdueEntriesOnNextTick() {
+        TimingWheel<String> wheel = new TimingWheel<>(10, 8, 1000);
+        wheel.schedule("overdue", 500);
+
+        assertThat(advance(wheel, 1000)).isEmpty();
+        assertThat(advance(wheel, 1010)).containsExactly("overdue");
+    }
+
+    @Test
+    void rejectsWheelSizeThatIsNoPowerOfTwo() {
+        assertThatThrownBy(() -> new TimingWheel<>(10, 12, 0)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static List<String> advance(TimingWheel<String> wheel, long nowMs) {
+        List<String> expired = new ArrayList<>();
+        wheel.advance(nowMs, expired::add);
+        return expired;
+    }
+}